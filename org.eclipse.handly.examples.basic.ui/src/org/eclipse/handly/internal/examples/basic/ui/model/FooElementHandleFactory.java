@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 1C-Soft LLC.
+ * Copyright (c) 2017, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -16,13 +16,29 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.handly.examples.basic.ui.model.FooModelCore;
 import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.IElementHandleFactory;
+import org.eclipse.handly.model.impl.support.ElementInterner;
 
 /**
  * Provides generic way to create Foo element handles.
+ * Returns canonical handles from the given element interner.
  */
 public class FooElementHandleFactory
     implements IElementHandleFactory
 {
+    private final ElementInterner interner;
+
+    /**
+     * Constructs a handle factory that uses the given element interner.
+     *
+     * @param interner not <code>null</code>
+     */
+    public FooElementHandleFactory(ElementInterner interner)
+    {
+        if (interner == null)
+            throw new IllegalArgumentException();
+        this.interner = interner;
+    }
+
     @Override
     public IElement createFromHandleMemento(String memento)
     {
@@ -32,6 +48,9 @@ public class FooElementHandleFactory
     @Override
     public IElement createFromResourceHandle(IResource resource)
     {
-        return FooModelCore.create(resource);
+        IElement element = FooModelCore.create(resource);
+        if (element == null)
+            return null;
+        return interner.intern(element);
     }
 }
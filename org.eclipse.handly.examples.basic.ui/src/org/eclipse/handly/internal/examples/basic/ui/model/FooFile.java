@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -71,7 +71,8 @@ public class FooFile
     @Override
     public IFooVar getVar(String name)
     {
-        return new FooVar(this, name);
+        return FooModelManager.INSTANCE.getElementInterner().intern(
+            new FooVar(this, name));
     }
 
     @Override
@@ -83,7 +84,8 @@ public class FooFile
     @Override
     public IFooDef getDef(String name, int arity)
     {
-        return new FooDef(this, name, arity);
+        return FooModelManager.INSTANCE.getElementInterner().intern(
+            new FooDef(this, name, arity));
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -13,39 +13,36 @@
 package org.eclipse.handly.internal.examples.basic.ui.model;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.eclipse.handly.examples.basic.ui.model.IFooFile;
 import org.eclipse.handly.examples.basic.ui.model.IFooModel;
 import org.eclipse.handly.examples.basic.ui.model.IFooProject;
 import org.eclipse.handly.model.IElement;
-import org.eclipse.handly.model.impl.support.Body;
-import org.eclipse.handly.model.impl.support.ElementCache;
-import org.eclipse.handly.model.impl.support.IBodyCache;
+import org.eclipse.handly.model.impl.support.ConcurrentBodyCache;
+import org.eclipse.handly.model.impl.support.IConcurrentBodyCache;
 
 /**
  * The Foo Model cache.
  */
 class FooModelCache
-    implements IBodyCache
+    implements IConcurrentBodyCache
 {
     private static final int DEFAULT_PROJECT_SIZE = 5;
-    private static final int DEFAULT_FILE_SIZE = 100;
-    private static final int DEFAULT_CHILDREN_SIZE = DEFAULT_FILE_SIZE * 20; // average 20 children per file
+    private static final long DEFAULT_FILE_WEIGHT = 100 * 0x1000; // average 4K per file, including its children
 
     // The memory ratio that should be applied to the above constants.
     private final double memoryRatio = getMemoryRatio();
 
-    private Object modelBody; // Foo model element's body
-    private HashMap<IElement, Object> projectCache; // cache of open Foo projects
-    private ElementCache fileCache; // cache of open Foo files
-    private HashMap<IElement, Object> childrenCache; // cache of children of open Foo files
+    private volatile Object modelBody; // Foo model element's body
+    private Map<IElement, Object> projectCache; // cache of open Foo projects
+    private ConcurrentBodyCache fileCache; // cache of open Foo files and their children
 
     public FooModelCache()
     {
         // set the size of the caches as a function of the maximum amount of memory available
-        projectCache = new HashMap<>(DEFAULT_PROJECT_SIZE);
-        fileCache = new ElementCache((int)(DEFAULT_FILE_SIZE * memoryRatio));
-        childrenCache = new HashMap<>((int)(DEFAULT_CHILDREN_SIZE
+        projectCache = new ConcurrentHashMap<>(DEFAULT_PROJECT_SIZE);
+        fileCache = new ConcurrentBodyCache((long)(DEFAULT_FILE_WEIGHT
             * memoryRatio));
     }
 
@@ -56,10 +53,8 @@ class FooModelCache
             return modelBody;
         else if (element instanceof IFooProject)
             return projectCache.get(element);
-        else if (element instanceof IFooFile)
-            return fileCache.get(element);
         else
-            return childrenCache.get(element);
+            return fileCache.get(element);
     }
 
     @Override
@@ -69,10 +64,8 @@ class FooModelCache
             return modelBody;
         else if (element instanceof IFooProject)
             return projectCache.get(element);
-        else if (element instanceof IFooFile)
-            return fileCache.peek(element);
         else
-            return childrenCache.get(element);
+            return fileCache.peek(element);
     }
 
     @Override
@@ -81,14 +74,25 @@ class FooModelCache
         if (element instanceof IFooModel)
             modelBody = body;
         else if (element instanceof IFooProject)
-        {
             projectCache.put(element, body);
-            fileCache.ensureMaxSize(((Body)body).getChildren().length, element);
-        }
-        else if (element instanceof IFooFile)
-            fileCache.put(element, body);
         else
-            childrenCache.put(element, body);
+            fileCache.put(element, body);
+    }
+
+    @Override
+    public void putAll(Map<? extends IElement, Object> elementBodies)
+    {
+        // put a file along with its children into the file cache at once
+        Map<IElement, Object> fileBodies = new HashMap<>(elementBodies.size());
+        for (Map.Entry<? extends IElement, Object> entry : elementBodies.entrySet())
+        {
+            IElement element = entry.getKey();
+            if (element instanceof IFooModel || element instanceof IFooProject)
+                put(element, entry.getValue());
+            else
+                fileBodies.put(element, entry.getValue());
+        }
+        fileCache.putAll(fileBodies);
     }
 
     @Override
@@ -97,15 +101,15 @@ class FooModelCache
         if (element instanceof IFooModel)
             modelBody = null;
         else if (element instanceof IFooProject)
-        {
             projectCache.remove(element);
-            fileCache.resetMaxSize((int)(DEFAULT_FILE_SIZE * memoryRatio),
-                element);
-        }
-        else if (element instanceof IFooFile)
-            fileCache.remove(element);
         else
-            childrenCache.remove(element);
+            fileCache.remove(element);
+    }
+
+    @Override
+    public double fillRatio()
+    {
+        return fileCache.fillRatio();
     }
 
     /*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -24,9 +24,11 @@ import org.eclipse.handly.model.ElementDeltas;
 import org.eclipse.handly.model.IElementDelta;
 import org.eclipse.handly.model.IElementHandleFactory;
 import org.eclipse.handly.model.impl.support.ElementChangeEvent;
+import org.eclipse.handly.model.impl.support.ElementInterner;
 import org.eclipse.handly.model.impl.support.ElementManager;
 import org.eclipse.handly.model.impl.support.IModelManager;
 import org.eclipse.handly.model.impl.support.INotificationManager;
+import org.eclipse.handly.model.impl.support.ModelPrewarmingJob;
 import org.eclipse.handly.model.impl.support.NotificationManager;
 import org.eclipse.handly.util.SavedStateJob;
 
@@ -47,6 +49,8 @@ public class FooModelManager
     private ElementManager elementManager;
     private NotificationManager notificationManager;
     private Context modelContext;
+    private ModelPrewarmingJob prewarmingJob;
+    private final ElementInterner elementInterner = new ElementInterner();
 
     public void startup() throws Exception
     {
@@ -61,13 +65,20 @@ public class FooModelManager
             modelContext = new Context();
             modelContext.bind(INotificationManager.class).to(
                 notificationManager);
+            modelContext.bind(ElementInterner.class).to(elementInterner);
             modelContext.bind(IElementHandleFactory.class).to(
-                new FooElementHandleFactory());
+                new FooElementHandleFactory(elementInterner));
 
             workspace.addResourceChangeListener(this,
                 IResourceChangeEvent.POST_CHANGE);
 
             new SavedStateJob(Activator.PLUGIN_ID, this).schedule();
+
+            if (ModelPrewarmingJob.isEnabled())
+            {
+                prewarmingJob = new ModelPrewarmingJob(fooModel);
+                prewarmingJob.schedule();
+            }
         }
         catch (Exception e)
         {
@@ -78,8 +89,14 @@ public class FooModelManager
 
     public void shutdown() throws Exception
     {
+        if (prewarmingJob != null)
+        {
+            prewarmingJob.cancel();
+            prewarmingJob = null;
+        }
         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
         modelContext = null;
+        elementInterner.clear();
         notificationManager = null;
         elementManager = null;
         fooModel = null;
@@ -135,6 +152,16 @@ public class FooModelManager
         return modelContext;
     }
 
+    /**
+     * Returns the interner of canonical Foo element handles.
+     *
+     * @return the element interner (never <code>null</code>)
+     */
+    public ElementInterner getElementInterner()
+    {
+        return elementInterner;
+    }
+
     private FooModelManager()
     {
     }
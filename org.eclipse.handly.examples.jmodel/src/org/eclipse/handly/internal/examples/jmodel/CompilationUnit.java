@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2023 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -261,11 +261,11 @@ public class CompilationUnit
         CompilationUnit.class.getName() + ".ignoreMethodBodies", //$NON-NLS-1$
         Boolean.class).withDefault(false);
 
-    org.eclipse.jdt.core.dom.CompilationUnit createAst(String source,
+    org.eclipse.jdt.core.dom.CompilationUnit createAst(CharSequence source,
         IContext context, IProgressMonitor monitor) throws CoreException
     {
         ASTParser parser = ASTParser.newParser(context.getOrDefault(AST_LEVEL));
-        parser.setSource(source.toCharArray());
+        parser.setSource(toCharArray(source));
         parser.setUnitName(getPath().toString());
         parser.setProject(JavaCore.create(getResource().getProject()));
         if (context.containsKey(FOCAL_POSITION))
@@ -281,6 +281,26 @@ public class CompilationUnit
             monitor);
     }
 
+    private static CharSequence getSourceText(IContext context)
+    {
+        CharSequence text = context.get(SOURCE_CHAR_SEQUENCE);
+        if (text == null)
+            text = context.get(SOURCE_CONTENTS);
+        return text;
+    }
+
+    private static char[] toCharArray(CharSequence text)
+    {
+        if (text instanceof String)
+            return ((String)text).toCharArray();
+        // copy directly, without materializing an intermediate string
+        int length = text.length();
+        char[] result = new char[length];
+        for (int i = 0; i < length; i++)
+            result[i] = text.charAt(i);
+        return result;
+    }
+
     @Override
     public void buildSourceStructure_(IContext context,
         IProgressMonitor monitor) throws CoreException
@@ -288,7 +308,7 @@ public class CompilationUnit
         org.eclipse.jdt.core.dom.CompilationUnit cu =
             (org.eclipse.jdt.core.dom.CompilationUnit)context.get(SOURCE_AST);
         if (cu == null)
-            cu = createAst(context.get(SOURCE_CONTENTS), context, monitor);
+            cu = createAst(getSourceText(context), context, monitor);
 
         CompilatonUnitStructureBuilder builder =
             new CompilatonUnitStructureBuilder(context.get(NEW_ELEMENTS));
@@ -368,7 +388,7 @@ public class CompilationUnit
                     SOURCE_AST);
             if (cu == null)
             {
-                cu = createAst(context.get(SOURCE_CONTENTS), context, monitor);
+                cu = createAst(getSourceText(context), context, monitor);
                 context = with(of(SOURCE_AST, cu), context);
             }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2019 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -520,6 +520,9 @@ class DeltaProcessor
         if (element instanceof IJavaProject)
             JavaModelManager.INSTANCE.removePerProjectInfo(
                 ((IJavaProject)element).getProject());
+        else if (element instanceof CompilationUnit)
+            JavaModelManager.INSTANCE.getStructureStore().remove(
+                (CompilationUnit)element);
     }
 
     private void translateAddedDelta(IResourceDelta delta, IJavaElement element)
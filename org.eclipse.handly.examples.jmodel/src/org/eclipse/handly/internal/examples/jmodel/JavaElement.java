@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 1C-Soft LLC and others.
+ * Copyright (c) 2017, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -61,6 +61,12 @@ public abstract class JavaElement
         return getHandleMemento_();
     }
 
+    @Override
+    protected final boolean isHashCodeCacheable_()
+    {
+        return true; // see JavaSourceConstruct#setOccurrenceCount_
+    }
+
     @Override
     public final IModelManager getModelManager_()
     {
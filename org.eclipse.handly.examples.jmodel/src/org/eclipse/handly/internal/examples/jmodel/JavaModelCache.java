@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -13,47 +13,49 @@
 package org.eclipse.handly.internal.examples.jmodel;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.eclipse.handly.examples.jmodel.ICompilationUnit;
 import org.eclipse.handly.examples.jmodel.IJavaModel;
 import org.eclipse.handly.examples.jmodel.IJavaProject;
 import org.eclipse.handly.examples.jmodel.IPackageFragment;
 import org.eclipse.handly.examples.jmodel.IPackageFragmentRoot;
 import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.impl.support.Body;
+import org.eclipse.handly.model.impl.support.ConcurrentBodyCache;
 import org.eclipse.handly.model.impl.support.ElementCache;
-import org.eclipse.handly.model.impl.support.IBodyCache;
+import org.eclipse.handly.model.impl.support.IConcurrentBodyCache;
 
 /**
  * The Java model cache.
  */
 class JavaModelCache
-    implements IBodyCache
+    implements IConcurrentBodyCache
 {
     private static final int DEFAULT_PROJECT_SIZE = 5;
     private static final int DEFAULT_ROOT_SIZE = 50;
     private static final int DEFAULT_PKG_SIZE = 500;
-    private static final int DEFAULT_FILE_SIZE = 250;
-    private static final int DEFAULT_CHILDREN_SIZE = DEFAULT_FILE_SIZE * 20; // average 20 children per file
+    private static final long DEFAULT_FILE_WEIGHT = 250 * 0x2000; // average 8K per file, including its children
 
     // The memory ratio that should be applied to the above constants.
     private final double memoryRatio = getMemoryRatio();
 
-    private Object modelBody; // Java model element's body
-    private HashMap<IElement, Object> projectCache; // cache of open Java projects
-    private ElementCache rootCache; // cache of open package fragment roots
-    private ElementCache pkgCache; // cache of open package fragments
-    private ElementCache fileCache; // cache of open Java files
-    private HashMap<IElement, Object> childrenCache; // cache of children of open Java files
+    private volatile Object modelBody; // Java model element's body
+    private Map<IElement, Object> projectCache; // cache of open Java projects
+    private ElementCache rootCache; // cache of open package fragment roots; guarded by lruLock
+    private ElementCache pkgCache; // cache of open package fragments; guarded by lruLock
+    private ConcurrentBodyCache fileCache; // cache of open Java files and their children
+
+    // ElementCache is not thread-safe
+    private final Object lruLock = new Object();
 
     public JavaModelCache()
     {
         // set the size of the caches as a function of the maximum amount of memory available
-        projectCache = new HashMap<>(DEFAULT_PROJECT_SIZE);
+        projectCache = new ConcurrentHashMap<>(DEFAULT_PROJECT_SIZE);
         rootCache = new ElementCache((int)(DEFAULT_ROOT_SIZE * memoryRatio));
         pkgCache = new ElementCache((int)(DEFAULT_PKG_SIZE * memoryRatio));
-        fileCache = new ElementCache((int)(DEFAULT_FILE_SIZE * memoryRatio));
-        childrenCache = new HashMap<>((int)(DEFAULT_CHILDREN_SIZE
+        fileCache = new ConcurrentBodyCache((long)(DEFAULT_FILE_WEIGHT
             * memoryRatio));
     }
 
@@ -65,13 +67,21 @@ class JavaModelCache
         else if (element instanceof IJavaProject)
             return projectCache.get(element);
         else if (element instanceof IPackageFragmentRoot)
-            return rootCache.get(element);
+        {
+            synchronized (lruLock)
+            {
+                return rootCache.get(element);
+            }
+        }
         else if (element instanceof IPackageFragment)
-            return pkgCache.get(element);
-        else if (element instanceof ICompilationUnit)
-            return fileCache.get(element);
+        {
+            synchronized (lruLock)
+            {
+                return pkgCache.get(element);
+            }
+        }
         else
-            return childrenCache.get(element);
+            return fileCache.get(element);
     }
 
     @Override
@@ -82,13 +92,21 @@ class JavaModelCache
         else if (element instanceof IJavaProject)
             return projectCache.get(element);
         else if (element instanceof IPackageFragmentRoot)
-            return rootCache.peek(element);
+        {
+            synchronized (lruLock)
+            {
+                return rootCache.peek(element);
+            }
+        }
         else if (element instanceof IPackageFragment)
-            return pkgCache.peek(element);
-        else if (element instanceof ICompilationUnit)
-            return fileCache.peek(element);
+        {
+            synchronized (lruLock)
+            {
+                return pkgCache.peek(element);
+            }
+        }
         else
-            return childrenCache.get(element);
+            return fileCache.peek(element);
     }
 
     @Override
@@ -99,22 +117,48 @@ class JavaModelCache
         else if (element instanceof IJavaProject)
         {
             projectCache.put(element, body);
-            rootCache.ensureMaxSize(((Body)body).getChildren().length, element);
+            synchronized (lruLock)
+            {
+                rootCache.ensureMaxSize(((Body)body).getChildren().length,
+                    element);
+            }
         }
         else if (element instanceof IPackageFragmentRoot)
         {
-            rootCache.put(element, body);
-            pkgCache.ensureMaxSize(((Body)body).getChildren().length, element);
+            synchronized (lruLock)
+            {
+                rootCache.put(element, body);
+                pkgCache.ensureMaxSize(((Body)body).getChildren().length,
+                    element);
+            }
         }
         else if (element instanceof IPackageFragment)
         {
-            pkgCache.put(element, body);
-            fileCache.ensureMaxSize(((Body)body).getChildren().length, element);
+            synchronized (lruLock)
+            {
+                pkgCache.put(element, body);
+            }
         }
-        else if (element instanceof ICompilationUnit)
-            fileCache.put(element, body);
         else
-            childrenCache.put(element, body);
+            fileCache.put(element, body);
+    }
+
+    @Override
+    public void putAll(Map<? extends IElement, Object> elementBodies)
+    {
+        // put a file along with its children into the file cache at once
+        Map<IElement, Object> fileBodies = new HashMap<>(elementBodies.size());
+        for (Map.Entry<? extends IElement, Object> entry : elementBodies.entrySet())
+        {
+            IElement element = entry.getKey();
+            if (element instanceof IJavaModel || element instanceof IJavaProject
+                || element instanceof IPackageFragmentRoot
+                || element instanceof IPackageFragment)
+                put(element, entry.getValue());
+            else
+                fileBodies.put(element, entry.getValue());
+        }
+        fileCache.putAll(fileBodies);
     }
 
     @Override
@@ -125,25 +169,44 @@ class JavaModelCache
         else if (element instanceof IJavaProject)
         {
             projectCache.remove(element);
-            rootCache.resetMaxSize((int)(DEFAULT_ROOT_SIZE * memoryRatio),
-                element);
+            synchronized (lruLock)
+            {
+                rootCache.resetMaxSize((int)(DEFAULT_ROOT_SIZE * memoryRatio),
+                    element);
+            }
         }
         else if (element instanceof IPackageFragmentRoot)
         {
-            rootCache.remove(element);
-            pkgCache.resetMaxSize((int)(DEFAULT_PKG_SIZE * memoryRatio),
-                element);
+            synchronized (lruLock)
+            {
+                rootCache.remove(element);
+                pkgCache.resetMaxSize((int)(DEFAULT_PKG_SIZE * memoryRatio),
+                    element);
+            }
         }
         else if (element instanceof IPackageFragment)
         {
-            pkgCache.remove(element);
-            fileCache.resetMaxSize((int)(DEFAULT_FILE_SIZE * memoryRatio),
-                element);
+            synchronized (lruLock)
+            {
+                pkgCache.remove(element);
+            }
         }
-        else if (element instanceof ICompilationUnit)
-            fileCache.remove(element);
         else
-            childrenCache.remove(element);
+            fileCache.remove(element);
+    }
+
+    @Override
+    public double fillRatio()
+    {
+        double ratio = fileCache.fillRatio();
+        synchronized (lruLock)
+        {
+            ratio = Math.max(ratio, (double)rootCache.size()
+                / rootCache.maxSize());
+            ratio = Math.max(ratio, (double)pkgCache.size()
+                / pkgCache.maxSize());
+        }
+        return ratio;
     }
 
     private double getMemoryRatio()
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2019 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -23,6 +23,8 @@ import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.ICoreRunnable;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.handly.context.Context;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.examples.jmodel.IJavaElement;
@@ -31,10 +33,13 @@ import org.eclipse.handly.model.IElementDelta;
 import org.eclipse.handly.model.IElementHandleFactory;
 import org.eclipse.handly.model.impl.support.ElementChangeEvent;
 import org.eclipse.handly.model.impl.support.ElementDelta;
+import org.eclipse.handly.model.impl.support.ElementInterner;
 import org.eclipse.handly.model.impl.support.ElementManager;
 import org.eclipse.handly.model.impl.support.IModelManager;
 import org.eclipse.handly.model.impl.support.INotificationManager;
+import org.eclipse.handly.model.impl.support.ModelPrewarmingJob;
 import org.eclipse.handly.model.impl.support.NotificationManager;
+import org.eclipse.handly.model.impl.support.StructureStore;
 import org.eclipse.handly.util.SavedStateJob;
 
 /**
@@ -50,11 +55,17 @@ public class JavaModelManager
      */
     public static final JavaModelManager INSTANCE = new JavaModelManager();
 
+    private static final String STRUCTURE_STORE_DIR = "structure"; //$NON-NLS-1$
+    // NOTE: increment whenever CompilatonUnitStructureBuilder changes
+    private static final int STRUCTURE_STORE_VERSION = 1;
+
     private JavaModel javaModel;
     private ElementManager elementManager;
     private NotificationManager notificationManager;
     private DeltaProcessingState deltaState;
     private Context modelContext;
+    private StructureStore structureStore;
+    private ModelPrewarmingJob prewarmingJob;
     private Map<IProject, PerProjectInfo> perProjectInfo =
         new HashMap<IProject, PerProjectInfo>(5); // NOTE: this object itself is used as a lock to synchronize creation/removal of per project info
 
@@ -70,18 +81,39 @@ public class JavaModelManager
             deltaState = new DeltaProcessingState();
             deltaState.initialize();
 
+            ElementInterner elementInterner = new ElementInterner();
+            IElementHandleFactory handleFactory = new JavaElementHandleFactory(
+                elementInterner);
+
             modelContext = new Context();
             modelContext.bind(INotificationManager.class).to(
                 notificationManager);
             modelContext.bind(ElementDelta.Factory.class).to(
                 element -> new JavaElementDelta((IJavaElement)element));
-            modelContext.bind(IElementHandleFactory.class).to(
-                new JavaElementHandleFactory());
+            modelContext.bind(ElementInterner.class).to(elementInterner);
+            modelContext.bind(IElementHandleFactory.class).to(handleFactory);
+            structureStore = new StructureStore(
+                Activator.getDefault().getStateLocation().append(
+                    STRUCTURE_STORE_DIR).toFile().toPath(), handleFactory,
+                STRUCTURE_STORE_VERSION);
+            modelContext.bind(StructureStore.class).to(structureStore);
 
             workspace.addResourceChangeListener(this,
                 IResourceChangeEvent.POST_CHANGE);
 
             new SavedStateJob(Activator.PLUGIN_ID, this).schedule();
+
+            StructureStore store = structureStore;
+            ICoreRunnable pruning = monitor -> store.prune(monitor);
+            Job pruningJob = Job.createSystem("StructureStorePruning", pruning); //$NON-NLS-1$
+            pruningJob.setPriority(Job.DECORATE);
+            pruningJob.schedule();
+
+            if (ModelPrewarmingJob.isEnabled())
+            {
+                prewarmingJob = new ModelPrewarmingJob(javaModel);
+                prewarmingJob.schedule();
+            }
         }
         catch (Exception e)
         {
@@ -92,8 +124,16 @@ public class JavaModelManager
 
     public void shutdown() throws Exception
     {
+        if (prewarmingJob != null)
+        {
+            prewarmingJob.cancel();
+            prewarmingJob = null;
+        }
         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+        if (structureStore != null)
+            structureStore.flush(); // write the pending structures
         modelContext = null;
+        structureStore = null;
         deltaState = null;
         notificationManager = null;
         elementManager = null;
@@ -147,6 +187,13 @@ public class JavaModelManager
         return notificationManager;
     }
 
+    public StructureStore getStructureStore()
+    {
+        if (structureStore == null)
+            throw new IllegalStateException();
+        return structureStore;
+    }
+
     public IContext getModelContext()
     {
         if (modelContext == null)
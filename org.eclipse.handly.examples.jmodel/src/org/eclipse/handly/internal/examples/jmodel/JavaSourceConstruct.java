@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 1C-Soft LLC and others.
+ * Copyright (c) 2017, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -50,6 +50,7 @@ public abstract class JavaSourceConstruct
         if (occurrenceCount < 1)
             throw new IllegalArgumentException();
         this.occurrenceCount = occurrenceCount;
+        hashCodeChanged_();
     }
 
     @Override
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.handly.context.IContext;
+import org.eclipse.handly.snapshot.StaleSnapshotException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ISynchronizable;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>BufferChangeBatch</code> tests.
+ */
+public class BufferChangeBatchTest
+    extends TestCase
+{
+    private TestBuffer a, b, c;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        a = new TestBuffer("a");
+        b = new TestBuffer("b");
+        c = new TestBuffer("c");
+    }
+
+    public void test1() throws Exception
+    {
+        BufferChangeBatch batch = new BufferChangeBatch();
+        batch.setParallelism(3);
+        batch.add(a, new BufferChange(new InsertEdit(1, "1")));
+        BufferChange change = new BufferChange(new InsertEdit(1, "2"));
+        change.setSaveMode(SaveMode.LEAVE_UNSAVED);
+        batch.add(b, change);
+        c.getDocument().set("cc"); // dirty
+        batch.add(c, new BufferChange(new InsertEdit(0, "3")));
+        BufferChangeBatch undoBatch = batch.apply(null);
+
+        assertEquals("a1", a.getDocument().get());
+        assertEquals("b2", b.getDocument().get());
+        assertEquals("3cc", c.getDocument().get());
+        assertEquals(1, a.saveCount);
+        assertEquals(0, b.saveCount);
+        assertEquals(0, c.saveCount);
+        assertFalse(a.isDirty());
+        assertTrue(b.isDirty());
+        assertTrue(c.isDirty());
+
+        assertEquals(3, undoBatch.size());
+        BufferChangeBatch redoBatch = undoBatch.apply(null);
+        assertEquals("a", a.getDocument().get());
+        assertEquals("b", b.getDocument().get());
+        assertEquals("cc", c.getDocument().get());
+        assertFalse(a.isDirty());
+        assertFalse(b.isDirty()); // the modification stamp is restored
+        assertTrue(c.isDirty());
+        assertEquals(3, redoBatch.size());
+    }
+
+    public void test2() throws Exception
+    {
+        BufferChangeBatch batch = new BufferChangeBatch();
+        batch.setParallelism(3);
+        batch.add(a, new BufferChange(new InsertEdit(1, "1")));
+        BufferChange change = new BufferChange(new InsertEdit(1, "2"));
+        change.setBase(b.getSnapshot());
+        batch.add(b, change);
+        batch.add(c, new BufferChange(new InsertEdit(1, "3")));
+        b.getDocument().set("bb");
+        try
+        {
+            batch.apply(null);
+            fail();
+        }
+        catch (StaleSnapshotException e)
+        {
+        }
+        assertEquals("a", a.getDocument().get());
+        assertEquals("bb", b.getDocument().get());
+        assertEquals("c", c.getDocument().get());
+        assertFalse(a.isDirty());
+        assertFalse(c.isDirty());
+        assertEquals(0, a.saveCount + b.saveCount + c.saveCount);
+    }
+
+    public void test3() throws Exception
+    {
+        BufferChangeBatch batch = new BufferChangeBatch();
+        batch.setParallelism(1);
+        BufferChange change = new BufferChange(new ReplaceEdit(0, 1, "x"));
+        change.setSaveMode(SaveMode.LEAVE_UNSAVED);
+        batch.add(a, change);
+        change = new BufferChange(new InsertEdit(1, "y"));
+        change.setSaveMode(SaveMode.FORCE_SAVE);
+        change.setStyle(IBufferChange.NONE);
+        batch.add(a, change);
+        batch.add(a, new BufferChange(new InsertEdit(2, "z")));
+        BufferChangeBatch undoBatch = batch.apply(null);
+        assertEquals("xyz", a.getDocument().get());
+        assertEquals(1, a.saveCount);
+        assertFalse(a.isDirty());
+        assertEquals(2, undoBatch.size()); // no undo for the second change
+    }
+
+    public void test4() throws Exception
+    {
+        BufferChange change = new BufferChange(new InsertEdit(0, "1"));
+        change.setStyle(IBufferChange.NONE);
+        BufferChangeBatch batch = new BufferChangeBatch();
+        batch.add(a, change);
+        assertNull(batch.apply(null));
+        assertEquals("1a", a.getDocument().get());
+    }
+
+    private static class TestBuffer
+        extends Buffer
+    {
+        int saveCount;
+
+        TestBuffer(String contents)
+        {
+            super(contents);
+        }
+
+        @Override
+        protected IDocument createEmptyDocument()
+        {
+            return new TestDocument();
+        }
+
+        @Override
+        protected void doSave(IContext context, IProgressMonitor monitor)
+        {
+            saveCount++;
+        }
+    }
+
+    private static class TestDocument
+        extends Document
+        implements ISynchronizable
+    {
+        private Object lockObject = new Object();
+
+        @Override
+        public void setLockObject(Object lockObject)
+        {
+            this.lockObject = lockObject;
+        }
+
+        @Override
+        public Object getLockObject()
+        {
+            return lockObject;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import java.util.List;
+
+import org.eclipse.jface.text.Document;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>BufferChangeJournal</code> tests.
+ */
+public class BufferChangeJournalTest
+    extends TestCase
+{
+    private Document document;
+    private BufferChangeJournal journal;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        document = new Document("hello world");
+        journal = new BufferChangeJournal(document, 3, 5);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        journal.dispose();
+        super.tearDown();
+    }
+
+    public void test1() throws Exception
+    {
+        String contents0 = document.get();
+        long stamp0 = journal.getModificationStamp();
+        document.replace(0, 5, "HELLO");
+        long stamp1 = journal.getModificationStamp();
+        document.replace(11, 0, "!");
+        long stamp2 = journal.getModificationStamp();
+
+        assertTrue(journal.getChanges(stamp0, stamp0).isEmpty());
+        List<BufferChangeJournal.Change> changes = journal.getChanges(stamp0,
+            stamp2);
+        assertEquals(2, changes.size());
+        assertEquals(stamp0, changes.get(0).getStampBefore());
+        assertEquals(stamp1, changes.get(0).getStampAfter());
+        assertEquals(0, changes.get(0).getOffset());
+        assertEquals(5, changes.get(0).getLength());
+        assertEquals("HELLO", changes.get(0).getText());
+        assertEquals(document.get(), apply(contents0, changes));
+
+        changes = journal.getChanges(stamp1, stamp2);
+        assertEquals(1, changes.size());
+        assertEquals("!", changes.get(0).getText());
+
+        assertNull(journal.getChanges(stamp2, stamp0)); // no way back
+    }
+
+    public void test2() throws Exception
+    {
+        long stamp0 = journal.getModificationStamp();
+        document.replace(0, 0, "x");
+        long stamp1 = journal.getModificationStamp();
+        document.replace(0, 0, "x");
+        document.replace(0, 0, "x");
+        long stamp3 = journal.getModificationStamp();
+        assertEquals(3, journal.getChanges(stamp0, stamp3).size());
+        document.replace(0, 0, "y");
+        long stamp4 = journal.getModificationStamp();
+        assertNull(journal.getChanges(stamp0, stamp4)); // overflow
+        assertEquals(3, journal.getChanges(stamp1, stamp4).size());
+    }
+
+    public void test3() throws Exception
+    {
+        long stamp0 = journal.getModificationStamp();
+        document.replace(0, 0, "a long text");
+        long stamp1 = journal.getModificationStamp();
+        document.replace(0, 0, "b");
+        long stamp2 = journal.getModificationStamp();
+        assertNull(journal.getChanges(stamp0, stamp2)); // full change
+        assertEquals(1, journal.getChanges(stamp1, stamp2).size());
+    }
+
+    public void test4() throws Exception
+    {
+        long stamp0 = journal.getModificationStamp();
+        document.replace(0, 0, "a");
+        long stamp1 = journal.getModificationStamp();
+        journal.clear();
+        assertNull(journal.getChanges(stamp0, stamp1));
+        document.replace(0, 0, "b");
+        long stamp2 = journal.getModificationStamp();
+        assertEquals(1, journal.getChanges(stamp1, stamp2).size());
+        journal.dispose();
+        assertNull(journal.getChanges(stamp1, stamp2));
+        document.replace(0, 0, "c");
+        assertNull(journal.getChanges(stamp2,
+            journal.getModificationStamp()));
+    }
+
+    private static String apply(String contents,
+        List<BufferChangeJournal.Change> changes)
+    {
+        StringBuilder sb = new StringBuilder(contents);
+        for (BufferChangeJournal.Change change : changes)
+            sb.replace(change.getOffset(), change.getOffset()
+                + change.getLength(), change.getText());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import static org.eclipse.handly.context.Contexts.EMPTY_CONTEXT;
+
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+import junit.framework.TestCase;
+
+/**
+ * Saves a <code>ChildBuffer</code> of a large document with small edits,
+ * which can be useful for assessing the performance of propagating
+ * the changes to the parent buffer.
+ */
+public class ChildBufferPerformanceTest
+    extends TestCase
+{
+    private static final int LINE_COUNT = 100000;
+    private static final int ROUNDS = 50;
+
+    private Buffer parent;
+    private ChildBuffer child;
+    private int changedLength;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < LINE_COUNT; i++)
+            sb.append("    int field").append(i).append(" = ").append(i).append(
+                ";\n");
+        parent = new Buffer(sb.toString());
+        child = new ChildBuffer(parent);
+        parent.getDocument().addDocumentListener(new IDocumentListener()
+        {
+            @Override
+            public void documentAboutToBeChanged(DocumentEvent event)
+            {
+            }
+
+            @Override
+            public void documentChanged(DocumentEvent event)
+            {
+                changedLength += event.getLength() + event.getText().length();
+            }
+        });
+    }
+
+    public void testSmallEditsPerformance() throws Exception
+    {
+        IDocument document = child.getDocument();
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            int line = (i * 7919) % LINE_COUNT;
+            int offset = document.getLineOffset(line);
+            document.replace(offset, 4, "\t");
+            document.replace(document.getLineOffset(LINE_COUNT - 1 - line), 0,
+                "// changed\n");
+            child.save(EMPTY_CONTEXT, null);
+        }
+        assertEquals(document.get(), parent.getDocument().get());
+        assertTrue(changedLength < ROUNDS * 100);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -16,6 +16,7 @@ import static org.eclipse.handly.context.Contexts.EMPTY_CONTEXT;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.handly.snapshot.StaleSnapshotException;
+import org.eclipse.jface.text.Position;
 
 import junit.framework.TestCase;
 
@@ -101,6 +102,25 @@ public class ChildBufferTest
         }
     }
 
+    public void test6() throws Exception
+    {
+        parent.getDocument().set("foo\nbar\nbaz\n");
+        parent.save(EMPTY_CONTEXT, null);
+        child = new ChildBuffer(parent);
+        Position fooPosition = new Position(0, 3);
+        Position bazPosition = new Position(8, 3);
+        parent.getDocument().addPosition(fooPosition);
+        parent.getDocument().addPosition(bazPosition);
+        child.getDocument().replace(4, 3, "qux");
+        child.save(EMPTY_CONTEXT, null);
+        assertEquals("foo\nqux\nbaz\n", parent.getDocument().get());
+        assertFalse(fooPosition.isDeleted());
+        assertEquals(0, fooPosition.getOffset());
+        assertFalse(bazPosition.isDeleted());
+        assertEquals(8, bazPosition.getOffset());
+        assertEquals(3, bazPosition.getLength());
+    }
+
     private static class TestBuffer
         extends Buffer
     {
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import java.util.Random;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>TextDiff</code> tests.
+ */
+public class TextDiffTest
+    extends TestCase
+{
+    public void test1() throws Exception
+    {
+        TextEdit edit = TextDiff.computeEdit("abc", "abc");
+        assertTrue(edit instanceof MultiTextEdit);
+        assertFalse(edit.hasChildren());
+
+        edit = TextDiff.computeEdit("abcdef", "abXYef");
+        assertTrue(edit instanceof ReplaceEdit);
+        assertEquals(2, edit.getOffset());
+        assertEquals(2, edit.getLength());
+        assertEquals("XY", ((ReplaceEdit)edit).getText());
+
+        edit = TextDiff.computeEdit("", "abc");
+        assertEquals(0, edit.getOffset());
+        assertEquals(0, edit.getLength());
+        assertEquals("abc", ((ReplaceEdit)edit).getText());
+        assertApplies("abc", "");
+    }
+
+    public void test2() throws Exception
+    {
+        String oldText = lines(2000);
+        StringBuilder sb = new StringBuilder(oldText);
+        sb.replace(100, 101, "X");
+        sb.insert(sb.length() - 100, "inserted line\n");
+        String newText = sb.toString();
+        TextEdit edit = assertApplies(oldText, newText);
+        assertTrue(edit instanceof MultiTextEdit);
+        TextEdit[] children = edit.getChildren();
+        assertEquals(2, children.length);
+        assertEquals(100, children[0].getOffset());
+        assertEquals(1, children[0].getLength());
+        assertEquals("X", ((ReplaceEdit)children[0]).getText());
+        assertEquals(0, children[1].getLength());
+    }
+
+    public void test3() throws Exception
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++)
+        {
+            String oldText = randomLines(random, random.nextInt(300));
+            StringBuilder sb = new StringBuilder(oldText);
+            int changes = random.nextInt(10);
+            for (int j = 0; j < changes; j++)
+            {
+                int offset = random.nextInt(sb.length() + 1);
+                int length = Math.min(random.nextInt(50), sb.length()
+                    - offset);
+                sb.replace(offset, offset + length, randomLines(random,
+                    random.nextInt(3)));
+            }
+            assertApplies(oldText, sb.toString());
+        }
+    }
+
+    public void test4() throws Exception
+    {
+        // too many differences: the changed part is replaced as a whole
+        Random random = new Random(42);
+        String oldText = randomLines(random, 3000);
+        String newText = randomLines(random, 3000);
+        TextEdit edit = assertApplies(oldText, newText);
+        assertTrue(edit instanceof ReplaceEdit);
+    }
+
+    private static TextEdit assertApplies(String oldText, String newText)
+        throws Exception
+    {
+        TextEdit edit = TextDiff.computeEdit(oldText, newText);
+        Document document = new Document(oldText);
+        edit.copy().apply(document);
+        assertEquals(newText, document.get());
+        return edit;
+    }
+
+    private static String lines(int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            sb.append("line ").append(i).append('\n');
+        return sb.toString();
+    }
+
+    private static String randomLines(Random random, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++)
+                sb.append((char)('a' + random.nextInt(3)));
+            sb.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2022 1C-Soft LLC.
+ * Copyright (c) 2016, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -155,6 +155,50 @@ public class TextFileBufferTest
         }
     }
 
+    public void testRefCount() throws Exception
+    {
+        SaveListener listener = new SaveListener();
+        buffer.addListener(listener);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(() ->
+            {
+                for (int j = 0; j < 10000; j++)
+                {
+                    buffer.addRef();
+                    buffer.release();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertNotNull(buffer.getCoreTextFileBufferProvider()); // still connected
+
+        TextFileBuffer b = buffer;
+        buffer = null;
+        b.release(); // disconnects the buffer
+        try
+        {
+            b.getCoreTextFileBufferProvider();
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+        }
+        try
+        {
+            b.addListener(listener);
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+        }
+        b.addRef();
+        b.release(); // no effect: already disconnected
+    }
+
     private static class DisplayAutoCloseable
         implements AutoCloseable
     {
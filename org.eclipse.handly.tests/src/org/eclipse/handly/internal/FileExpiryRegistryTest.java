@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.internal;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>FileExpiryRegistry</code> tests.
+ */
+public class FileExpiryRegistryTest
+    extends TestCase
+{
+    private FileExpiryRegistry registry;
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        registry = new FileExpiryRegistry(
+            FileSystems.getDefault().newWatchService(), 2);
+        dir = Files.createTempDirectory("fileExpiry");
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        registry.close();
+        delete(dir);
+        super.tearDown();
+    }
+
+    public void test1() throws Exception
+    {
+        Path a = Files.writeString(dir.resolve("a"), "a");
+        Path b = Files.writeString(dir.resolve("b"), "b");
+        FileExpiryRegistry.Token aToken = registry.register(a);
+        FileExpiryRegistry.Token bToken = registry.register(b);
+        assertNotNull(aToken);
+        assertSame(aToken, registry.register(a));
+        assertEquals(2, registry.fileCount());
+        assertFalse(aToken.isExpired());
+
+        Files.writeString(a, "aa");
+        waitForExpiry(aToken);
+        assertFalse(bToken.isExpired());
+        assertEquals(1, registry.fileCount());
+
+        FileExpiryRegistry.Token aToken2 = registry.register(a);
+        assertNotSame(aToken, aToken2);
+        assertFalse(aToken2.isExpired());
+
+        Files.delete(b);
+        waitForExpiry(bToken);
+        assertFalse(aToken2.isExpired());
+    }
+
+    public void test2() throws Exception
+    {
+        Path a = Files.writeString(dir.resolve("a"), "a");
+        Path b = Files.writeString(dir.resolve("b"), "b");
+        Path c = Files.writeString(dir.resolve("c"), "c");
+        Path d = Files.writeString(Files.createDirectory(dir.resolve(
+            "d")).resolve("d"), "d");
+        Path e = Files.writeString(Files.createDirectory(dir.resolve(
+            "e")).resolve("e"), "e");
+        FileExpiryRegistry.Token aToken = registry.register(a);
+        assertNotNull(registry.register(b));
+        assertNotNull(registry.register(c)); // files are not limited
+        FileExpiryRegistry.Token dToken = registry.register(d);
+        assertNotNull(dToken);
+        assertEquals(2, registry.directoryCount());
+        assertNull(registry.register(e)); // the limit is reached
+        assertNull(registry.register(dir.resolve("x/y"))); // no directory
+
+        registry.clear();
+        assertTrue(aToken.isExpired());
+        assertTrue(dToken.isExpired());
+        assertEquals(0, registry.fileCount());
+        assertEquals(0, registry.directoryCount());
+        assertNotNull(registry.register(e));
+    }
+
+    public void test3() throws Exception
+    {
+        Path a = Files.writeString(dir.resolve("a"), "a");
+        FileExpiryRegistry.Token aToken = registry.register(a);
+        assertNotNull(aToken);
+
+        registry.close();
+        assertTrue(aToken.isExpired());
+        assertNull(registry.register(a));
+        registry.close(); // no effect
+    }
+
+    private static void delete(Path path) throws IOException
+    {
+        if (Files.isDirectory(path))
+        {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(path))
+            {
+                for (Path file : files)
+                    delete(file);
+            }
+        }
+        Files.delete(path);
+    }
+
+    private static void waitForExpiry(FileExpiryRegistry.Token token)
+        throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !token.isExpired(); i++)
+            Thread.sleep(50);
+        assertTrue(token.isExpired());
+    }
+}
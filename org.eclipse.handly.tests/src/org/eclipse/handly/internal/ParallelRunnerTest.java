@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>ParallelRunner</code> tests.
+ */
+public class ParallelRunnerTest
+    extends TestCase
+{
+    private final List<Integer> items = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        for (int i = 0; i < 20; i++)
+            items.add(i);
+    }
+
+    public void test1()
+    {
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        Set<Integer> done = Collections.synchronizedSet(new HashSet<>());
+        NullProgressMonitor monitor = new NullProgressMonitor()
+        {
+            int worked;
+
+            @Override
+            public void worked(int work)
+            {
+                assertEquals(1, work);
+                assertTrue(++worked <= items.size());
+            }
+        };
+        List<Throwable> failures = ParallelRunner.run(items, 3, (item, m) ->
+        {
+            threads.add(Thread.currentThread());
+            if (item % 10 == 5)
+                throw new IllegalStateException();
+            done.add(item);
+        }, false, monitor);
+        assertEquals(2, failures.size());
+        assertEquals(items.size() - 2, done.size());
+        assertTrue(threads.size() <= 3);
+
+        threads.clear();
+        failures = ParallelRunner.run(items, 1, (item, m) -> threads.add(
+            Thread.currentThread()), false, new NullProgressMonitor());
+        assertTrue(failures.isEmpty());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    public void test2()
+    {
+        AtomicInteger count = new AtomicInteger();
+        List<Throwable> failures = ParallelRunner.run(items, 4, (item, m) ->
+        {
+            count.incrementAndGet();
+            throw new IllegalStateException();
+        }, true, new NullProgressMonitor());
+        assertEquals(count.get(), failures.size());
+        assertTrue(count.get() < items.size()); // stopped on failure
+    }
+
+    public void test3()
+    {
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        AtomicInteger count = new AtomicInteger();
+        try
+        {
+            ParallelRunner.run(items, 4, (item, m) ->
+            {
+                if (count.incrementAndGet() == 1)
+                    monitor.setCanceled(true);
+                Thread.sleep(10);
+            }, false, monitor);
+            fail();
+        }
+        catch (OperationCanceledException e)
+        {
+        }
+        assertTrue(count.get() < items.size());
+    }
+
+    public void test4()
+    {
+        // nested runs complete even if they saturate the shared pool
+        int parallelism = Runtime.getRuntime().availableProcessors() + 1;
+        AtomicInteger count = new AtomicInteger();
+        List<Throwable> failures = ParallelRunner.run(items, parallelism, (
+            item, m) -> ParallelRunner.run(items, parallelism, (item2,
+                m2) -> count.incrementAndGet(), false, m), false,
+            new NullProgressMonitor());
+        assertTrue(failures.isEmpty());
+        assertEquals(items.size() * items.size(), count.get());
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 1C-Soft LLC.
+ * Copyright (c) 2017, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,10 +12,14 @@
  *******************************************************************************/
 package org.eclipse.handly.model;
 
+import static org.eclipse.handly.context.Contexts.of;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -480,6 +484,60 @@ public class ElementsTest
         resources.clear();
     }
 
+    public void testOpenAll() throws Exception
+    {
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        class Element
+            extends SimpleElement
+        {
+            Element(String name)
+            {
+                super(root, name, manager);
+            }
+
+            @Override
+            public void buildStructure_(IContext context,
+                IProgressMonitor monitor) throws CoreException
+            {
+                threads.add(Thread.currentThread());
+                if (getName_().startsWith("bad"))
+                    throw new CoreException(Activator.createErrorStatus(
+                        getName_(), null));
+                super.buildStructure_(context, monitor);
+            }
+        }
+        List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            elements.add(new Element("e" + i));
+
+        Elements.openAll(elements, of(Elements.OPEN_PARALLELISM, 4), null);
+        for (Element element : elements)
+            assertNotNull(element.peekAtBody_());
+        assertNotNull(root.peekAtBody_());
+        assertTrue(threads.size() <= 4); // including the calling thread
+
+        threads.clear();
+        Elements.openAll(elements, of(Elements.OPEN_PARALLELISM, 4), null);
+        assertTrue(threads.isEmpty()); // already open
+
+        for (int parallelism : new int[] { 1, 4 })
+        {
+            List<Element> elements2 = Arrays.asList(new Element("bad1"),
+                new Element("a" + parallelism), new Element("bad2"));
+            try
+            {
+                Elements.openAll(elements2, of(Elements.OPEN_PARALLELISM,
+                    parallelism), null);
+                fail();
+            }
+            catch (CoreException e)
+            {
+                assertEquals(1, e.getSuppressed().length);
+            }
+            assertNotNull(elements2.get(1).peekAtBody_());
+        }
+    }
+
     public void testGetSourceElementAt2()
     {
         class TestSourceFile
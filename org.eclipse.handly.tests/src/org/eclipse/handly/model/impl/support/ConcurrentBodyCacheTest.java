@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.util.Property;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>ConcurrentBodyCache</code> tests.
+ */
+public class ConcurrentBodyCacheTest
+    extends TestCase
+{
+    private ConcurrentBodyCache cache;
+    private ElementManager manager;
+    private SimpleSourceFile[] files;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        cache = new ConcurrentBodyCache(100, (element, body) -> 10);
+        SimpleModelManager modelManager = new SimpleModelManager();
+        manager = modelManager.elementManager = new ElementManager(cache);
+        files = new SimpleSourceFile[5];
+        for (int i = 0; i < files.length; i++)
+            files[i] = new SimpleSourceFile(null, "f" + i, null, modelManager);
+    }
+
+    public void test1()
+    {
+        assertEquals(100, cache.maxWeight());
+        open(files[0]);
+        open(files[1]);
+        open(files[2]);
+        assertEquals(9, cache.size());
+        assertEquals(90, cache.weight());
+
+        open(files[3]); // overflow: evict LRU files down to 2/3 of max weight
+        assertEquals(6, cache.size());
+        assertEquals(60, cache.weight());
+        assertClosed(files[0]);
+        assertClosed(files[1]);
+        assertOpen(files[2]);
+        assertOpen(files[3]);
+
+        manager.remove(files[2]);
+        assertClosed(files[2]);
+        assertEquals(30, cache.weight());
+    }
+
+    public void test2()
+    {
+        open(files[0]);
+        open(files[1]);
+        open(files[2]);
+        // an access to a child counts as an access to its source file
+        assertNotNull(cache.get(files[0].getChild("A")));
+
+        open(files[3]);
+        assertOpen(files[0]);
+        assertClosed(files[1]);
+        assertClosed(files[2]);
+        assertOpen(files[3]);
+    }
+
+    public void test3()
+    {
+        cache.setLoadFactor(1);
+        open(files[0]);
+        open(files[1]);
+        assertNotNull(cache.get(files[0]));
+        open(files[2]);
+        open(files[3]);
+        assertTrue(cache.weight() <= cache.maxWeight());
+        assertOpen(files[3]); // the newly added file is never evicted
+
+        cache.setMaxWeight(1);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+
+        try
+        {
+            cache.setMaxWeight(0);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    public void test4()
+    {
+        ConcurrentBodyCache cache = new ConcurrentBodyCache(1000);
+        SourceElementBody body = new SourceElementBody();
+        cache.put(files[0], body);
+        long weight = cache.weight();
+        assertTrue(weight > 0);
+        SourceElementBody body2 = new SourceElementBody();
+        body2.set(Property.get("p", String.class), "value");
+        body2.addChild(files[0].getChild("A"));
+        cache.put(files[0], body2);
+        assertEquals(1, cache.size());
+        assertTrue(cache.weight() > weight);
+        assertSame(body2, cache.peek(files[0]));
+        cache.remove(files[0]);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    public void test5()
+    {
+        ConcurrentBodyCache cache = new ConcurrentBodyCache(100, (element,
+            body) -> 10)
+        {
+            @Override
+            protected void evict(IElement element)
+            {
+                // evicting one file evicts all of them
+                for (SimpleSourceFile file : files)
+                    remove(file);
+            }
+        };
+        cache.put(files[0], new Object());
+        cache.put(files[1], new Object());
+        for (int i = 0; i < 9; i++) // non-evictable entries
+            cache.put(files[4].getChild("C" + i), new Object());
+        assertNull(cache.peek(files[0]));
+        assertNull(cache.peek(files[1]));
+        assertEquals(9, cache.size());
+        assertEquals(90, cache.weight()); // cannot be trimmed any further
+    }
+
+    private void open(SimpleSourceFile file)
+    {
+        SourceElementBody body = new SourceElementBody();
+        Map<IElement, Object> newElements = new HashMap<>();
+        newElements.put(file, body);
+        for (String name : new String[] { "A", "B" })
+        {
+            SimpleSourceConstruct child = file.getChild(name);
+            body.addChild(child);
+            newElements.put(child, new SourceElementBody());
+        }
+        manager.put(file, newElements);
+    }
+
+    private void assertOpen(SimpleSourceFile file)
+    {
+        assertNotNull(cache.peek(file));
+        assertNotNull(cache.peek(file.getChild("A")));
+        assertNotNull(cache.peek(file.getChild("B")));
+    }
+
+    private void assertClosed(SimpleSourceFile file)
+    {
+        assertNull(cache.peek(file));
+        assertNull(cache.peek(file.getChild("A")));
+        assertNull(cache.peek(file.getChild("B")));
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -130,4 +130,37 @@ public class ElementCacheTest
         cache.put(new Element("E"), new Object());
         assertEquals(6, cache.size());
     }
+
+    public void test6()
+    {
+        class Element
+            extends SimpleElement
+        {
+            int closeCount;
+
+            Element(String name)
+            {
+                super(null, name, null);
+            }
+
+            @Override
+            public void close_(IContext context)
+            {
+                closeCount++; // cannot be closed, e.g. a working copy
+            }
+        }
+        int n = 100000;
+        Element[] elements = new Element[n];
+        for (int i = 0; i < n; i++)
+        {
+            elements[i] = new Element(Integer.toString(i));
+            cache.put(elements[i], new Object());
+        }
+        assertEquals(n, cache.size());
+        int closeCount = 0;
+        for (Element element : elements)
+            closeCount += element.closeCount;
+        // each element is attempted a constant number of times on average
+        assertTrue(closeCount < 4 * n);
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 1C-Soft LLC.
+ * Copyright (c) 2016, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.eclipse.handly.model.impl.support;
 
+import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.IElementChangeEvent;
 import org.eclipse.handly.model.IElementChangeListener;
 
@@ -101,6 +102,47 @@ public class ElementChangeListenerListTest
         assertTrue(listenerList.isEmpty());
     }
 
+    public void test4()
+    {
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        IElement[] elements = new IElement[] { root.getChild("A") };
+        Listener listener = new Listener();
+        listenerList.add(listener, ElementChangeEvent.POST_CHANGE);
+        assertNull(listenerList.getEntries()[0].getElements());
+
+        ElementChangeListenerList.Entry[] oldEntries =
+            listenerList.getEntries();
+        listenerList.add(listener, ElementChangeEvent.POST_CHANGE, elements);
+        ElementChangeListenerList.Entry[] entries = listenerList.getEntries();
+        assertNotSame(oldEntries, entries); // copy on write
+        assertNull(oldEntries[0].getElements());
+        assertEquals(1, entries.length);
+        assertSame(elements, entries[0].getElements());
+
+        listenerList.add(listener, ElementChangeEvent.POST_CHANGE);
+        assertNull(listenerList.getEntries()[0].getElements());
+
+        try
+        {
+            listenerList.add(listener, ElementChangeEvent.POST_CHANGE,
+                new IElement[0]);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+        try
+        {
+            listenerList.add(listener, ElementChangeEvent.POST_CHANGE,
+                new IElement[] { null });
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
     private static class Listener
         implements IElementChangeListener
     {
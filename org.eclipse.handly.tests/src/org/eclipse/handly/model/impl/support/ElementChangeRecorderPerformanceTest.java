@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import static org.eclipse.handly.model.IElementDeltaConstants.F_REORDER;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.handly.model.ElementDeltas;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.model.IElementDelta;
+import org.eclipse.handly.util.Property;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>ElementChangeRecorder</code> tests on large class bodies that can be
+ * useful for assessing performance of reorder detection.
+ */
+public class ElementChangeRecorderPerformanceTest
+    extends TestCase
+{
+    private static final int MEMBER_COUNT = 5000;
+    private static final int ROUNDS = 20;
+
+    private SimpleBodyCache cache;
+    private SimpleSourceFile root;
+    private SimpleSourceConstruct type;
+    private SimpleSourceConstruct[] members;
+    private ElementChangeRecorder recorder = new ElementChangeRecorder();
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        cache = new SimpleBodyCache();
+        SimpleModelManager manager = new SimpleModelManager();
+        manager.elementManager = new ElementManager(cache);
+        root = new SimpleSourceFile(null, "root", null, manager);
+        type = root.getChild("T");
+        members = new SimpleSourceConstruct[MEMBER_COUNT + 1];
+        for (int i = 0; i < members.length; i++)
+        {
+            members[i] = type.getChild("m" + i);
+            cache.put(members[i], new SourceElementBody());
+        }
+        SourceElementBody rootBody = new SourceElementBody();
+        rootBody.addChild(type);
+        cache.put(root, rootBody);
+    }
+
+    public void testInsertAtTopPerformance()
+    {
+        Runnable insert = () ->
+        {
+            SimpleSourceConstruct[] children = copy(0, MEMBER_COUNT + 1);
+            System.arraycopy(children, 0, children, 1, MEMBER_COUNT);
+            children[0] = members[MEMBER_COUNT];
+            setChildren(children);
+        };
+        assertEquals(0, record(false, insert));
+        assertEquals(0, record(true, insert));
+    }
+
+    public void testMoveToTopPerformance()
+    {
+        Runnable move = () ->
+        {
+            SimpleSourceConstruct[] children = copy(0, MEMBER_COUNT);
+            SimpleSourceConstruct last = children[MEMBER_COUNT - 1];
+            System.arraycopy(children, 0, children, 1, MEMBER_COUNT - 1);
+            children[0] = last;
+            setChildren(children);
+        };
+        assertEquals(2, record(false, move));
+        assertEquals(1, record(true, move));
+    }
+
+    public void testSwapHalvesPerformance()
+    {
+        int half = MEMBER_COUNT / 2;
+        Runnable swap = () ->
+        {
+            SimpleSourceConstruct[] children = copy(0, MEMBER_COUNT);
+            SimpleSourceConstruct[] swapped =
+                new SimpleSourceConstruct[MEMBER_COUNT];
+            System.arraycopy(children, half, swapped, 0, MEMBER_COUNT - half);
+            System.arraycopy(children, 0, swapped, MEMBER_COUNT - half, half);
+            setChildren(swapped);
+        };
+        assertEquals(2, record(false, swap));
+        assertEquals(half, record(true, swap)); // each moved element
+    }
+
+    public void testReversePerformance()
+    {
+        Runnable reverse = () ->
+        {
+            SimpleSourceConstruct[] children = copy(0, MEMBER_COUNT);
+            for (int i = 0, j = MEMBER_COUNT - 1; i < j; i++, j--)
+            {
+                SimpleSourceConstruct tmp = children[i];
+                children[i] = children[j];
+                children[j] = tmp;
+            }
+            setChildren(children);
+        };
+        assertEquals(MEMBER_COUNT, record(false, reverse));
+        assertEquals(MEMBER_COUNT - 1, record(true, reverse));
+    }
+
+    public void testReusePerformance()
+    {
+        ElementChangeRecorder recorder = new ElementChangeRecorder();
+        for (int i = 0; i < ROUNDS * 10; i++)
+        {
+            recorder.beginRecording(root);
+            setChildren(copy(0, MEMBER_COUNT));
+            assertEquals(0, countReordered(
+                recorder.endRecording().getDelta()));
+        }
+    }
+
+    public void testUnchangedSubtreesPerformance()
+    {
+        // 100 types with 50 members each; one member changes its property
+        assertEquals(1, recordPropertyChange(false));
+        assertEquals(1, recordPropertyChange(true));
+    }
+
+    /*
+     * Records the given change ROUNDS times and returns
+     * the number of reordered elements reported in the last round.
+     */
+    private int record(boolean minimalReorder, Runnable change)
+    {
+        IElement[] original = copy(0, MEMBER_COUNT);
+        int count = 0;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            setChildren(original);
+            ElementChangeRecorder recorder = new ElementChangeRecorder();
+            recorder.setMinimalReorder(minimalReorder);
+            recorder.beginRecording(root);
+            change.run();
+            count = countReordered(recorder.endRecording().getDelta());
+        }
+        return count;
+    }
+
+    /*
+     * Records a change in a property of a member ROUNDS times, with or
+     * without body fingerprints, and returns the number of changed members
+     * reported in the last round.
+     */
+    private int recordPropertyChange(boolean fingerprints)
+    {
+        Property<String> p = Property.get("p", String.class);
+        SimpleSourceConstruct[] types = new SimpleSourceConstruct[100];
+        int count = 0;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            for (int changed = 0; changed < 2; changed++)
+            {
+                Map<IElement, Object> newElements = new HashMap<>();
+                for (int i = 0; i < types.length; i++)
+                {
+                    types[i] = root.getChild("T" + i);
+                    SimpleSourceConstruct[] children =
+                        new SimpleSourceConstruct[50];
+                    for (int j = 0; j < children.length; j++)
+                    {
+                        children[j] = types[i].getChild("m" + j);
+                        SourceElementBody body = new SourceElementBody();
+                        body.set(p, (changed == 1 && i == 50 && j == 25) ? "y"
+                            : "x");
+                        newElements.put(children[j], body);
+                    }
+                    SourceElementBody body = new SourceElementBody();
+                    body.setChildren(children);
+                    newElements.put(types[i], body);
+                }
+                SourceElementBody rootBody = new SourceElementBody();
+                rootBody.setChildren(types);
+                newElements.put(root, rootBody);
+                if (fingerprints)
+                    rootBody.computeFingerprint(newElements);
+                for (Map.Entry<IElement, Object> entry : newElements.entrySet())
+                    cache.put(entry.getKey(), entry.getValue());
+                if (changed == 0)
+                {
+                    recorder.beginRecording(root);
+                }
+                else
+                {
+                    IElementDelta[] typeDeltas =
+                        ElementDeltas.getAffectedChildren(
+                            recorder.endRecording().getDelta());
+                    count = 0;
+                    for (IElementDelta typeDelta : typeDeltas)
+                        count += ElementDeltas.getAffectedChildren(
+                            typeDelta).length;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countReordered(IElementDelta delta)
+    {
+        if (delta == null)
+            return 0;
+        int count = 0;
+        if ((ElementDeltas.getFlags(delta) & F_REORDER) != 0)
+            count++;
+        for (IElementDelta child : ElementDeltas.getAffectedChildren(delta))
+            count += countReordered(child);
+        return count;
+    }
+
+    private SimpleSourceConstruct[] copy(int from, int to)
+    {
+        SimpleSourceConstruct[] children = new SimpleSourceConstruct[to
+            - from];
+        System.arraycopy(members, from, children, 0, children.length);
+        return children;
+    }
+
+    private void setChildren(IElement[] children)
+    {
+        SourceElementBody body = new SourceElementBody();
+        body.setChildren(children);
+        cache.put(type, body);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,10 +12,17 @@
  *******************************************************************************/
 package org.eclipse.handly.model.impl.support;
 
+import static org.eclipse.handly.model.IElementDeltaConstants.F_CONTENT;
+import static org.eclipse.handly.model.IElementDeltaConstants.F_FINE_GRAINED;
+
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.model.ElementDeltas;
+import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.snapshot.DocumentSnapshot;
 import org.eclipse.handly.util.Property;
 import org.eclipse.handly.util.TextRange;
@@ -465,4 +472,278 @@ public class ElementChangeRecorderTest
             recorder.endRecording().getDelta().toString());
         //@formatter:on
     }
+
+    public void test36()
+    {
+        SimpleSourceConstruct d = newLeaf(root, "D");
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b, d });
+        recorder.setMinimalReorder(true);
+        recorder.beginRecording(root);
+        try
+        {
+            recorder.setMinimalReorder(false);
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+        }
+        rootBody.setChildren(new SimpleSourceConstruct[] { d, a, b });
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  D[*]: {REORDERED | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test37()
+    {
+        SimpleSourceConstruct d = newLeaf(root, "D");
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        recorder.setMinimalReorder(true);
+        recorder.beginRecording(root);
+        rootBody.setChildren(new SimpleSourceConstruct[] { d, b, a });
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  D[+]: {}\n" +
+            "  B[*]: {REORDERED | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test38()
+    {
+        SimpleSourceConstruct d = newLeaf(root, "D");
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b, d });
+        recorder.setMinimalReorder(true);
+        recorder.beginRecording(root, null, 1);
+        rootBody.setChildren(new SimpleSourceConstruct[] { b, d });
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CONTENT}\n" +
+            "  D[*]: {CONTENT}\n" +
+            "  A[-]: {}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test39()
+    {
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        recorder.setMinimalReorder(true);
+        recorder.beginRecording(root, null, 2);
+        rootBody.setChildren(new SimpleSourceConstruct[] { b, a });
+        bBody.addChild(c);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | REORDERED | FINE GRAINED}\n" +
+            "    C[+]: {}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test40()
+    {
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        recorder.beginRecording(root);
+        rootBody.setChildren(new SimpleSourceConstruct[] { b, a });
+        recorder.endRecording();
+        // the recorder is reusable
+        recorder.beginRecording(root);
+        rootBody.removeChild(a);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  A[-]: {}", recorder.endRecording().getDelta().toString());
+        //@formatter:on
+        recorder.beginRecording(root);
+        assertTrue(ElementDeltas.isNullOrEmpty(
+            recorder.endRecording().getDelta()));
+    }
+
+    public void test41()
+    {
+        SimpleSourceConstruct[] children = new SimpleSourceConstruct[100];
+        for (int i = 0; i < children.length; i++)
+            children[i] = newLeaf(root, "M" + i);
+        rootBody.setChildren(children);
+        recorder.beginRecording(root);
+        SimpleSourceConstruct[] newChildren =
+            new SimpleSourceConstruct[children.length];
+        System.arraycopy(children, 1, newChildren, 0, children.length - 1);
+        newChildren[children.length - 1] = children[0];
+        rootBody.setChildren(newChildren);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  M1[*]: {REORDERED | FINE GRAINED}\n" +
+            "  M0[*]: {REORDERED | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test42()
+    {
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        bBody.addChild(c);
+        rootBody.setFingerprint(1);
+        bBody.setFingerprint(2);
+        recorder.beginRecording(root);
+        rootBody = new SourceElementBody();
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        rootBody.setFingerprint(1);
+        bBody = new SourceElementBody(); // c is gone, but the fingerprint
+        bBody.setFingerprint(2); // says the subtree is unchanged
+        assertTrue(ElementDeltas.isNullOrEmpty(
+            recorder.endRecording().getDelta()));
+    }
+
+    public void test43()
+    {
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        bBody.addChild(c);
+        rootBody.setFingerprint(1);
+        bBody.setFingerprint(2);
+        // fingerprints are not used when the maximum depth is limited
+        recorder.beginRecording(root, null, 2);
+        rootBody = new SourceElementBody();
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        rootBody.setFingerprint(1);
+        bBody = new SourceElementBody();
+        bBody.setFingerprint(2);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | FINE GRAINED}\n" +
+            "    C[-]: {}", recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test44()
+    {
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        bBody.addChild(c);
+        rootBody.setFingerprint(1);
+        bBody.setFingerprint(2);
+        recorder.beginRecording(root);
+        rootBody = new SourceElementBody();
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        rootBody.setFingerprint(3);
+        bBody = new SourceElementBody();
+        bBody.setFingerprint(4);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | FINE GRAINED}\n" +
+            "    C[-]: {}", recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test45()
+    {
+        Property<int[]> p = Property.get("p", int[].class);
+        // {0, 31} and {1, 0} have the same hash code and length
+        buildTree(p, new int[] { 0, 31 });
+        recorder.beginRecording(root);
+        buildTree(p, new int[] { 1, 0 });
+        assertTrue(rootBody.getFingerprint() != 0);
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | FINE GRAINED}\n" +
+            "    C[*]: {CONTENT | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test46()
+    {
+        Property<Object> p = Property.get("p", Object.class);
+        buildTree(p, new Object());
+        assertEquals(0, rootBody.getFingerprint()); // unknown value type
+        assertEquals(0, bBody.getFingerprint());
+        assertTrue(aBody.getFingerprint() != 0);
+        recorder.beginRecording(root);
+        buildTree(p, new Object());
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | FINE GRAINED}\n" +
+            "    C[*]: {CONTENT | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    public void test47()
+    {
+        // the body of C compares state that is not covered by fingerprints
+        class ExtendedBody
+            extends SourceElementBody
+        {
+            final int extra;
+
+            ExtendedBody(int extra)
+            {
+                this.extra = extra;
+            }
+
+            @Override
+            public void findContentChange(Body oldBody, IElement element,
+                IElementDeltaBuilder builder)
+            {
+                super.findContentChange(oldBody, element, builder);
+                if (extra != ((ExtendedBody)oldBody).extra)
+                    builder.changed(element, F_CONTENT | F_FINE_GRAINED);
+            }
+        }
+        buildTree(new ExtendedBody(1));
+        assertEquals(0, rootBody.getFingerprint());
+        assertEquals(0, cBody.getFingerprint());
+        recorder.beginRecording(root);
+        buildTree(new ExtendedBody(2));
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN | FINE GRAINED}\n" +
+            "  B[*]: {CHILDREN | FINE GRAINED}\n" +
+            "    C[*]: {CONTENT | FINE GRAINED}",
+            recorder.endRecording().getDelta().toString());
+        //@formatter:on
+    }
+
+    /*
+     * Builds new bodies for root/{A, B/C} with the given value of
+     * the given property of C, and computes their fingerprints.
+     */
+    private <T> void buildTree(Property<T> p, T value)
+    {
+        SourceElementBody cBody = new SourceElementBody();
+        cBody.set(p, value);
+        buildTree(cBody);
+    }
+
+    /*
+     * Builds new bodies for root/{A, B/C} with the given body of C,
+     * and computes their fingerprints.
+     */
+    private void buildTree(SourceElementBody cBody)
+    {
+        rootBody = new SourceElementBody();
+        rootBody.setChildren(new SimpleSourceConstruct[] { a, b });
+        aBody = new SourceElementBody();
+        bBody = new SourceElementBody();
+        bBody.addChild(c);
+        this.cBody = cBody;
+        Map<IElement, Object> newElements = new HashMap<>();
+        newElements.put(root, rootBody);
+        newElements.put(a, aBody);
+        newElements.put(b, bBody);
+        newElements.put(c, cBody);
+        rootBody.computeFingerprint(newElements);
+    }
+
+    private static SimpleSourceConstruct newLeaf(SimpleSourceFile parent,
+        String name)
+    {
+        SourceElementBody body = new SourceElementBody();
+        return new SimpleSourceConstruct(parent, name)
+        {
+            @Override
+            public Object findBody_()
+            {
+                return body;
+            }
+        };
+    }
 }
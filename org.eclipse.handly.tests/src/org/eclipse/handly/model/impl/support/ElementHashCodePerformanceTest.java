@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
+
+import com.google.common.base.Strings;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for hash-based lookups of elements in a deep hierarchy that can be
+ * useful for assessing the performance of cached element hash codes.
+ */
+public class ElementHashCodePerformanceTest
+    extends TestCase
+{
+    private static final int DEPTH = 16;
+    private static final int ROUNDS = 100;
+
+    public void testHashCodePerformance()
+    {
+        lookup(new CacheableElement(null, "root", false));
+    }
+
+    public void testCachedHashCodePerformance()
+    {
+        lookup(new CacheableElement(null, "root", true));
+    }
+
+    public void testCachedHashCode()
+    {
+        CacheableElement root = new CacheableElement(null, "root", true);
+        CacheableElement a = getChild(root, "0001");
+        CacheableElement b = getChild(root, "0001");
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertEquals(a.defaultHashCode_(), a.hashCode());
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(getChild(root, "0002")));
+        // an element with a cacheable hash code can equal other elements
+        assertEquals(a, new CacheableElement(a.getParent_(), a.getName_(),
+            false));
+        assertTrue(Elements.equalsAndSameParentChain(a, b));
+    }
+
+    private void lookup(CacheableElement root)
+    {
+        // build a hierarchy of depth 16 with 10 000 leafs
+        Map<IElement, Integer> map = new HashMap<>();
+        CacheableElement[] leafs = new CacheableElement[10000];
+        for (int i = 0; i < leafs.length; i++)
+        {
+            String path = Strings.padStart(String.valueOf(i), 4, '0');
+            CacheableElement leaf = getChild(root, path);
+            map.put(leaf, i);
+            // store an equal element with the same parent but not the same
+            leafs[i] = ((CacheableElement)leaf.getParent_()).getChild(
+                leaf.getName_());
+        }
+        for (int n = 0; n < ROUNDS; n++)
+        {
+            for (int i = 0; i < leafs.length; i++)
+                assertEquals(i, map.get(leafs[i]).intValue());
+        }
+    }
+
+    private static CacheableElement getChild(CacheableElement root,
+        String path)
+    {
+        CacheableElement child = root;
+        for (int i = 0; i < DEPTH; i++)
+        {
+            // the names are distinct at each level, like in a real model
+            int end = i - (DEPTH - path.length()) + 1;
+            child = child.getChild("e" + i + '_' + path.substring(0, Math.max(
+                end, 0)));
+        }
+        return child;
+    }
+
+    private static class CacheableElement
+        extends SimpleElement
+    {
+        private final boolean cacheable;
+
+        CacheableElement(IElement parent, String name, boolean cacheable)
+        {
+            super(parent, name, null);
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public CacheableElement getChild(String name)
+        {
+            return new CacheableElement(this, name, cacheable);
+        }
+
+        @Override
+        protected boolean isHashCodeCacheable_()
+        {
+            return cacheable;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import org.eclipse.handly.model.IElement;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>ElementInterner</code> tests.
+ */
+public class ElementInternerTest
+    extends TestCase
+{
+    private ElementInterner interner;
+    private SimpleElement root;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        interner = new ElementInterner();
+        root = new SimpleElement(null, "root", null);
+    }
+
+    public void test1()
+    {
+        SimpleElement a = root.getChild("A");
+        assertSame(a, interner.intern(a));
+        assertSame(a, interner.intern(root.getChild("A")));
+        SimpleElement b = root.getChild("B");
+        assertSame(b, interner.intern(b));
+        assertEquals(2, interner.size());
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        SimpleElement a2 = root.getChild("A");
+        assertSame(a2, interner.intern(a2));
+        assertSame(a2, interner.intern(a));
+    }
+
+    public void test2()
+    {
+        class Element
+            extends SimpleElement
+        {
+            Element(IElement parent, String name)
+            {
+                super(parent, name, null);
+            }
+
+            @Override
+            public boolean canEqual_(Object obj)
+            {
+                return obj instanceof SimpleElement;
+            }
+        }
+        SimpleElement a = root.getChild("A");
+        Element a2 = new Element(root, "A");
+        assertEquals(a, a2);
+        assertSame(a, interner.intern(a));
+        assertSame(a2, interner.intern(a2)); // never of a different class
+    }
+
+    public void test3() throws Exception
+    {
+        Thread[] threads = new Thread[4];
+        IElement[][] results = new IElement[threads.length][100];
+        for (int i = 0; i < threads.length; i++)
+        {
+            IElement[] result = results[i];
+            threads[i] = new Thread(() ->
+            {
+                for (int j = 0; j < result.length; j++)
+                    result[j] = interner.intern(root.getChild(
+                        Integer.toString(j)));
+            });
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        for (int j = 0; j < 100; j++)
+        {
+            for (int i = 1; i < threads.length; i++)
+                assertSame(results[0][j], results[i][j]);
+        }
+    }
+
+    public void test4()
+    {
+        try
+        {
+            interner.intern(null);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
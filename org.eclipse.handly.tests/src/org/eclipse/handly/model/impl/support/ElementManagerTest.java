@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -18,8 +18,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.handly.buffer.Buffer;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.model.IElement;
@@ -190,6 +199,200 @@ public class ElementManagerTest
         assertNull(manager.releaseWorkingCopyInfo(a));
     }
 
+    public void test3() throws Exception
+    {
+        SimpleModelManager modelManager = new SimpleModelManager();
+        manager = modelManager.elementManager = new ElementManager(
+            new MapBodyCache());
+        a = new SimpleSourceFile(null, "a.foo", null, modelManager);
+        b = a.getChild("B");
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++)
+        {
+            readers[i] = new Thread(() ->
+            {
+                while (!done.get())
+                {
+                    // the child must be visible whenever its parent is visible
+                    Object body = manager.peek(a);
+                    if (body != null && manager.get(b) == null
+                        && manager.peek(a) == body)
+                    {
+                        failure.compareAndSet(null, "No body for child");
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        try
+        {
+            for (int i = 0; i < 10000; i++)
+            {
+                SourceElementBody aBody = new SourceElementBody();
+                SourceElementBody bBody = new SourceElementBody();
+                aBody.addChild(b);
+                Map<IElement, Object> newElements = new HashMap<>();
+                newElements.put(a, aBody);
+                newElements.put(b, bBody);
+                assertNull(manager.putIfAbsent(a, newElements));
+                assertSame(aBody, manager.get(a));
+                manager.put(a, newElements);
+                assertSame(bBody, manager.get(b));
+                manager.remove(a);
+                assertNull(manager.peek(a));
+                assertNull(manager.peek(b));
+            }
+        }
+        finally
+        {
+            done.set(true);
+            for (Thread reader : readers)
+                reader.join();
+        }
+        assertNull(failure.get());
+    }
+
+    public void test4() throws Exception
+    {
+        SimpleModelManager modelManager = new SimpleModelManager();
+        CountDownLatch started = new CountDownLatch(8);
+        AtomicInteger buildCount = new AtomicInteger();
+        SimpleElement root = new SimpleElement(null, "root", modelManager)
+        {
+            @Override
+            public void buildStructure_(IContext context,
+                IProgressMonitor monitor) throws CoreException
+            {
+                buildCount.incrementAndGet();
+                try
+                {
+                    started.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                }
+                super.buildStructure_(context, monitor);
+            }
+        };
+        Object[] bodies = new Object[(int)started.getCount()];
+        Thread[] openers = new Thread[bodies.length];
+        for (int i = 0; i < openers.length; i++)
+        {
+            int index = i;
+            openers[i] = new Thread(() ->
+            {
+                started.countDown();
+                try
+                {
+                    bodies[index] = root.open_(EMPTY_CONTEXT, null);
+                }
+                catch (CoreException e)
+                {
+                }
+            });
+            openers[i].start();
+        }
+        for (Thread opener : openers)
+            opener.join();
+        assertEquals(1, buildCount.get());
+        assertNotNull(bodies[0]);
+        for (Object body : bodies)
+            assertSame(bodies[0], body);
+        assertEquals(bodies.length - 1,
+            modelManager.elementManager.getDeduplicatedOpenCount());
+    }
+
+    public void test5() throws Exception
+    {
+        SimpleModelManager modelManager = new SimpleModelManager();
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch canceled = new CountDownLatch(1);
+        SimpleElement root = new SimpleElement(null, "root", modelManager)
+        {
+            @Override
+            public void buildStructure_(IContext context,
+                IProgressMonitor monitor) throws CoreException
+            {
+                building.countDown();
+                try
+                {
+                    canceled.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                }
+                super.buildStructure_(context, monitor);
+            }
+        };
+        AtomicReference<Object> body = new AtomicReference<>();
+        Thread opener = new Thread(() ->
+        {
+            try
+            {
+                body.set(root.open_(EMPTY_CONTEXT, null));
+            }
+            catch (CoreException e)
+            {
+            }
+        });
+        opener.start();
+        try
+        {
+            assertTrue(building.await(10, TimeUnit.SECONDS));
+            NullProgressMonitor monitor = new NullProgressMonitor();
+            monitor.setCanceled(true);
+            try
+            {
+                root.open_(EMPTY_CONTEXT, monitor);
+                fail();
+            }
+            catch (OperationCanceledException e)
+            {
+            }
+        }
+        finally
+        {
+            canceled.countDown();
+            opener.join();
+        }
+        assertNotNull(body.get());
+        assertSame(body.get(), root.findBody_());
+        assertEquals(0, modelManager.elementManager.getDeduplicatedOpenCount());
+    }
+
+    private static class MapBodyCache
+        implements IConcurrentBodyCache
+    {
+        private final Map<IElement, Object> map = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(IElement element)
+        {
+            return map.get(element);
+        }
+
+        @Override
+        public Object peek(IElement element)
+        {
+            return map.get(element);
+        }
+
+        @Override
+        public void put(IElement element, Object body)
+        {
+            map.put(element, body);
+        }
+
+        @Override
+        public void remove(IElement element)
+        {
+            map.remove(element);
+        }
+    }
+
     private static class TestBuffer
         extends Buffer
     {
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.handly.context.IContext;
+import org.eclipse.handly.model.IElement;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>ModelPrewarmingJob</code> tests.
+ */
+public class ModelPrewarmingJobTest
+    extends TestCase
+{
+    private SimpleModelManager manager;
+    private ConcurrentBodyCache cache;
+    private TreeElement root;
+    private List<TreeElement> opened;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        manager = new SimpleModelManager();
+        cache = new ConcurrentBodyCache(1000, (element, body) -> 10);
+        manager.elementManager = new ElementManager(cache);
+        opened = new ArrayList<>();
+        root = new TreeElement(null, "r");
+    }
+
+    public void test1()
+    {
+        ModelPrewarmingJob job = new ModelPrewarmingJob(root);
+        job.setMaxFillRatio(1);
+        assertEquals(IStatus.OK, job.run(new NullProgressMonitor()).getSeverity());
+        assertEquals(1 + 3 + 9 + 27, opened.size());
+        // breadth-first order
+        assertEquals("r", opened.get(0).getName_());
+        for (int i = 1; i < 4; i++)
+            assertEquals(2, opened.get(i).getName_().length());
+        for (int i = 4; i < 13; i++)
+            assertEquals(3, opened.get(i).getName_().length());
+        assertEquals(400, cache.weight());
+    }
+
+    public void test2()
+    {
+        cache.setMaxWeight(600);
+        ModelPrewarmingJob job = new ModelPrewarmingJob(root);
+        assertEquals(0.5, job.getMaxFillRatio());
+        assertEquals(IStatus.OK, job.run(new NullProgressMonitor()).getSeverity());
+        assertEquals(30, opened.size());
+        assertTrue(cache.fillRatio() >= 0.5);
+        assertEquals(cache.size(), opened.size());
+    }
+
+    public void test3()
+    {
+        ModelPrewarmingJob job = new ModelPrewarmingJob(root);
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        assertEquals(IStatus.CANCEL, job.run(monitor).getSeverity());
+        assertTrue(opened.isEmpty());
+
+        try
+        {
+            job.setMaxFillRatio(0);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    private class TreeElement
+        extends SimpleElement
+    {
+        TreeElement(IElement parent, String name)
+        {
+            super(parent, name, manager);
+        }
+
+        @Override
+        public void buildStructure_(IContext context, IProgressMonitor monitor)
+            throws CoreException
+        {
+            opened.add(this);
+            Body body = new Body();
+            if (getName_().length() < 4)
+            {
+                for (int i = 0; i < 3; i++)
+                    body.addChild(new TreeElement(this, getName_() + i));
+            }
+            context.get(NEW_ELEMENTS).put(this, body);
+        }
+    }
+}
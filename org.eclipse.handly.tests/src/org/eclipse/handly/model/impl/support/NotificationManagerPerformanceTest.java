@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.handly.model.IElementChangeEvent;
+import org.eclipse.handly.model.IElementDeltaConstants;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>NotificationManager</code> tests with many listeners interested in
+ * specific element subtrees that can be useful for assessing performance
+ * of event dispatching.
+ */
+public class NotificationManagerPerformanceTest
+    extends TestCase
+{
+    private static final int LISTENER_COUNT = 10000;
+    private static final int EVENT_COUNT = 10000;
+
+    public void testScopedListenersPerformance()
+    {
+        NotificationManager manager = new NotificationManager();
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        SimpleElement[] files = new SimpleElement[LISTENER_COUNT];
+        AtomicInteger notified = new AtomicInteger();
+        for (int i = 0; i < LISTENER_COUNT; i++)
+        {
+            files[i] = root.getChild("F" + i);
+            manager.addElementChangeListener(
+                event -> notified.incrementAndGet(),
+                ElementChangeEvent.POST_CHANGE, files[i]);
+        }
+        for (int i = 0; i < EVENT_COUNT; i++)
+        {
+            IElementChangeEvent event = new ElementChangeEvent(
+                ElementChangeEvent.POST_CHANGE, new ElementDelta.Builder(
+                    new ElementDelta(root)).changed(files[i
+                        % LISTENER_COUNT].getChild("X"),
+                        IElementDeltaConstants.F_CONTENT).getDelta());
+            manager.fireElementChangeEvent(event);
+        }
+        assertEquals(EVENT_COUNT, notified.get());
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 1C-Soft LLC.
+ * Copyright (c) 2016, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -14,9 +14,16 @@ package org.eclipse.handly.model.impl.support;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.handly.model.ElementDeltas;
 import org.eclipse.handly.model.IElementChangeEvent;
 import org.eclipse.handly.model.IElementChangeListener;
+import org.eclipse.handly.model.IElementDeltaConstants;
 
 import junit.framework.TestCase;
 
@@ -106,6 +113,338 @@ public class NotificationManagerTest
         manager.removeElementChangeListener(listener);
     }
 
+    public void test4()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        manager = new NotificationManager(tasks::add);
+        List<IElementChangeEvent> events = new ArrayList<>();
+        manager.addElementChangeListener(events::add);
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        SimpleElement a = root.getChild("A");
+        SimpleElement b = root.getChild("B");
+
+        IElementChangeEvent event1 = newEvent(
+            new ElementDelta.Builder(new ElementDelta(root)).added(a));
+        manager.fireElementChangeEvent(event1);
+        manager.fireElementChangeEvent(newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).changed(a,
+                IElementDeltaConstants.F_CONTENT)));
+        manager.fireElementChangeEvent(newEvent(
+            new ElementDelta.Builder(new ElementDelta(root)).removed(b)));
+        assertEquals(1, tasks.size());
+        assertEquals(1, manager.getPendingEventCount());
+        assertEquals(2, manager.getCoalescedEventCount());
+        assertTrue(events.isEmpty());
+
+        tasks.remove(0).run();
+        assertEquals(0, manager.getPendingEventCount());
+        assertEquals(1, events.size());
+        //@formatter:off
+        assertEquals("root[*]: {CHILDREN}\n" +
+            "  A[+]: {}\n" +
+            "  B[-]: {}", events.get(0).getDeltas()[0].toString());
+        assertEquals("root[*]: {CHILDREN}\n" +
+            "  A[+]: {}", event1.getDeltas()[0].toString()); // not modified
+        //@formatter:on
+    }
+
+    public void test5()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        manager = new NotificationManager(tasks::add);
+        List<IElementChangeEvent> events = new ArrayList<>();
+        manager.addElementChangeListener(events::add);
+        manager.addElementChangeListener(listener,
+            ElementChangeEvent.POST_RECONCILE);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        manager.fireElementChangeEvent(POST_RECONCILE);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertEquals(2, tasks.size());
+        assertEquals(4, manager.getPendingEventCount());
+        assertEquals(0, manager.getCoalescedEventCount());
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+        assertEquals(3, events.size());
+        assertSame(POST_CHANGE, events.get(0));
+        assertSame(POST_RECONCILE, events.get(1));
+        assertSame(POST_CHANGE, events.get(2));
+        assertSame(POST_RECONCILE, listener.event);
+
+        manager = new NotificationManager(task ->
+        {
+            throw new RejectedExecutionException();
+        });
+        manager.addElementChangeListener(listener);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertSame(POST_CHANGE, listener.event); // delivered synchronously
+    }
+
+    public void test6()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        manager = new NotificationManager(tasks::add);
+        manager.addElementChangeListener(listener);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        manager.fireElementChangeEvent(POST_RECONCILE);
+        assertEquals(2, manager.getPendingEventCount());
+        manager.removeElementChangeListener(listener);
+        assertEquals(0, manager.getPendingEventCount());
+        tasks.remove(0).run();
+        assertNull(listener.event);
+    }
+
+    public void test7() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            manager = new NotificationManager(executor);
+            CountDownLatch busy = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(2);
+            List<IElementChangeEvent> events = new ArrayList<>();
+            manager.addElementChangeListener(event ->
+            {
+                busy.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (events)
+                {
+                    events.add(event);
+                }
+                done.countDown();
+            });
+            SimpleElement root = new SimpleElement(null, "root",
+                new SimpleModelManager());
+            manager.fireElementChangeEvent(newEvent(new ElementDelta.Builder(
+                new ElementDelta(root)).added(root.getChild("A"))));
+            assertTrue(busy.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; i++)
+            {
+                manager.fireElementChangeEvent(newEvent(
+                    new ElementDelta.Builder(new ElementDelta(root)).added(
+                        root.getChild("B" + i))));
+            }
+            assertEquals(1, manager.getPendingEventCount());
+            assertEquals(9, manager.getCoalescedEventCount());
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            synchronized (events)
+            {
+                assertEquals(2, events.size());
+                assertEquals(10, ElementDeltas.getAffectedChildren(
+                    events.get(1).getDeltas()[0]).length);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    public void test8()
+    {
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        SimpleElement a = root.getChild("A");
+        SimpleElement a1 = a.getChild("A1");
+        SimpleElement b = root.getChild("B");
+        Listener listenerA = new Listener();
+        Listener listenerA1 = new Listener();
+        Listener listenerB = new Listener();
+        manager.addElementChangeListener(listenerA,
+            ElementChangeEvent.POST_CHANGE, a);
+        manager.addElementChangeListener(listenerA1,
+            ElementChangeEvent.POST_CHANGE, a1);
+        manager.addElementChangeListener(listenerB,
+            ElementChangeEvent.POST_CHANGE, b);
+        manager.addElementChangeListener(listener);
+
+        // a change within the subtree of A1
+        IElementChangeEvent event = newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).changed(a1.getChild("X"),
+                IElementDeltaConstants.F_CONTENT));
+        manager.fireElementChangeEvent(event);
+        assertSame(event, listenerA.event);
+        assertSame(event, listenerA1.event);
+        assertNull(listenerB.event);
+        assertSame(event, listener.event);
+
+        // a delta rooted below A
+        event = newEvent(new ElementDelta.Builder(new ElementDelta(
+            a1)).changed(a1.getChild("X"), IElementDeltaConstants.F_CONTENT));
+        manager.fireElementChangeEvent(event);
+        assertSame(event, listenerA.event);
+        assertSame(event, listenerA1.event);
+        assertNull(listenerB.event);
+
+        // a fine-grained change of A does not affect A1
+        event = newEvent(new ElementDelta.Builder(new ElementDelta(
+            root)).changed(a, IElementDeltaConstants.F_CONTENT
+                | IElementDeltaConstants.F_FINE_GRAINED));
+        manager.fireElementChangeEvent(event);
+        assertSame(event, listenerA.event);
+        assertNotSame(event, listenerA1.event);
+        assertNull(listenerB.event);
+
+        // a coarse change of A affects A1
+        event = newEvent(new ElementDelta.Builder(new ElementDelta(
+            root)).changed(a, IElementDeltaConstants.F_CONTENT));
+        manager.fireElementChangeEvent(event);
+        assertSame(event, listenerA.event);
+        assertSame(event, listenerA1.event);
+        assertNull(listenerB.event);
+
+        // removal of the root affects all
+        event = newEvent(new ElementDelta.Builder(new ElementDelta(
+            root)).removed(root));
+        manager.fireElementChangeEvent(event);
+        assertSame(event, listenerA.event);
+        assertSame(event, listenerA1.event);
+        assertSame(event, listenerB.event);
+
+        // re-registration without elements
+        manager.addElementChangeListener(listenerB,
+            ElementChangeEvent.POST_CHANGE);
+        event = newEvent(new ElementDelta.Builder(new ElementDelta(
+            root)).added(root.getChild("C")));
+        manager.fireElementChangeEvent(event);
+        assertNotSame(event, listenerA.event);
+        assertSame(event, listenerB.event);
+    }
+
+    public void test9()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        manager = new NotificationManager(tasks::add);
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        List<IElementChangeEvent> events = new ArrayList<>();
+        manager.addElementChangeListener(events::add,
+            ElementChangeEvent.POST_CHANGE, root.getChild("A"));
+        manager.fireElementChangeEvent(newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).added(root.getChild("B"))));
+        assertTrue(tasks.isEmpty());
+        manager.fireElementChangeEvent(newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).added(root.getChild("A"))));
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(1, events.size());
+    }
+
+    public void test10()
+    {
+        SimpleElement root = new SimpleElement(null, "root",
+            new SimpleModelManager());
+        SimpleElement a = root.getChild("A");
+        SimpleElement b = root.getChild("B");
+        IElementChangeEvent eventA = newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).changed(a, IElementDeltaConstants.F_CONTENT
+                | IElementDeltaConstants.F_FINE_GRAINED));
+        IElementChangeEvent eventB = newEvent(new ElementDelta.Builder(
+            new ElementDelta(root)).changed(b, IElementDeltaConstants.F_CONTENT
+                | IElementDeltaConstants.F_FINE_GRAINED));
+
+        manager.addElementChangeListener(listener,
+            ElementChangeEvent.POST_CHANGE, a);
+        manager.fireElementChangeEvent(eventA);
+        assertSame(eventA, listener.event);
+
+        // re-registration with other elements
+        manager.addElementChangeListener(listener,
+            ElementChangeEvent.POST_CHANGE, b);
+        manager.fireElementChangeEvent(eventB);
+        assertSame(eventB, listener.event);
+        manager.fireElementChangeEvent(eventA);
+        assertSame(eventB, listener.event);
+
+        // re-registration of an unscoped listener with elements
+        Listener listener2 = new Listener();
+        manager.addElementChangeListener(listener2);
+        manager.fireElementChangeEvent(eventB);
+        assertSame(eventB, listener2.event);
+        manager.addElementChangeListener(listener2,
+            ElementChangeEvent.POST_CHANGE, a);
+        manager.fireElementChangeEvent(eventA);
+        assertSame(eventA, listener2.event);
+        manager.fireElementChangeEvent(eventB);
+        assertSame(eventA, listener2.event);
+    }
+
+    public void test11()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        manager = new NotificationManager(tasks::add);
+        List<IElementChangeEvent> events = new ArrayList<>();
+        int[] depth = new int[1];
+        IElementChangeListener listener = new IElementChangeListener()
+        {
+            @Override
+            public void elementChanged(IElementChangeEvent event)
+            {
+                assertEquals(0, depth[0]++);
+                events.add(event);
+                if (event == POST_CHANGE)
+                {
+                    // re-registration while the listener is being notified
+                    manager.removeElementChangeListener(this);
+                    manager.addElementChangeListener(this);
+                    manager.fireElementChangeEvent(POST_RECONCILE);
+                }
+                depth[0]--;
+            }
+        };
+        manager.addElementChangeListener(listener);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertTrue(tasks.isEmpty()); // delivered by the same task
+        assertEquals(2, events.size());
+        assertSame(POST_RECONCILE, events.get(1));
+        assertEquals(0, manager.getPendingEventCount());
+
+        manager.removeElementChangeListener(listener);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertTrue(tasks.isEmpty());
+        manager.addElementChangeListener(listener,
+            ElementChangeEvent.POST_RECONCILE);
+        manager.fireElementChangeEvent(POST_RECONCILE);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(3, events.size());
+    }
+
+    public void test12()
+    {
+        // a rejecting executor makes delivery synchronous, so that
+        // the first listener runs while the event is still being fired
+        manager = new NotificationManager(task ->
+        {
+            throw new RejectedExecutionException();
+        });
+        manager.addElementChangeListener(
+            event -> manager.removeElementChangeListener(listener));
+        manager.addElementChangeListener(listener);
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertNull(listener.event); // removed before it could be notified
+        manager.fireElementChangeEvent(POST_CHANGE);
+        assertNull(listener.event);
+        assertEquals(0, manager.getPendingEventCount());
+    }
+
+    private static IElementChangeEvent newEvent(ElementDelta.Builder builder)
+    {
+        return new ElementChangeEvent(ElementChangeEvent.POST_CHANGE,
+            builder.getDelta());
+    }
+
     private static class Listener
         implements IElementChangeListener
     {
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import static org.eclipse.handly.context.Contexts.of;
+import static org.eclipse.handly.context.Contexts.with;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.handly.context.IContext;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.util.TextRange;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for building the structure of a source file from
+ * <code>SOURCE_CHAR_SEQUENCE</code>.
+ */
+public class SourceCharSequenceTest
+    extends TestCase
+{
+    private TestSourceFile sourceFile;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        sourceFile = new TestSourceFile();
+    }
+
+    public void test1() throws Exception
+    {
+        CountingCharSequence text = new CountingCharSequence("abc");
+        Map<IElement, Object> newElements = new HashMap<>();
+        sourceFile.buildStructure_(with(of(
+            ISourceFileImplSupport.SOURCE_CHAR_SEQUENCE, text), of(
+                ISourceFileImplSupport.NEW_ELEMENTS, newElements)), null);
+        assertSame(text, sourceFile.charSequence);
+        assertEquals(0, text.toStringCount);
+        SourceElementBody body = (SourceElementBody)newElements.get(
+            sourceFile);
+        assertEquals(new TextRange(0, 3), body.getFullRange());
+    }
+
+    public void test2() throws Exception
+    {
+        sourceFile.readContents = true;
+        CountingCharSequence text = new CountingCharSequence("abc");
+        sourceFile.buildStructure_(with(of(
+            ISourceFileImplSupport.SOURCE_CHAR_SEQUENCE, text), of(
+                ISourceFileImplSupport.NEW_ELEMENTS, new HashMap<>())), null);
+        assertEquals("abc", sourceFile.contents);
+        assertEquals(1, text.toStringCount); // created lazily, only once
+    }
+
+    public void test3() throws Exception
+    {
+        sourceFile.buildStructure_(with(of(
+            ISourceFileImplSupport.SOURCE_CONTENTS, "abcd"), of(
+                ISourceFileImplSupport.NEW_ELEMENTS, new HashMap<>())), null);
+        assertEquals("abcd", sourceFile.charSequence);
+    }
+
+    private static class TestSourceFile
+        extends SimpleSourceFile
+    {
+        boolean readContents;
+        CharSequence charSequence;
+        String contents;
+
+        TestSourceFile()
+        {
+            super(null, "a.foo", null, new SimpleModelManager());
+        }
+
+        @Override
+        public void buildSourceStructure_(IContext context,
+            IProgressMonitor monitor) throws CoreException
+        {
+            charSequence = context.get(SOURCE_CHAR_SEQUENCE);
+            if (readContents)
+            {
+                contents = context.get(SOURCE_CONTENTS);
+                context.get(SOURCE_CONTENTS);
+            }
+            context.get(NEW_ELEMENTS).put(this, new SourceElementBody());
+        }
+    }
+
+    private static class CountingCharSequence
+        implements CharSequence
+    {
+        private final String s;
+        int toStringCount;
+
+        CountingCharSequence(String s)
+        {
+            this.s = s;
+        }
+
+        @Override
+        public int length()
+        {
+            return s.length();
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return s.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return s.subSequence(start, end);
+        }
+
+        @Override
+        public String toString()
+        {
+            toStringCount++;
+            return s;
+        }
+    }
+}
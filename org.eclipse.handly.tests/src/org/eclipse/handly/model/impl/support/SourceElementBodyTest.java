@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,7 +12,14 @@
  *******************************************************************************/
 package org.eclipse.handly.model.impl.support;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.util.Property;
+import org.eclipse.handly.util.TextRange;
 
 import junit.framework.TestCase;
 
@@ -48,4 +55,121 @@ public class SourceElementBodyTest
         assertEquals("b", body.get(p1));
         assertEquals(0, body.get(p2).length);
     }
+
+    public void test2()
+    {
+        SimpleSourceFile root = new SimpleSourceFile(null, "root", null,
+            new SimpleModelManager());
+        SimpleSourceConstruct a = new SimpleSourceConstruct(root, "A");
+        SimpleSourceConstruct b = new SimpleSourceConstruct(root, "B");
+
+        long f1 = fingerprint(root, a, 0, 10, "x");
+        assertTrue(f1 != 0);
+        assertEquals(f1, fingerprint(root, a, 0, 10, "x"));
+        // ranges are relative to the parent
+        assertEquals(f1, fingerprint(root, a, 5, 15, "x"));
+        assertTrue(f1 != fingerprint(root, a, 0, 11, "x"));
+        assertTrue(f1 != fingerprint(root, b, 0, 10, "x"));
+        // "Aa" and "BB" have the same hash code
+        assertTrue(fingerprint(root, a, 0, 10, "Aa") != fingerprint(root, a,
+            0, 10, "BB"));
+
+        Map<IElement, Object> newElements = new HashMap<>();
+        body.setChildren(new IElement[] { a });
+        newElements.put(root, body);
+        assertEquals(0, body.computeFingerprint(newElements)); // no body for a
+        newElements.put(a, new SourceElementBody());
+        assertTrue(body.computeFingerprint(newElements) != 0);
+        body.set(Property.get("p", String.class), "y");
+        assertEquals(0, body.getFingerprint());
+        assertTrue(body.computeFingerprint(newElements) != 0);
+        body.removeChild(a);
+        assertEquals(0, body.getFingerprint());
+    }
+
+    public void test3()
+    {
+        SimpleSourceFile root = new SimpleSourceFile(null, "root", null,
+            new SimpleModelManager());
+        // equal 32-bit hash codes, different contents
+        assertTrue(fingerprint(root, "p", new int[] { 0, 31 }) != fingerprint(
+            root, "p", new int[] { 1, 0 }));
+        assertTrue(fingerprint(root, "p", Arrays.asList("Aa")) != fingerprint(
+            root, "p", Arrays.asList("BB")));
+        assertTrue(fingerprint(root, "p", new Object[] { "Aa" }) != fingerprint(
+            root, "p", Arrays.asList("BB")));
+        assertEquals(fingerprint(root, "p", Arrays.asList("x")), fingerprint(
+            root, "p", Collections.singletonList("x")));
+        assertEquals(fingerprint(root, "p", new int[] { 1, 2 }), fingerprint(
+            root, "p", new int[] { 1, 2 }));
+        assertTrue(fingerprint(root, "p", 1) != fingerprint(root, "p", 1L));
+        // unknown value types
+        assertEquals(0, fingerprint(root, "p", new Object()));
+        assertEquals(0, fingerprint(root, "p", Arrays.asList(new Object())));
+        assertEquals(0, fingerprint(root, "p", new Object[] { new int[0] }));
+    }
+
+    public void test4()
+    {
+        SimpleSourceFile root = new SimpleSourceFile(null, "root", null,
+            new SimpleModelManager());
+        class Body1
+            extends SourceElementBody
+        {
+            @Override
+            protected boolean isPropertyChanged(String propertyName,
+                Object newValue, Object oldValue)
+            {
+                return true;
+            }
+        }
+        class Body2
+            extends Body1
+        {
+        }
+        class Body3
+            extends Body2
+        {
+            @Override
+            protected boolean isFingerprintSupported()
+            {
+                return true;
+            }
+        }
+        Map<IElement, Object> newElements = new HashMap<>();
+        for (SourceElementBody body : new SourceElementBody[] { new Body1(),
+            new Body2() })
+        {
+            newElements.put(root, body);
+            assertEquals(0, body.computeFingerprint(newElements));
+        }
+        SourceElementBody body3 = new Body3();
+        newElements.put(root, body3);
+        assertTrue(body3.computeFingerprint(newElements) != 0);
+    }
+
+    private static long fingerprint(IElement root, String name, Object value)
+    {
+        SourceElementBody rootBody = new SourceElementBody();
+        rootBody.set(Property.get(name, Object.class), value);
+        return rootBody.computeFingerprint(Collections.singletonMap(root,
+            rootBody));
+    }
+
+    private static long fingerprint(IElement root, IElement child,
+        int rootOffset, int childOffset, String value)
+    {
+        SourceElementBody rootBody = new SourceElementBody();
+        rootBody.setFullRange(new TextRange(rootOffset, 100));
+        rootBody.setChildren(new IElement[] { child });
+        SourceElementBody childBody = new SourceElementBody();
+        childBody.setFullRange(new TextRange(childOffset, 10));
+        childBody.set(Property.get("p", String.class), value);
+        Map<IElement, Object> newElements = new HashMap<>();
+        newElements.put(root, rootBody);
+        newElements.put(child, childBody);
+        long fingerprint = rootBody.computeFingerprint(newElements);
+        assertEquals(fingerprint, rootBody.getFingerprint());
+        return fingerprint;
+    }
 }
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.model.IElementHandleFactory;
+import org.eclipse.handly.util.Property;
+import org.eclipse.handly.util.TextRange;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>StructureStore</code> tests.
+ */
+public class StructureStoreTest
+    extends TestCase
+{
+    private static final Property<String> P_STRING = Property.get("s",
+        String.class);
+    private static final Property<Integer> P_INT = Property.get("i",
+        Integer.class);
+    private static final Property<String[]> P_STRINGS = Property.get("a",
+        String[].class);
+
+    private Path location;
+    private IElementHandleFactory handleFactory;
+    private StructureStore store;
+    private TestFile file;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        location = Files.createTempDirectory("structureStore");
+        SimpleModelManager manager = new SimpleModelManager();
+        file = new TestFile(manager);
+        handleFactory = new IElementHandleFactory()
+        {
+            @Override
+            public IElement createFromHandleMemento(String memento)
+            {
+                String[] segments = memento.split("/");
+                if (!segments[0].equals("f"))
+                    return null;
+                IElement result = file;
+                for (int i = 1; i < segments.length; i++)
+                {
+                    String[] parts = segments[i].split("!");
+                    TestConstruct child = new TestConstruct(
+                        (IElementImplSupport)result, parts[0]);
+                    child.setOccurrenceCount_(Integer.parseInt(parts[1]));
+                    result = child;
+                }
+                return result;
+            }
+
+            @Override
+            public IElement createFromResourceHandle(IResource resource)
+            {
+                return null;
+            }
+        };
+        store = new StructureStore(location, handleFactory, 1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        store.clear();
+        Files.deleteIfExists(location);
+        super.tearDown();
+    }
+
+    public void test1()
+    {
+        Map<IElement, Object> built = buildStructure();
+        store.save(file, "source", built);
+
+        Map<IElement, Object> loaded = new HashMap<>();
+        assertTrue(store.load(file, "source", loaded));
+        assertEquals(built.keySet(), loaded.keySet());
+
+        SourceElementBody fileBody = (SourceElementBody)loaded.get(file);
+        assertEquals(new TextRange(0, 6), fileBody.getFullRange());
+        assertNull(fileBody.getIdentifyingRange());
+        assertEquals(2, fileBody.getChildren().length);
+
+        TestConstruct a = new TestConstruct(file, "A");
+        TestConstruct a2 = new TestConstruct(file, "A");
+        a2.setOccurrenceCount_(2);
+        assertEquals(a, fileBody.getChildren()[0]);
+        assertEquals(a2, fileBody.getChildren()[1]);
+
+        SourceElementBody aBody = (SourceElementBody)loaded.get(a);
+        assertEquals(new TextRange(0, 3), aBody.getFullRange());
+        assertEquals(new TextRange(1, 1), aBody.getIdentifyingRange());
+        assertEquals("value", aBody.get(P_STRING));
+        assertEquals(Integer.valueOf(42), aBody.get(P_INT));
+        assertNull(aBody.get(P_STRINGS));
+
+        SourceElementBody a2Body = (SourceElementBody)loaded.get(a2);
+        assertEquals(1, a2Body.getChildren().length);
+        assertEquals(new TestConstruct(a2, "B"), a2Body.getChildren()[0]);
+        String[] strings = a2Body.get(P_STRINGS);
+        assertEquals(2, strings.length);
+        assertEquals("x", strings[0]);
+        assertNull(strings[1]);
+    }
+
+    public void test2()
+    {
+        store.save(file, "source", buildStructure());
+        Map<IElement, Object> loaded = new HashMap<>();
+        assertFalse(store.load(file, "sourcf", loaded)); // content changed
+        assertFalse(store.load(file, "source2", loaded));
+        assertTrue(loaded.isEmpty());
+
+        StructureStore store2 = new StructureStore(location, handleFactory,
+            2);
+        assertFalse(store2.load(file, "source", loaded)); // version changed
+        assertTrue(loaded.isEmpty());
+
+        store.remove(file);
+        assertFalse(store.load(file, "source", loaded));
+        assertTrue(loaded.isEmpty());
+    }
+
+    public void test3() throws IOException
+    {
+        Map<IElement, Object> built = buildStructure();
+        ((SourceElementBody)built.get(file)).set(Property.get("o",
+            Object.class), new Object());
+        store.save(file, "source", built); // not storable
+        assertFalse(store.load(file, "source", new HashMap<>()));
+        try (Stream<Path> files = Files.list(location))
+        {
+            assertEquals(0, files.count());
+        }
+    }
+
+    public void test4()
+    {
+        char[] chars = new char[70000];
+        Arrays.fill(chars, '\u044f'); // two bytes in UTF-8
+        String longString = new String(chars);
+        Map<IElement, Object> built = buildStructure();
+        ((SourceElementBody)built.get(file)).set(P_STRING, longString);
+        store.save(file, "source", built);
+        Map<IElement, Object> loaded = new HashMap<>();
+        assertTrue(store.load(file, "source", loaded));
+        assertEquals(longString, ((SourceElementBody)loaded.get(file)).get(
+            P_STRING));
+    }
+
+    public void test5() throws IOException
+    {
+        store.save(file, "source", buildStructure());
+        store.flush();
+        Files.write(location.resolve("corrupt.structure"), new byte[] { 1 });
+        Path tempFile = Files.createFile(location.resolve("recent.tmp"));
+        StructureStore store2 = new StructureStore(location, handleFactory,
+            2);
+        store2.prune(null); // the structure has been stored with version 1
+        assertFalse(store.load(file, "source", new HashMap<>()));
+        assertTrue(Files.exists(tempFile));
+
+        store.save(file, "source", buildStructure());
+        store.flush();
+        store.prune(null);
+        assertTrue(store.load(file, "source", new HashMap<>()));
+        assertTrue(Files.exists(tempFile));
+
+        file.exists = false; // e.g., deleted while the model was not active
+        store.prune(null);
+        assertFalse(store.load(file, "source", new HashMap<>()));
+        try (Stream<Path> files = Files.list(location))
+        {
+            assertEquals(1, files.count()); // the recent temporary file
+        }
+    }
+
+    public void test6() throws IOException
+    {
+        store.save(file, "source", buildStructure());
+        // can be loaded whether or not the store file has been written
+        assertTrue(store.load(file, "source", new HashMap<>()));
+        store.flush();
+        StructureStore store2 = new StructureStore(location, handleFactory,
+            1);
+        assertTrue(store2.load(file, "source", new HashMap<>()));
+
+        store.save(file, "source2", buildStructure());
+        store.remove(file); // discards the pending write, if any
+        store.flush();
+        assertFalse(store.load(file, "source2", new HashMap<>()));
+        try (Stream<Path> files = Files.list(location))
+        {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private Map<IElement, Object> buildStructure()
+    {
+        Map<IElement, Object> newElements = new HashMap<>();
+        SourceElementBody fileBody = new SourceElementBody();
+        fileBody.setFullRange(new TextRange(0, 6));
+        newElements.put(file, fileBody);
+
+        TestConstruct a = new TestConstruct(file, "A");
+        SourceElementBody aBody = new SourceElementBody();
+        aBody.setFullRange(new TextRange(0, 3));
+        aBody.setIdentifyingRange(new TextRange(1, 1));
+        aBody.set(P_STRING, "value");
+        aBody.set(P_INT, 42);
+        fileBody.addChild(a);
+        newElements.put(a, aBody);
+
+        TestConstruct a2 = new TestConstruct(file, "A");
+        a2.setOccurrenceCount_(2);
+        SourceElementBody a2Body = new SourceElementBody();
+        a2Body.set(P_STRINGS, new String[] { "x", null });
+        fileBody.addChild(a2);
+        newElements.put(a2, a2Body);
+
+        TestConstruct b = new TestConstruct(a2, "B");
+        a2Body.addChild(b);
+        newElements.put(b, new SourceElementBody());
+        return newElements;
+    }
+
+    private static class TestFile
+        extends SimpleSourceFile
+    {
+        boolean exists = true;
+
+        TestFile(IModelManager manager)
+        {
+            super(null, "f", null, manager);
+        }
+
+        @Override
+        public boolean exists_()
+        {
+            return exists;
+        }
+
+        @Override
+        public String getHandleMemento_()
+        {
+            return getName_();
+        }
+    }
+
+    private static class TestConstruct
+        extends SimpleSourceConstruct
+    {
+        TestConstruct(IElementImplSupport parent, String name)
+        {
+            super(parent, name);
+        }
+
+        @Override
+        public String getHandleMemento_()
+        {
+            return ((IElementImplSupport)getParent_()).getHandleMemento_()
+                + '/' + getName_() + '!' + getOccurrenceCount_();
+        }
+    }
+}
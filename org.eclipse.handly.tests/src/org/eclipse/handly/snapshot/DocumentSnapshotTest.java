@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.snapshot;
+
+import org.eclipse.jface.text.Document;
+
+import com.google.common.base.Strings;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>DocumentSnapshot</code> tests.
+ */
+public class DocumentSnapshotTest
+    extends TestCase
+{
+    private Document document;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++)
+            sb.append(Strings.padStart(String.valueOf(i), 4, '0'));
+        document = new Document(sb.toString());
+    }
+
+    public void test1() throws Exception
+    {
+        DocumentSnapshot snapshot1 = new DocumentSnapshot(document);
+        DocumentSnapshot snapshot2 = new DocumentSnapshot(document);
+        String contents = snapshot1.getContents();
+        assertEquals(document.get(), contents);
+        // the contents are shared by the snapshots of the same version
+        assertSame(contents, snapshot1.getContents());
+        assertSame(contents, snapshot2.getContents());
+        assertSame(contents, snapshot2.getCharSequence());
+
+        document.replace(0, 1, "x");
+        assertNull(snapshot1.getContents());
+        assertNull(snapshot1.getCharSequence());
+        DocumentSnapshot snapshot3 = new DocumentSnapshot(document);
+        assertEquals(document.get(), snapshot3.getContents());
+    }
+
+    public void test2()
+    {
+        DocumentSnapshot snapshot = new DocumentSnapshot(document);
+        CharSequence cs = snapshot.getCharSequence();
+        assertNotSame(String.class, cs.getClass());
+        String expected = document.get();
+        assertEquals(expected.length(), cs.length());
+        for (int i = 0; i < cs.length(); i++)
+            assertEquals(expected.charAt(i), cs.charAt(i));
+        for (int i = cs.length() - 1; i >= 0; i -= 997)
+            assertEquals(expected.charAt(i), cs.charAt(i));
+        assertEquals(expected, cs.toString());
+
+        CharSequence sub = cs.subSequence(4095, 8200);
+        assertEquals(expected.substring(4095, 8200), sub.toString());
+        assertEquals(expected.charAt(4096), sub.charAt(1));
+        assertEquals(expected.substring(4100, 4200), sub.subSequence(5,
+            105).toString());
+
+        try
+        {
+            cs.charAt(cs.length());
+            fail();
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+        }
+    }
+
+    public void test3() throws Exception
+    {
+        DocumentSnapshot snapshot = new DocumentSnapshot(document);
+        CharSequence cs = snapshot.getCharSequence();
+        cs.charAt(0);
+        document.replace(0, 1, "x");
+        try
+        {
+            cs.charAt(5000);
+            fail();
+        }
+        catch (StaleSnapshotException e)
+        {
+        }
+        try
+        {
+            cs.toString();
+            fail();
+        }
+        catch (StaleSnapshotException e)
+        {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.snapshot;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>FileContentsCache</code> tests.
+ */
+public class FileContentsCacheTest
+    extends TestCase
+{
+    private FileContentsCache cache = new FileContentsCache(80);
+
+    public void test1()
+    {
+        cache.put("a", 1, "UTF-8", "hello");
+        assertEquals("hello", cache.get("a", 1, "UTF-8"));
+        assertNull(cache.get("a", 2, "UTF-8"));
+        assertNull(cache.get("a", 1, "UTF-16"));
+        assertNull(cache.get("a", 1, null));
+        assertNull(cache.get("b", 1, "UTF-8"));
+
+        cache.put("a", 2, null, "hello!"); // replaces the other version
+        assertNull(cache.get("a", 1, "UTF-8"));
+        assertEquals("hello!", cache.get("a", 2, null));
+        assertEquals(6, cache.totalLength());
+
+        cache.remove("a");
+        assertNull(cache.get("a", 2, null));
+        assertEquals(0, cache.totalLength());
+    }
+
+    public void test2()
+    {
+        for (int i = 0; i < 10; i++)
+            cache.put(i, 1, null, "0123456789");
+        assertEquals(80, cache.totalLength());
+        assertNull(cache.get(0, 1, null));
+        assertNull(cache.get(1, 1, null));
+        assertNotNull(cache.get(2, 1, null)); // now the MRU entry
+
+        cache.put(10, 1, null, "0123456789");
+        assertNotNull(cache.get(2, 1, null));
+        assertNull(cache.get(3, 1, null));
+        assertEquals(80, cache.totalLength());
+
+        cache.put(11, 1, null, "01234567890"); // too long to be cached
+        assertNull(cache.get(11, 1, null));
+        assertEquals(80, cache.totalLength());
+
+        cache.clear();
+        assertEquals(0, cache.totalLength());
+        assertNull(cache.get(2, 1, null));
+    }
+}
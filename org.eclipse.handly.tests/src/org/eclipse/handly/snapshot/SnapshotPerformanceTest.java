@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.snapshot;
+
+import org.eclipse.handly.snapshot.SnapshotTest.StringSnapshot;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>Snapshot</code> equality tests on multi-megabyte contents
+ * that can be useful for assessing the performance of content digests.
+ */
+public class SnapshotPerformanceTest
+    extends TestCase
+{
+    private static final int SIZE = 4 * 1024 * 1024;
+    private static final int ROUNDS = 100;
+
+    private StringSnapshot base;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        base = new StringSnapshot(contents('x'));
+    }
+
+    public void testUnequalSnapshotsPerformance()
+    {
+        // a change at the very end of the contents
+        StringSnapshot other = new StringSnapshot(contents('y'));
+        for (int i = 0; i < ROUNDS; i++)
+            assertFalse(base.isEqualTo(other));
+        assertEquals(1, base.getContentsCount);
+        assertEquals(1, other.getContentsCount);
+    }
+
+    public void testEqualSnapshotsPerformance()
+    {
+        StringSnapshot other = new StringSnapshot(contents('x'));
+        for (int i = 0; i < ROUNDS; i++)
+            assertTrue(base.isEqualTo(other));
+    }
+
+    private static String contents(char last)
+    {
+        char[] chars = new char[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            chars[i] = (char)('a' + i % 26);
+        chars[SIZE - 1] = last;
+        return new String(chars);
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.snapshot;
+
+import junit.framework.TestCase;
+
+/**
+ * <code>Snapshot</code> tests.
+ */
+public class SnapshotTest
+    extends TestCase
+{
+    public void test1()
+    {
+        StringSnapshot s1 = new StringSnapshot("abcdefghij");
+        StringSnapshot s2 = new StringSnapshot(new String("abcdefghij"));
+        StringSnapshot s3 = new StringSnapshot("abcdefghiJ");
+        StringSnapshot s4 = new StringSnapshot("abcdefghi");
+        assertTrue(s1.isEqualTo(s1));
+        assertTrue(s1.isEqualTo(s2));
+        assertTrue(s2.isEqualTo(s1));
+        assertFalse(s1.isEqualTo(s3));
+        assertFalse(s3.isEqualTo(s1));
+        assertFalse(s1.isEqualTo(s4));
+        assertFalse(s4.isEqualTo(s1));
+        assertFalse(s1.isEqualTo(null));
+        assertTrue(new StringSnapshot("").isEqualTo(new StringSnapshot("")));
+    }
+
+    public void test2()
+    {
+        StringSnapshot s1 = new StringSnapshot("abc");
+        StringSnapshot s2 = new StringSnapshot("abc");
+        assertTrue(s1.isEqualTo(s2)); // digests are cached now
+        s1.contents = null; // expired
+        assertFalse(s1.isEqualTo(s2));
+        assertFalse(s2.isEqualTo(s1));
+        s1.contents = "abc"; // valid again
+        assertTrue(s1.isEqualTo(s2));
+    }
+
+    public void test3()
+    {
+        StringSnapshot s1 = new StringSnapshot("abc");
+        StringSnapshot s2 = new StringSnapshot("abd");
+        s1.contents = null;
+        assertFalse(s1.isEqualTo(s2));
+        assertFalse(s2.isEqualTo(s1));
+        s1.contents = "abd";
+        assertTrue(s1.isEqualTo(s2));
+    }
+
+    static class StringSnapshot
+        extends Snapshot
+    {
+        volatile String contents;
+        int getContentsCount;
+
+        StringSnapshot(String contents)
+        {
+            this.contents = contents;
+        }
+
+        @Override
+        public String getContents()
+        {
+            getContentsCount++;
+            return contents;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2022 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -13,6 +13,7 @@
 package org.eclipse.handly.snapshot;
 
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
@@ -49,4 +50,14 @@ public class TextFileStoreSnapshotTest
         fileStore.putInfo(info, EFS.SET_LAST_MODIFIED, null);
         assertNull(snapshot.getContents());
     }
+
+    public void test2() throws Exception
+    {
+        // UTF-8 BOM is not part of the contents
+        Files.write(fileStore.toLocalFile(EFS.NONE, null).toPath(),
+            new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF, 'h', 'i' });
+        assertEquals("hi", new TextFileStoreSnapshot(fileStore, Charset.forName(
+            "UTF-8")).getContents());
+        assertEquals("hi", new TextFileStoreSnapshot(fileStore).getContents());
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -15,6 +15,8 @@ package org.eclipse.handly.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 
+import org.eclipse.handly.util.BoundedLruCache.EvictionPolicy;
+
 import junit.framework.TestCase;
 
 /**
@@ -104,5 +106,124 @@ public class BoundedLruCacheTest
         catch (IllegalArgumentException e)
         {
         }
+        try
+        {
+            new BoundedLruCache<>(1, null);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    public void test4()
+    {
+        BoundedLruCache<String, Integer> lru = new BoundedLruCache<>(10);
+        BoundedLruCache<String, Integer> scanResistant = new BoundedLruCache<>(
+            10, EvictionPolicy.SCAN_RESISTANT);
+        assertEquals(EvictionPolicy.LRU, lru.getEvictionPolicy());
+        assertEquals(EvictionPolicy.SCAN_RESISTANT,
+            scanResistant.getEvictionPolicy());
+        for (BoundedLruCache<String, Integer> cache : Arrays.asList(lru,
+            scanResistant))
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                cache.put("h" + i, i);
+                cache.get("h" + i);
+            }
+            for (int i = 0; i < 100; i++)
+                cache.put("s" + i, i); // scan
+            assertEquals(10, cache.size());
+        }
+        for (int i = 0; i < 5; i++)
+        {
+            assertNull(lru.peek("h" + i));
+            assertEquals(i, scanResistant.peek("h" + i).intValue());
+        }
+        assertEquals(Arrays.asList("h4", "h3", "h2", "h1", "h0"),
+            new ArrayList<>(scanResistant.snapshot().keySet()).subList(5, 10));
+    }
+
+    public void test5()
+    {
+        BoundedLruCache<String, Integer> cache =
+            new BoundedLruCache<String, Integer>(2,
+                EvictionPolicy.SCAN_RESISTANT)
+            {
+                @Override
+                protected void evict(Entry<String, Integer> entry)
+                {
+                    if (entry.key.equals("e"))
+                        clear();
+                    else if (entry.value.intValue() != 777)
+                        super.evict(entry);
+                }
+            };
+
+        cache.put("a", 777);
+        cache.put("b", 1);
+        cache.put("c", 2);
+        assertEquals(2, cache.size());
+        assertEquals(Arrays.asList("c", "a"), new ArrayList<>(
+            cache.snapshot().keySet()));
+
+        cache.get("a"); // promote to the protected segment
+        cache.put("d", 777);
+        cache.put("e", 3);
+        assertEquals(3, cache.size());
+        assertEquals(Arrays.asList("e", "d", "a"), new ArrayList<>(
+            cache.snapshot().keySet()));
+
+        cache.setMaxSize(2);
+        assertTrue(cache.isEmpty());
+
+        cache.put("f", 4);
+        assertEquals(4, cache.get("f").intValue());
+    }
+
+    public void test6()
+    {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(4,
+            EvictionPolicy.SCAN_RESISTANT);
+        cache.put("a", 1);
+        for (int i = 0; i < 5; i++)
+            cache.get("a");
+        cache.remove("a");
+        cache.put("a", 1); // frequently used in the past: admitted as protected
+        for (int i = 0; i < 10; i++)
+            cache.put("s" + i, i);
+        assertEquals(1, cache.peek("a").intValue());
+    }
+
+    public void test7()
+    {
+        for (EvictionPolicy evictionPolicy : EvictionPolicy.values())
+        {
+            int[] evictCount = new int[1];
+            BoundedLruCache<Integer, Integer> cache =
+                new BoundedLruCache<Integer, Integer>(10, evictionPolicy)
+                {
+                    @Override
+                    protected void evict(Entry<Integer, Integer> entry)
+                    {
+                        evictCount[0]++;
+                        if (entry.value.intValue() % 2 == 0)
+                            super.evict(entry); // odd values are pinned
+                    }
+                };
+            int n = 100000;
+            for (int i = 0; i < n; i++)
+                cache.put(i, i);
+            assertEquals(n / 2, cache.size());
+            // each entry is attempted a constant number of times on average
+            assertTrue(evictCount[0] < 4 * n);
+
+            // an access gives a pinned entry another chance
+            cache.put(1, 2);
+            cache.setMaxSize(cache.size() - 1);
+            assertNull(cache.peek(1));
+            assertEquals(n / 2 - 1, cache.size());
+        }
     }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2020 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -47,6 +47,7 @@ public class Buffer
     private volatile long synchronizationStamp;
     private final ListenerList<IBufferListener> listeners =
         new ListenerList<>();
+    private volatile BufferChangeJournal changeJournal;
 
     /**
      * Creates a new buffer instance that is initially empty.
@@ -153,6 +154,30 @@ public class Buffer
         listeners.remove(listener);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates the journal when it is first requested,
+     * and keeps it for the lifetime of this buffer.
+     * </p>
+     *
+     * @since 1.8
+     */
+    @Override
+    public BufferChangeJournal getChangeJournal()
+    {
+        BufferChangeJournal result = changeJournal;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                if ((result = changeJournal) == null)
+                    changeJournal = result = new BufferChangeJournal(document);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void addRef()
     {
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import static org.eclipse.handly.context.Contexts.EMPTY_CONTEXT;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.handly.buffer.BufferChangeOperation.UndoChange;
+import org.eclipse.handly.internal.Activator;
+import org.eclipse.handly.internal.ParallelRunner;
+import org.eclipse.handly.snapshot.ISnapshot;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Applies changes to a number of buffers as a single unit.
+ * <p>
+ * Compared to applying each change with {@link IBuffer#applyChange(
+ * IBufferChange, IProgressMonitor)}, a batch
+ * </p>
+ * <ul>
+ * <li>
+ * applies changes to different buffers in parallel, except for buffers
+ * that must be changed in a specific thread (such as text file buffers that
+ * request a synchronization context), which are changed in the calling thread;
+ * </li>
+ * <li>
+ * defers saving buffers until all of the changes have been applied, and saves
+ * each buffer at most once. A buffer is saved if, according to the {@link
+ * IBufferChange#getSaveMode() save modes} of its changes, it would be saved
+ * after applying the changes one by one;
+ * </li>
+ * <li>
+ * reverts the changes that have already been applied if any change could not
+ * be applied, so that either all or none of the changes are applied;
+ * </li>
+ * <li>
+ * returns a single batch of undo changes.
+ * </li>
+ * </ul>
+ * <p>
+ * Changes to buffers sharing the same document are applied sequentially,
+ * in the order they have been added to the batch.
+ * </p>
+ * <p>
+ * To avoid separate resource change notifications for each saved buffer,
+ * clients may apply a batch inside a workspace operation.
+ * </p>
+ * <p>
+ * An instance of this class is not safe for use by multiple threads.
+ * </p>
+ *
+ * @since 1.8
+ */
+public final class BufferChangeBatch
+{
+    private final List<Entry> entries = new ArrayList<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Adds a change to be applied to the given buffer. The batch does not
+     * take ownership of the buffer; the client is responsible for keeping
+     * the buffer open until the batch has been applied.
+     *
+     * @param buffer not <code>null</code>
+     * @param change not <code>null</code>
+     */
+    public void add(IBuffer buffer, IBufferChange change)
+    {
+        if (buffer == null)
+            throw new IllegalArgumentException();
+        if (change == null)
+            throw new IllegalArgumentException();
+        entries.add(new Entry(buffer, change));
+    }
+
+    /**
+     * Returns the number of changes in this batch.
+     *
+     * @return the number of changes
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Sets the maximum number of threads that may be used to apply changes
+     * in parallel, including the calling thread. The other threads are taken
+     * from a pool shared by the process, which is bounded by the number of
+     * available processors. Default value: the number of processors available
+     * to the Java virtual machine.
+     *
+     * @param parallelism a positive number
+     */
+    public void setParallelism(int parallelism)
+    {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Applies the changes in this batch.
+     * <p>
+     * Note that an update conflict may occur if a buffer's contents have
+     * changed since the inception of the snapshot on which a change is based.
+     * In that case, none of the changes are applied and a {@link
+     * org.eclipse.handly.snapshot.StaleSnapshotException
+     * StaleSnapshotException} is thrown.
+     * </p>
+     *
+     * @param monitor a progress monitor, or <code>null</code>
+     *  if progress reporting is not desired. The caller must not rely on
+     *  {@link IProgressMonitor#done()} having been called by the receiver
+     * @return a batch of the undo changes in the reverse order, or
+     *  <code>null</code> if none of the changes requested an undo change
+     * @throws CoreException if a change could not be applied,
+     *  or a buffer could not be saved
+     * @throws OperationCanceledException if this method is canceled
+     */
+    public BufferChangeBatch apply(IProgressMonitor monitor)
+        throws CoreException
+    {
+        List<Group> groups = new ArrayList<>();
+        Map<IDocument, Group> groupByDocument = new IdentityHashMap<>();
+        for (Entry entry : entries)
+        {
+            Group group = groupByDocument.get(entry.buffer.getDocument());
+            if (group == null)
+            {
+                group = new Group();
+                groups.add(group);
+                groupByDocument.put(entry.buffer.getDocument(), group);
+            }
+            group.entries.add(entry);
+        }
+        List<Group> parallelGroups = new ArrayList<>();
+        List<Group> callerGroups = new ArrayList<>();
+        for (Group group : groups)
+        {
+            if (group.canApplyInAnyThread())
+                parallelGroups.add(group);
+            else
+                callerGroups.add(group);
+        }
+
+        SubMonitor subMonitor = SubMonitor.convert(monitor, groups.size() * 2);
+        boolean success = false;
+        try
+        {
+            if (parallelism > 1 && parallelGroups.size() > 1)
+            {
+                applyInParallel(parallelGroups, subMonitor);
+            }
+            else
+            {
+                for (Group group : parallelGroups)
+                    group.apply(subMonitor.split(1));
+            }
+            for (Group group : callerGroups)
+                group.apply(subMonitor.split(1));
+            success = true;
+        }
+        finally
+        {
+            if (!success)
+            {
+                for (int i = groups.size() - 1; i >= 0; i--)
+                    groups.get(i).revert();
+            }
+        }
+
+        CoreException exception = null;
+        for (Group group : groups)
+        {
+            IBuffer buffer = group.getBufferToSave();
+            if (buffer == null)
+            {
+                subMonitor.worked(1);
+                continue;
+            }
+            try
+            {
+                buffer.save(EMPTY_CONTEXT, subMonitor.split(1));
+            }
+            catch (CoreException e)
+            {
+                if (exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+        if (exception != null)
+            throw exception;
+
+        BufferChangeBatch undoBatch = new BufferChangeBatch();
+        undoBatch.parallelism = parallelism;
+        for (int i = groups.size() - 1; i >= 0; i--)
+            groups.get(i).addUndoChanges(undoBatch);
+        return undoBatch.entries.isEmpty() ? null : undoBatch;
+    }
+
+    private void applyInParallel(List<Group> groups, SubMonitor subMonitor)
+        throws CoreException
+    {
+        // returns after all of the task runs have completed, so the groups
+        // can be reverted by the caller if needed
+        List<Throwable> failures = ParallelRunner.run(groups, parallelism,
+            (group, monitor) -> group.apply(monitor), true, subMonitor);
+        if (failures.isEmpty())
+            return;
+        Throwable exception = failures.get(0);
+        for (int i = 1; i < failures.size(); i++)
+            exception.addSuppressed(failures.get(i));
+        if (exception instanceof CoreException)
+            throw (CoreException)exception;
+        else if (exception instanceof RuntimeException)
+            throw (RuntimeException)exception;
+        else if (exception instanceof Error)
+            throw (Error)exception;
+        else
+            throw new AssertionError(exception);
+    }
+
+    private static class Entry
+    {
+        final IBuffer buffer;
+        final IBufferChange change;
+        IBufferChange undoChange;
+
+        Entry(IBuffer buffer, IBufferChange change)
+        {
+            this.buffer = buffer;
+            this.change = change;
+        }
+
+        /*
+         * Returns a change that is equivalent to the change of this entry,
+         * but always creates an undo change (so that the change can be
+         * reverted) and never saves the buffer (the saving is deferred).
+         */
+        IBufferChange deferSave()
+        {
+            if (change instanceof UndoChange)
+            {
+                // the undo change must remain an instance of UndoChange
+                // for the modification stamp of the document to be restored
+                UndoChange undoChange = (UndoChange)change;
+                UndoChange result = new UndoChange(undoChange.getEdit(),
+                    undoChange.stampToRestore);
+                result.setBase(undoChange.getBase());
+                result.setStyle(undoChange.getStyle()
+                    | IBufferChange.CREATE_UNDO);
+                result.setSaveMode(SaveMode.LEAVE_UNSAVED);
+                return result;
+            }
+            return new DeferredChange(change);
+        }
+    }
+
+    private static class Group
+    {
+        final List<Entry> entries = new ArrayList<>();
+        private boolean saved;
+        private int appliedCount;
+
+        boolean canApplyInAnyThread()
+        {
+            for (Entry entry : entries)
+            {
+                IBuffer buffer = entry.buffer;
+                if (buffer instanceof Buffer)
+                    continue;
+                if (buffer instanceof TextFileBuffer)
+                {
+                    ITextFileBuffer textFileBuffer = ((TextFileBuffer)buffer)
+                        .getCoreTextFileBufferProvider().getBuffer();
+                    if (textFileBuffer != null
+                        && !textFileBuffer.isSynchronizationContextRequested())
+                        continue;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        void apply(IProgressMonitor monitor) throws CoreException
+        {
+            saved = !entries.get(0).buffer.isDirty();
+            for (Entry entry : entries)
+            {
+                if (monitor.isCanceled())
+                    throw new OperationCanceledException();
+                entry.undoChange = entry.buffer.applyChange(entry.deferSave(),
+                    null);
+                appliedCount++;
+            }
+        }
+
+        void revert()
+        {
+            for (; appliedCount > 0; appliedCount--)
+            {
+                Entry entry = entries.get(appliedCount - 1);
+                if (entry.undoChange == null)
+                    continue;
+                try
+                {
+                    entry.buffer.applyChange(entry.undoChange, null);
+                }
+                catch (CoreException | RuntimeException e)
+                {
+                    Activator.logError(e);
+                }
+                entry.undoChange = null;
+            }
+        }
+
+        IBuffer getBufferToSave()
+        {
+            boolean save = false;
+            for (Entry entry : entries)
+            {
+                SaveMode saveMode = entry.change.getSaveMode();
+                if (saveMode == SaveMode.FORCE_SAVE)
+                    saved = save = true;
+                else if (saveMode == SaveMode.KEEP_SAVED_STATE)
+                    save |= saved;
+                else
+                    saved = save = false;
+            }
+            return save ? entries.get(entries.size() - 1).buffer : null;
+        }
+
+        void addUndoChanges(BufferChangeBatch undoBatch)
+        {
+            for (int i = entries.size() - 1; i >= 0; i--)
+            {
+                Entry entry = entries.get(i);
+                if (entry.undoChange == null || (entry.change.getStyle()
+                    & IBufferChange.CREATE_UNDO) == 0)
+                    continue;
+                if (entry.undoChange instanceof BufferChange)
+                {
+                    BufferChange undoChange = (BufferChange)entry.undoChange;
+                    undoChange.setStyle(entry.change.getStyle());
+                    undoChange.setSaveMode(entry.change.getSaveMode());
+                }
+                undoBatch.add(entry.buffer, entry.undoChange);
+            }
+        }
+    }
+
+    private static class DeferredChange
+        implements IBufferChange
+    {
+        private final IBufferChange change;
+
+        DeferredChange(IBufferChange change)
+        {
+            this.change = change;
+        }
+
+        @Override
+        public TextEdit getEdit()
+        {
+            return change.getEdit();
+        }
+
+        @Override
+        public boolean contains(TextEdit edit)
+        {
+            return change.contains(edit);
+        }
+
+        @Override
+        public ISnapshot getBase()
+        {
+            return change.getBase();
+        }
+
+        @Override
+        public int getStyle()
+        {
+            return change.getStyle() | CREATE_UNDO;
+        }
+
+        @Override
+        public SaveMode getSaveMode()
+        {
+            return SaveMode.LEAVE_UNSAVED;
+        }
+    }
+}
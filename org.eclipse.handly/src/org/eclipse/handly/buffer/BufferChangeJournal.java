@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+
+/**
+ * Records the text changes made to the document of a buffer, so that
+ * incremental consumers such as reconcilers and indexers can find out
+ * what has changed between two versions of the document instead of
+ * comparing the whole contents.
+ * <p>
+ * Versions of the document are identified by its {@link
+ * IDocumentExtension4#getModificationStamp() modification stamps}. A consumer
+ * remembers the modification stamp of the version it has processed, and later
+ * asks the journal for the {@link #getChanges(long, long) changes} leading
+ * from that version to the current one.
+ * </p>
+ * <p>
+ * The journal keeps a bounded number of the most recent changes. It does not
+ * keep the text of a change longer than a given limit; such a change is
+ * regarded as a <i>full change</i>. If the requested changes are no longer
+ * available or include a full change, <code>null</code> is returned, and the
+ * consumer has to treat the whole document as changed.
+ * </p>
+ * <p>
+ * An instance of this class is safe for use by multiple threads.
+ * </p>
+ *
+ * @see IBuffer#getChangeJournal()
+ * @since 1.8
+ */
+public final class BufferChangeJournal
+{
+    /**
+     * The default maximum number of the recorded changes.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The default maximum length of the text of a recorded change.
+     */
+    public static final int DEFAULT_MAX_TEXT_LENGTH = 64 * 1024;
+
+    private final IDocument document;
+    private final int maxTextLength;
+    private final Change[] ring;
+    private int head; // index of the oldest change
+    private int size;
+    private long stampBefore = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    private boolean disposed;
+    private final IDocumentListener listener = new IDocumentListener()
+    {
+        @Override
+        public void documentAboutToBeChanged(DocumentEvent event)
+        {
+            synchronized (BufferChangeJournal.this)
+            {
+                stampBefore = getModificationStamp();
+            }
+        }
+
+        @Override
+        public void documentChanged(DocumentEvent event)
+        {
+            record(event);
+        }
+    };
+
+    /**
+     * Creates a new journal with the default capacity and maximum text length,
+     * and starts recording the changes made to the given document.
+     *
+     * @param document must not be <code>null</code> and
+     *  must implement {@link IDocumentExtension4}
+     */
+    public BufferChangeJournal(IDocument document)
+    {
+        this(document, DEFAULT_CAPACITY, DEFAULT_MAX_TEXT_LENGTH);
+    }
+
+    /**
+     * Creates a new journal with the given capacity and maximum text length,
+     * and starts recording the changes made to the given document.
+     *
+     * @param document must not be <code>null</code> and
+     *  must implement {@link IDocumentExtension4}
+     * @param capacity the maximum number of the recorded changes (&gt; 0)
+     * @param maxTextLength the maximum length of the text of a recorded change
+     *  (&gt;= 0); a change with a longer text is recorded as a full change
+     */
+    public BufferChangeJournal(IDocument document, int capacity,
+        int maxTextLength)
+    {
+        if (!(document instanceof IDocumentExtension4))
+            throw new IllegalArgumentException();
+        if (capacity <= 0 || maxTextLength < 0)
+            throw new IllegalArgumentException();
+        this.document = document;
+        this.maxTextLength = maxTextLength;
+        this.ring = new Change[capacity];
+        document.addDocumentListener(listener);
+    }
+
+    /**
+     * Stops recording the changes and discards the recorded changes.
+     * Has no effect if the journal has already been disposed.
+     */
+    public void dispose()
+    {
+        synchronized (this)
+        {
+            if (disposed)
+                return;
+            disposed = true;
+            clear();
+        }
+        document.removeDocumentListener(listener);
+    }
+
+    /**
+     * Returns the modification stamp of the current version of the document.
+     *
+     * @return the current modification stamp
+     */
+    public long getModificationStamp()
+    {
+        return ((IDocumentExtension4)document).getModificationStamp();
+    }
+
+    /**
+     * Returns the changes that transform the version of the document with
+     * the given modification stamp into the version with the other given
+     * modification stamp, in the order they have been made. Each change is
+     * expressed in terms of the document as it was right before the change
+     * was made; so the changes are to be applied one after another.
+     *
+     * @param fromStamp the modification stamp of the original version
+     * @param toStamp the modification stamp of the resulting version
+     * @return the changes (possibly empty), or <code>null</code> if the changes
+     *  are not available, in which case the whole document is to be regarded
+     *  as changed
+     */
+    public synchronized List<Change> getChanges(long fromStamp, long toStamp)
+    {
+        if (disposed
+            || fromStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP
+            || toStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+            return null;
+        if (fromStamp == toStamp)
+            return Collections.emptyList();
+        // the same stamp may be reused, e.g. when a change is undone;
+        // the most recent chain of changes is the shortest one
+        for (int i = size - 1; i >= 0; i--)
+        {
+            if (at(i).stampBefore == fromStamp)
+            {
+                List<Change> result = getChanges(i, toStamp);
+                if (result != null)
+                    return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discards the recorded changes.
+     */
+    public synchronized void clear()
+    {
+        for (int i = 0; i < size; i++)
+            ring[(head + i) % ring.length] = null;
+        head = 0;
+        size = 0;
+    }
+
+    private synchronized void record(DocumentEvent event)
+    {
+        if (disposed)
+            return;
+        String text = event.getText();
+        if (text == null)
+            text = ""; //$NON-NLS-1$
+        if (text.length() > maxTextLength)
+            text = null; // full change
+        Change change = new Change(stampBefore, event.getModificationStamp(),
+            event.getOffset(), event.getLength(), text);
+        if (size < ring.length)
+            ring[(head + size++) % ring.length] = change;
+        else
+        {
+            ring[head] = change;
+            head = (head + 1) % ring.length;
+        }
+        stampBefore = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    }
+
+    private List<Change> getChanges(int start, long toStamp)
+    {
+        List<Change> result = new ArrayList<>();
+        for (int i = start; i < size; i++)
+        {
+            Change change = at(i);
+            if (i > start && change.stampBefore != at(i - 1).stampAfter)
+                return null; // some changes were not recorded
+            if (change.isFullChange())
+                return null;
+            result.add(change);
+            if (change.stampAfter == toStamp)
+                return result;
+        }
+        return null;
+    }
+
+    private Change at(int index)
+    {
+        return ring[(head + index) % ring.length];
+    }
+
+    /**
+     * Describes a recorded text change: a replacement of a region
+     * of the document with a text.
+     */
+    public static final class Change
+    {
+        private final long stampBefore, stampAfter;
+        private final int offset, length;
+        private final String text;
+
+        Change(long stampBefore, long stampAfter, int offset, int length,
+            String text)
+        {
+            this.stampBefore = stampBefore;
+            this.stampAfter = stampAfter;
+            this.offset = offset;
+            this.length = length;
+            this.text = text;
+        }
+
+        /**
+         * Returns the modification stamp of the document before the change.
+         *
+         * @return the modification stamp before the change
+         */
+        public long getStampBefore()
+        {
+            return stampBefore;
+        }
+
+        /**
+         * Returns the modification stamp of the document after the change.
+         *
+         * @return the modification stamp after the change
+         */
+        public long getStampAfter()
+        {
+            return stampAfter;
+        }
+
+        /**
+         * Returns the offset of the replaced region.
+         *
+         * @return the offset of the replaced region
+         */
+        public int getOffset()
+        {
+            return offset;
+        }
+
+        /**
+         * Returns the length of the replaced region.
+         *
+         * @return the length of the replaced region
+         */
+        public int getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Returns the text that replaced the region.
+         *
+         * @return the replacing text (never <code>null</code>)
+         */
+        public String getText()
+        {
+            return text;
+        }
+
+        boolean isFullChange()
+        {
+            return text == null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + offset + ", " + length + "] -> " + text; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+}
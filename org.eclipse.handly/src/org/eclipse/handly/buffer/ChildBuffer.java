@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 1C-Soft LLC.
+ * Copyright (c) 2015, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -19,7 +19,6 @@ import org.eclipse.handly.internal.Activator;
 import org.eclipse.handly.snapshot.ISnapshot;
 import org.eclipse.handly.snapshot.NonExpiringSnapshot;
 import org.eclipse.handly.snapshot.StaleSnapshotException;
-import org.eclipse.text.edits.ReplaceEdit;
 
 /**
  * A child buffer is created on top of a parent {@link IBuffer} and inherits
@@ -27,6 +26,12 @@ import org.eclipse.text.edits.ReplaceEdit;
  * child buffer propagates its contents to the parent buffer and also to the
  * parent buffer's underlying resource.
  * <p>
+ * When the child buffer is saved, only the parts of its contents that differ
+ * from the contents of the parent buffer are propagated to the parent buffer,
+ * so that positions and annotations in the unchanged parts of the parent's
+ * document are preserved.
+ * </p>
+ * <p>
  * An instance of this class is safe for use by multiple threads.
  * </p>
  */
@@ -84,8 +89,8 @@ public final class ChildBuffer
             String baseContents = base.getContents();
             if (baseContents == null)
                 throw new StaleSnapshotException();
-            BufferChange change = new BufferChange(new ReplaceEdit(0,
-                baseContents.length(), getDocument().get()));
+            BufferChange change = new BufferChange(TextDiff.computeEdit(
+                baseContents, getDocument().get()));
             change.setBase(base);
             IBufferChange undoChange = parent.applyChange(change, monitor);
             base = undoChange.getBase();
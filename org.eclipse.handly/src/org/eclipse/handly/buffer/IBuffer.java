@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -162,6 +162,30 @@ public interface IBuffer
     {
     }
 
+    /**
+     * Returns the change journal of this buffer, if any. The journal records
+     * the text changes made to the buffer's document, so that incremental
+     * consumers can find out what has changed between two versions of the
+     * document. The journal is owned by the buffer; clients must not dispose
+     * it.
+     * <p>
+     * A buffer may start recording the changes only when its journal is first
+     * requested. Also, the journal is no longer accessible after the buffer
+     * is disposed.
+     * </p>
+     * <p>
+     * This implementation returns <code>null</code>.
+     * </p>
+     *
+     * @return the buffer's change journal, or <code>null</code> if the buffer
+     *  does not support change journaling
+     * @since 1.8
+     */
+    default BufferChangeJournal getChangeJournal()
+    {
+        return null;
+    }
+
     @Override
     void addRef();
 
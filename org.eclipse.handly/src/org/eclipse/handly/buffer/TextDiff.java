@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Computes a small text edit that transforms one text into another.
+ * <p>
+ * The common prefix and suffix of the texts are never edited. If the
+ * remaining parts are short, they are replaced as a whole. Otherwise,
+ * they are compared line by line using the Myers difference algorithm,
+ * and each run of differing lines is replaced separately, after trimming
+ * its own common prefix and suffix. If the texts differ in too many lines,
+ * the remaining parts are again replaced as a whole.
+ * </p>
+ */
+final class TextDiff
+{
+    /**
+     * Changes whose total length does not exceed this value are not
+     * split into line-based hunks.
+     */
+    static final int SMALL_CHANGE_LENGTH = 1024;
+
+    /**
+     * The maximum number of inserted and deleted lines the line-based
+     * comparison is allowed to find; bounds its time and space.
+     */
+    static final int MAX_EDIT_DISTANCE = 512;
+
+    /**
+     * Returns a text edit that transforms the given old text into the given
+     * new text. The returned edit is an empty <code>MultiTextEdit</code> if
+     * the texts are equal, a <code>ReplaceEdit</code> if the texts differ
+     * in a single region, and a <code>MultiTextEdit</code> containing
+     * non-overlapping <code>ReplaceEdit</code>s otherwise.
+     *
+     * @param oldText not <code>null</code>
+     * @param newText not <code>null</code>
+     * @return the text edit (never <code>null</code>)
+     */
+    static TextEdit computeEdit(String oldText, String newText)
+    {
+        List<ReplaceEdit> edits = new ArrayList<>();
+        int oldEnd = oldText.length();
+        int newEnd = newText.length();
+        int prefix = commonPrefix(oldText, 0, oldEnd, newText, 0, newEnd);
+        int suffix = commonSuffix(oldText, prefix, oldEnd, newText, prefix,
+            newEnd);
+        oldEnd -= suffix;
+        newEnd -= suffix;
+        if (prefix < oldEnd || prefix < newEnd)
+        {
+            if ((oldEnd - prefix) + (newEnd - prefix) <= SMALL_CHANGE_LENGTH
+                || !diffLines(oldText, prefix, oldEnd, newText, prefix, newEnd,
+                    edits))
+            {
+                edits.clear();
+                edits.add(new ReplaceEdit(prefix, oldEnd - prefix,
+                    newText.substring(prefix, newEnd)));
+            }
+        }
+        if (edits.size() == 1)
+            return edits.get(0);
+        MultiTextEdit result = new MultiTextEdit();
+        for (ReplaceEdit edit : edits)
+            result.addChild(edit);
+        return result;
+    }
+
+    private static boolean diffLines(String oldText, int oldStart, int oldEnd,
+        String newText, int newStart, int newEnd, List<ReplaceEdit> edits)
+    {
+        Lines a = new Lines(oldText, oldStart, oldEnd);
+        Lines b = new Lines(newText, newStart, newEnd);
+        int n = a.count();
+        int m = b.count();
+        int limit = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = limit + 1;
+        int[] v = new int[2 * limit + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= limit; d++)
+        {
+            for (int k = -d; k <= d; k += 2)
+            {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k
+                    + 1]))
+                    x = v[offset + k + 1];
+                else
+                    x = v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.equals(x, b, y))
+                {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m)
+                {
+                    trace.add(Arrays.copyOfRange(v, offset - d, offset + d
+                        + 1));
+                    addHunks(trace, a, b, n, m, edits);
+                    return true;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        return false; // too many differences
+    }
+
+    private static void addHunks(List<int[]> trace, Lines a, Lines b, int n,
+        int m, List<ReplaceEdit> edits)
+    {
+        // walk back from (n, m), collecting the matching runs of lines
+        List<int[]> matches = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--)
+        {
+            int[] prev = trace.get(d - 1); // indexed by k + d - 1
+            int k = x - y;
+            int prevK;
+            if (k == -d || (k != d && prev[k - 1 + d - 1] < prev[k + 1 + d
+                - 1]))
+                prevK = k + 1;
+            else
+                prevK = k - 1;
+            int prevX = prev[prevK + d - 1];
+            int prevY = prevX - prevK;
+            int midX = (prevK == k + 1) ? prevX : prevX + 1;
+            int midY = midX - k;
+            if (midX < x)
+                matches.add(new int[] { midX, midY, x - midX });
+            x = prevX;
+            y = prevY;
+        }
+        if (x > 0)
+            matches.add(new int[] { 0, 0, x });
+
+        int oldLine = 0;
+        int newLine = 0;
+        for (int i = matches.size() - 1; i >= -1; i--)
+        {
+            int matchX = (i >= 0) ? matches.get(i)[0] : n;
+            int matchY = (i >= 0) ? matches.get(i)[1] : m;
+            if (oldLine < matchX || newLine < matchY)
+                addEdit(a.text, a.start(oldLine), a.start(matchX), b.text,
+                    b.start(newLine), b.start(matchY), edits);
+            if (i >= 0)
+            {
+                oldLine = matchX + matches.get(i)[2];
+                newLine = matchY + matches.get(i)[2];
+            }
+        }
+    }
+
+    private static void addEdit(String oldText, int oldStart, int oldEnd,
+        String newText, int newStart, int newEnd, List<ReplaceEdit> edits)
+    {
+        int prefix = commonPrefix(oldText, oldStart, oldEnd, newText,
+            newStart, newEnd);
+        oldStart += prefix;
+        newStart += prefix;
+        int suffix = commonSuffix(oldText, oldStart, oldEnd, newText,
+            newStart, newEnd);
+        oldEnd -= suffix;
+        newEnd -= suffix;
+        edits.add(new ReplaceEdit(oldStart, oldEnd - oldStart,
+            newText.substring(newStart, newEnd)));
+    }
+
+    private static int commonPrefix(String a, int aStart, int aEnd, String b,
+        int bStart, int bEnd)
+    {
+        int max = Math.min(aEnd - aStart, bEnd - bStart);
+        int i = 0;
+        while (i < max && a.charAt(aStart + i) == b.charAt(bStart + i))
+            i++;
+        return i;
+    }
+
+    private static int commonSuffix(String a, int aStart, int aEnd, String b,
+        int bStart, int bEnd)
+    {
+        int max = Math.min(aEnd - aStart, bEnd - bStart);
+        int i = 0;
+        while (i < max && a.charAt(aEnd - 1 - i) == b.charAt(bEnd - 1 - i))
+            i++;
+        return i;
+    }
+
+    private TextDiff()
+    {
+    }
+
+    /**
+     * The lines of a region of a text. A line includes its terminating
+     * '\n', if any.
+     */
+    private static class Lines
+    {
+        final String text;
+        private final int[] starts; // with the region end as the last element
+        private final int[] hashes;
+
+        Lines(String text, int start, int end)
+        {
+            this.text = text;
+            int count = 0;
+            for (int i = start; i < end; i++)
+            {
+                if (text.charAt(i) == '\n')
+                    count++;
+            }
+            if (end > start && text.charAt(end - 1) != '\n')
+                count++; // the last line is not terminated
+            starts = new int[count + 1];
+            hashes = new int[count];
+            int line = 0;
+            int h = 0;
+            starts[0] = start;
+            for (int i = start; i < end; i++)
+            {
+                char c = text.charAt(i);
+                h = 31 * h + c;
+                if (c == '\n' || i == end - 1)
+                {
+                    hashes[line] = h;
+                    starts[++line] = i + 1;
+                    h = 0;
+                }
+            }
+        }
+
+        int count()
+        {
+            return hashes.length;
+        }
+
+        int start(int line)
+        {
+            return starts[line];
+        }
+
+        boolean equals(int line, Lines other, int otherLine)
+        {
+            if (hashes[line] != other.hashes[otherLine])
+                return false;
+            int length = starts[line + 1] - starts[line];
+            if (length != other.starts[otherLine + 1] - other.starts[otherLine])
+                return false;
+            return text.regionMatches(starts[line], other.text,
+                other.starts[otherLine], length);
+        }
+    }
+}
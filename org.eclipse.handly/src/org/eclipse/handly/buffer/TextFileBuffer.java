@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -14,6 +14,9 @@ package org.eclipse.handly.buffer;
 
 import static org.eclipse.handly.buffer.IBufferListener.BUFFER_SAVED;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 import org.eclipse.core.filebuffers.IFileBuffer;
 import org.eclipse.core.filebuffers.ITextFileBuffer;
 import org.eclipse.core.filebuffers.ITextFileBufferManager;
@@ -51,11 +54,19 @@ import org.eclipse.text.edits.MalformedTreeException;
 public final class TextFileBuffer
     implements IBuffer
 {
+    private static final AtomicReferenceFieldUpdater<TextFileBuffer,
+        ICoreTextFileBufferProvider> PROVIDER_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(TextFileBuffer.class,
+                ICoreTextFileBufferProvider.class,
+                "coreTextFileBufferProvider"); //$NON-NLS-1$
+
     private final Object location;
-    private ICoreTextFileBufferProvider coreTextFileBufferProvider;
-    private int refCount = 1;
-    private ListenerList<IBufferListener> listeners;
-    private FileBufferListener fileBufferListener;
+    // set to null exactly once, when the buffer is disconnected
+    private volatile ICoreTextFileBufferProvider coreTextFileBufferProvider;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private volatile ListenerList<IBufferListener> listeners;
+    private FileBufferListener fileBufferListener; // guarded by this
+    private BufferChangeJournal changeJournal; // guarded by this
 
     /**
      * Returns a {@link TextFileBuffer} for the given file location.
@@ -252,8 +263,9 @@ public final class TextFileBuffer
         {
             ICoreTextFileBufferProvider provider =
                 getCoreTextFileBufferProvider();
-            listeners = new ListenerList<>();
+            ListenerList<IBufferListener> listeners = new ListenerList<>();
             listeners.add(listener);
+            this.listeners = listeners;
             fileBufferListener = new FileBufferListener(provider.getBuffer());
             provider.getBufferManager().addFileBufferListener(
                 fileBufferListener);
@@ -275,36 +287,64 @@ public final class TextFileBuffer
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates the journal when it is first requested,
+     * and disposes it when this buffer is disconnected from the underlying
+     * <code>ITextFileBuffer</code>.
+     * </p>
+     *
+     * @throws IllegalStateException if this buffer is no longer accessible
+     * @since 1.8
+     */
+    @Override
+    public synchronized BufferChangeJournal getChangeJournal()
+    {
+        if (changeJournal == null)
+            changeJournal = new BufferChangeJournal(
+                getCoreTextFileBufferProvider().getBuffer().getDocument());
+        return changeJournal;
+    }
+
     @Override
     public void addRef()
     {
-        synchronized (this)
-        {
-            ++refCount;
-        }
+        refCount.incrementAndGet();
     }
 
     @Override
     public void release()
     {
-        ICoreTextFileBufferProvider provider;
+        // the reference count and the disconnected state are changed
+        // atomically, without locking, so that the hot paths acquiring and
+        // releasing the buffer are not contended
+        if (refCount.decrementAndGet() != 0)
+            return;
+        ICoreTextFileBufferProvider provider = PROVIDER_UPDATER.getAndSet(this,
+            null);
+        if (provider == null)
+            return; // already disconnected
+        FileBufferListener fileBufferListener;
+        BufferChangeJournal changeJournal;
         synchronized (this)
         {
-            if (--refCount != 0)
-                return;
-            if (coreTextFileBufferProvider == null)
-                return;
-            provider = coreTextFileBufferProvider;
-            coreTextFileBufferProvider = null;
+            // addListener and getChangeJournal see the disconnected state
+            // once they get the lock
+            fileBufferListener = this.fileBufferListener;
+            this.fileBufferListener = null;
             listeners = null;
+            changeJournal = this.changeJournal;
+            this.changeJournal = null;
         }
+        if (changeJournal != null)
+            changeJournal.dispose();
         try
         {
             if (fileBufferListener != null)
             {
                 provider.getBufferManager().removeFileBufferListener(
                     fileBufferListener);
-                fileBufferListener = null;
             }
         }
         finally
@@ -322,13 +362,9 @@ public final class TextFileBuffer
 
     private void fireBufferSaved()
     {
-        ListenerList<IBufferListener> listeners;
-        synchronized (this)
-        {
-            if (this.listeners == null)
-                return;
-            listeners = this.listeners;
-        }
+        ListenerList<IBufferListener> listeners = this.listeners;
+        if (listeners == null)
+            return;
         for (IBufferListener listener : listeners)
         {
             SafeRunner.run(() -> listener.bufferSaved(this));
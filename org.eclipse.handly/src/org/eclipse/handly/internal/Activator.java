@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -69,6 +69,8 @@ public class Activator
     @Override
     public void stop(BundleContext context) throws Exception
     {
+        FileExpiryRegistry.disposeDefault();
+        ParallelRunner.dispose();
         super.stop(context);
         plugin = null;
     }
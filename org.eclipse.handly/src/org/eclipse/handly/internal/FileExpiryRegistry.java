@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.internal;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Tracks changes to local files with a {@link WatchService}, so that file
+ * snapshots can tell that they are still current by checking a volatile
+ * flag instead of querying the file system on every call.
+ * <p>
+ * A snapshot {@link #register(Path) registers} its file before it reads the
+ * file's modification stamp, and receives a {@link Token} which is {@link
+ * Token#isExpired() expired} when a change to the file is reported. The token
+ * may also expire on a spurious change, e.g. when the file is touched; so an
+ * expired token is a hint that the file has to be checked, not a proof that
+ * it has changed. Tokens are shared by all snapshots of the same version of
+ * a file and are weakly referenced by the registry.
+ * </p>
+ * <p>
+ * Since the operating system resource behind a watch (e.g. an inotify watch)
+ * is consumed per directory rather than per file, the registry watches
+ * at most a limited number of directories, while the number of watched files
+ * within those directories is not limited. Also, the registry is not used
+ * if the file system provides only a polling watch service, since change
+ * events could then be reported long after the change has been made.
+ * </p>
+ * <p>
+ * Thread-safe.
+ * </p>
+ */
+public final class FileExpiryRegistry
+{
+    private static final int DEFAULT_MAX_DIRECTORY_COUNT = 1024;
+
+    private static final Object DEFAULT_LOCK = new Object();
+    private static volatile FileExpiryRegistry defaultRegistry;
+    private static volatile boolean defaultInitialized;
+
+    private final WatchService watchService;
+    private final int maxDirectoryCount;
+    private final Map<Path, Directory> directories = new HashMap<>();
+    private int fileCount;
+    private boolean closed;
+
+    /**
+     * Returns the process-wide registry for the default file system.
+     * The registry is created on first use and lives until {@link
+     * #disposeDefault()} is called.
+     *
+     * @return the default registry, or <code>null</code> if file changes
+     *  cannot be tracked promptly on this platform
+     */
+    public static FileExpiryRegistry getDefault()
+    {
+        if (defaultInitialized)
+            return defaultRegistry;
+        synchronized (DEFAULT_LOCK)
+        {
+            if (!defaultInitialized)
+            {
+                defaultRegistry = createDefault();
+                defaultInitialized = true;
+            }
+            return defaultRegistry;
+        }
+    }
+
+    /**
+     * Closes the process-wide registry, if it has been created. Expires all
+     * of its tokens, closes its watch service, and stops its thread.
+     * A subsequent call to {@link #getDefault()} creates a new registry.
+     */
+    public static void disposeDefault()
+    {
+        synchronized (DEFAULT_LOCK)
+        {
+            FileExpiryRegistry registry = defaultRegistry;
+            defaultRegistry = null;
+            defaultInitialized = false;
+            if (registry != null)
+                registry.close();
+        }
+    }
+
+    /**
+     * Constructs a registry that uses the given watch service and starts
+     * a daemon thread processing its events. The thread terminates when
+     * the registry is {@link #close() closed}.
+     *
+     * @param watchService not <code>null</code>
+     * @param maxDirectoryCount the maximum number of directories to watch
+     *  (&gt; 0)
+     */
+    public FileExpiryRegistry(WatchService watchService, int maxDirectoryCount)
+    {
+        if (watchService == null || maxDirectoryCount <= 0)
+            throw new IllegalArgumentException();
+        this.watchService = watchService;
+        this.maxDirectoryCount = maxDirectoryCount;
+        Thread thread = new Thread(this::processEvents,
+            "Handly File Expiry Registry"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts tracking changes to the given file and returns the token
+     * for the current version of the file.
+     *
+     * @param file an absolute path to a local file (not <code>null</code>)
+     * @return a token that is expired when a change to the file is reported,
+     *  or <code>null</code> if changes to the file cannot be tracked
+     */
+    public Token register(Path file)
+    {
+        Path dir = file.getParent();
+        Path name = file.getFileName();
+        if (dir == null || name == null)
+            return null;
+        synchronized (this)
+        {
+            if (closed)
+                return null;
+            Directory directory = directories.get(dir);
+            if (directory != null)
+            {
+                Token token = directory.get(name);
+                if (token != null)
+                    return token;
+            }
+            else
+            {
+                if (directories.size() >= maxDirectoryCount)
+                {
+                    purge();
+                    if (directories.size() >= maxDirectoryCount)
+                        return null;
+                }
+                WatchKey key;
+                try
+                {
+                    key = dir.register(watchService, ENTRY_CREATE,
+                        ENTRY_DELETE, ENTRY_MODIFY);
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    return null; // e.g. the directory does not exist
+                }
+                directory = new Directory(key);
+                directories.put(dir, directory);
+            }
+            Token token = new Token();
+            directory.put(name, token);
+            return token;
+        }
+    }
+
+    /**
+     * Stops tracking changes to all files and expires all of the tokens.
+     * The registry can still be used after this call.
+     */
+    public synchronized void clear()
+    {
+        for (Directory directory : directories.values())
+        {
+            directory.expireAll();
+            directory.key.cancel();
+        }
+        directories.clear();
+    }
+
+    /**
+     * Stops tracking changes to all files, expires all of the tokens, and
+     * closes the watch service, which terminates the thread processing its
+     * events. After this call, the registry does not track changes to files
+     * any more. Has no effect if the registry has already been closed.
+     */
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (closed)
+                return;
+            closed = true;
+            clear();
+        }
+        try
+        {
+            watchService.close();
+        }
+        catch (IOException e)
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * Returns the number of files whose changes are currently tracked.
+     *
+     * @return the number of watched files
+     */
+    public synchronized int fileCount()
+    {
+        return fileCount;
+    }
+
+    /**
+     * Returns the number of directories that are currently watched.
+     *
+     * @return the number of watched directories
+     */
+    public synchronized int directoryCount()
+    {
+        return directories.size();
+    }
+
+    private void processEvents()
+    {
+        for (;;)
+        {
+            WatchKey key;
+            try
+            {
+                key = watchService.take();
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+            Path dir = (Path)key.watchable();
+            synchronized (this)
+            {
+                Directory directory = directories.get(dir);
+                for (WatchEvent<?> event : key.pollEvents())
+                {
+                    if (directory == null)
+                        continue;
+                    if (event.kind() == OVERFLOW)
+                        directory.expireAll();
+                    else
+                        directory.expire((Path)event.context());
+                }
+                if (!key.reset())
+                {
+                    // the directory is no longer accessible
+                    if (directory != null)
+                        directory.expireAll();
+                    directories.remove(dir);
+                }
+                else if (directory != null && directory.files.isEmpty())
+                {
+                    key.cancel();
+                    directories.remove(dir);
+                }
+            }
+        }
+    }
+
+    private void purge()
+    {
+        Iterator<Directory> it = directories.values().iterator();
+        while (it.hasNext())
+        {
+            Directory directory = it.next();
+            directory.purge();
+            if (directory.files.isEmpty())
+            {
+                directory.key.cancel();
+                it.remove();
+            }
+        }
+    }
+
+    private static FileExpiryRegistry createDefault()
+    {
+        WatchService watchService;
+        try
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return null;
+        }
+        if (watchService.getClass().getName().endsWith("PollingWatchService")) //$NON-NLS-1$
+        {
+            try
+            {
+                watchService.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+            return null;
+        }
+        return new FileExpiryRegistry(watchService,
+            DEFAULT_MAX_DIRECTORY_COUNT);
+    }
+
+    /**
+     * Represents a version of a watched file.
+     */
+    public static final class Token
+    {
+        private volatile boolean expired;
+
+        /**
+         * Returns whether a change to the file has been reported since
+         * this token was created.
+         *
+         * @return <code>true</code> if the token is expired,
+         *  and <code>false</code> otherwise
+         */
+        public boolean isExpired()
+        {
+            return expired;
+        }
+
+        void expire()
+        {
+            expired = true;
+        }
+    }
+
+    private class Directory
+    {
+        final WatchKey key;
+        final Map<Path, WeakReference<Token>> files = new HashMap<>();
+
+        Directory(WatchKey key)
+        {
+            this.key = key;
+        }
+
+        Token get(Path name)
+        {
+            WeakReference<Token> ref = files.get(name);
+            return ref != null ? ref.get() : null;
+        }
+
+        void put(Path name, Token token)
+        {
+            if (files.put(name, new WeakReference<>(token)) == null)
+                fileCount++;
+        }
+
+        void expire(Path name)
+        {
+            WeakReference<Token> ref = files.remove(name);
+            if (ref != null)
+            {
+                fileCount--;
+                Token token = ref.get();
+                if (token != null)
+                    token.expire();
+            }
+        }
+
+        void expireAll()
+        {
+            for (WeakReference<Token> ref : files.values())
+            {
+                Token token = ref.get();
+                if (token != null)
+                    token.expire();
+            }
+            fileCount -= files.size();
+            files.clear();
+        }
+
+        void purge()
+        {
+            Iterator<WeakReference<Token>> it = files.values().iterator();
+            while (it.hasNext())
+            {
+                if (it.next().get() == null)
+                {
+                    it.remove();
+                    fileCount--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs a task for each of the given items in parallel, using the calling
+ * thread along with the threads of a pool shared by all such runs in the
+ * process. The pool is created on first use, is bounded by the number of
+ * processors available to the Java virtual machine, and lets its idle threads
+ * terminate. Since the calling thread takes part in the run, a run completes
+ * even if all of the pool threads are busy, e.g. with the enclosing run.
+ */
+public final class ParallelRunner
+{
+    private static final Object NO_FAILURE = new Object();
+    private static final long KEEP_ALIVE_TIME = 10; // s
+
+    private static final Object EXECUTOR_LOCK = new Object();
+    private static ThreadPoolExecutor executor; // guarded by EXECUTOR_LOCK
+
+    /**
+     * Runs the given task for each of the given items, using at most the given
+     * number of threads including the calling thread. Returns after all of the
+     * started task runs have completed. Progress is reported to the given
+     * monitor by the calling thread, while the task is given a separate
+     * monitor that is only good for checking cancellation. No new task runs
+     * are started after the given monitor is canceled or, if requested, after
+     * a task run fails.
+     *
+     * @param items the items to run the task for (not <code>null</code>)
+     * @param parallelism the maximum number of threads to use (&gt; 0)
+     * @param task the task to run (not <code>null</code>)
+     * @param stopOnFailure whether to stop starting new task runs after
+     *  a task run fails
+     * @param monitor a progress monitor (not <code>null</code>).
+     *  One unit of work is reported for each completed task run
+     * @return the exceptions thrown by the task runs, in the order
+     *  of completion (never <code>null</code>)
+     * @throws OperationCanceledException if the run is canceled, or the
+     *  calling thread is interrupted while waiting; the exceptions thrown
+     *  by the task runs are added to it as suppressed exceptions
+     */
+    public static <T> List<Throwable> run(List<T> items, int parallelism,
+        Task<T> task, boolean stopOnFailure, IProgressMonitor monitor)
+    {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException();
+        int size = items.size();
+        // progress monitors are not thread-safe: the task runs only check for
+        // cancellation, while the progress is reported by the calling thread
+        NullProgressMonitor taskMonitor = new NullProgressMonitor();
+        AtomicInteger next = new AtomicInteger();
+        BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        Runnable worker = () ->
+        {
+            while (!taskMonitor.isCanceled())
+            {
+                int i = next.getAndIncrement();
+                if (i >= size)
+                    break;
+                results.add(run(task, items.get(i), stopOnFailure,
+                    taskMonitor));
+            }
+        };
+        try
+        {
+            for (int i = 1, n = Math.min(parallelism, size); i < n; i++)
+                getExecutor().execute(worker);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the pool has been disposed; the items are run by this thread
+        }
+        List<Throwable> failures = new ArrayList<>();
+        boolean interrupted = false;
+        // every item is claimed exactly once: either it is run by the thread
+        // that claimed it, which then adds a result, or it is skipped
+        int completed = 0, skipped = 0;
+        while (completed + skipped < size)
+        {
+            if (monitor.isCanceled())
+                taskMonitor.setCanceled(true);
+            boolean ranItem = false;
+            if (taskMonitor.isCanceled())
+            {
+                while (next.getAndIncrement() < size)
+                    skipped++;
+            }
+            else
+            {
+                int i = next.getAndIncrement();
+                if (i < size)
+                {
+                    results.add(run(task, items.get(i), stopOnFailure,
+                        taskMonitor));
+                    ranItem = true;
+                }
+            }
+            Object result;
+            try
+            {
+                result = ranItem || completed + skipped == size
+                    ? results.poll() : results.poll(100,
+                        TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                // wait for the started task runs anyway
+                interrupted = true;
+                taskMonitor.setCanceled(true);
+                continue;
+            }
+            for (; result != null; result = results.poll())
+            {
+                completed++;
+                monitor.worked(1);
+                if (result != NO_FAILURE)
+                    failures.add((Throwable)result);
+            }
+        }
+        if (interrupted || monitor.isCanceled())
+        {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            OperationCanceledException exception =
+                new OperationCanceledException();
+            for (Throwable failure : failures)
+                exception.addSuppressed(failure);
+            throw exception;
+        }
+        return failures;
+    }
+
+    /**
+     * Shuts down the shared thread pool, if it has been created. The task runs
+     * that are in progress are not interrupted. A subsequent run creates a new
+     * thread pool.
+     */
+    public static void dispose()
+    {
+        synchronized (EXECUTOR_LOCK)
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private static <T> Object run(Task<T> task, T item,
+        boolean stopOnFailure, IProgressMonitor monitor)
+    {
+        try
+        {
+            task.run(item, monitor);
+            return NO_FAILURE;
+        }
+        catch (Throwable e)
+        {
+            if (stopOnFailure)
+                monitor.setCanceled(true); // stop the other task runs
+            return e;
+        }
+    }
+
+    private static ThreadPoolExecutor getExecutor()
+    {
+        synchronized (EXECUTOR_LOCK)
+        {
+            if (executor == null)
+            {
+                int maxThreads = Runtime.getRuntime().availableProcessors();
+                executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                    KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable ->
+                    {
+                        Thread thread = new Thread(runnable,
+                            "Handly Parallel Runner"); //$NON-NLS-1$
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                executor.allowCoreThreadTimeOut(true);
+            }
+            return executor;
+        }
+    }
+
+    private ParallelRunner()
+    {
+    }
+
+    /**
+     * A task to run for each item.
+     *
+     * @param <T> the type of items
+     */
+    @FunctionalInterface
+    public interface Task<T>
+    {
+        /**
+         * Runs this task for the given item.
+         *
+         * @param item an item (may be <code>null</code> if the items
+         *  contain <code>null</code>s)
+         * @param monitor a progress monitor that is only good for checking
+         *  cancellation (never <code>null</code>)
+         * @throws Exception if the task fails
+         */
+        void run(T item, IProgressMonitor monitor) throws Exception;
+    }
+}
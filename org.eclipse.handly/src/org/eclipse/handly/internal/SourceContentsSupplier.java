@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.internal;
+
+import java.util.function.Supplier;
+
+/**
+ * Lazily creates the source string from a character sequence,
+ * at most once. Thread-safe.
+ */
+public final class SourceContentsSupplier
+    implements Supplier<String>
+{
+    private final CharSequence text;
+    private volatile String contents;
+
+    /**
+     * Constructs a supplier of the source string for the given text.
+     *
+     * @param text not <code>null</code>
+     */
+    public SourceContentsSupplier(CharSequence text)
+    {
+        if (text == null)
+            throw new IllegalArgumentException();
+        this.text = text;
+    }
+
+    @Override
+    public String get()
+    {
+        String result = contents;
+        if (result == null)
+            contents = result = text.toString();
+        return result;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -36,10 +36,13 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.handly.buffer.IBuffer;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.internal.Activator;
+import org.eclipse.handly.internal.ParallelRunner;
 import org.eclipse.handly.model.impl.IElementImpl;
+import org.eclipse.handly.model.impl.IElementImplExtension;
 import org.eclipse.handly.model.impl.ISourceElementImpl;
 import org.eclipse.handly.model.impl.ISourceFileImpl;
 import org.eclipse.handly.snapshot.ISnapshot;
@@ -1039,6 +1042,112 @@ public class Elements
             monitor);
     }
 
+    /**
+     * Ensures that each of the given elements is open, i.e., present in the
+     * body cache. Unlike opening the elements one by one, this method opens
+     * the elements that are not already open in parallel, using up to {@link
+     * #OPEN_PARALLELISM} threads. In particular, the structure of the elements
+     * is built in parallel, and the built structure of each element is stored
+     * into the body cache at once, subject to the cache bounds. The elements
+     * need not belong to the same parent or even to the same model.
+     * <p>
+     * This method tries to open all of the given elements even if some of the
+     * elements fail to open, in which case the exception for the first failed
+     * element is thrown after all of the elements have been processed; the
+     * exceptions for the other failed elements are added to it as {@link
+     * Throwable#addSuppressed(Throwable) suppressed} exceptions.
+     * </p>
+     *
+     * @param elements the elements to open (not <code>null</code>,
+     *  may not contain <code>null</code>s)
+     * @param context the operation context (not <code>null</code>)
+     * @param monitor a progress monitor, or <code>null</code>
+     *  if progress reporting is not desired. The caller must not rely on
+     *  {@link IProgressMonitor#done()} having been called by the receiver
+     * @throws CoreException if some of the elements do not exist or if an
+     *  exception occurs while accessing their corresponding resources
+     * @throws OperationCanceledException if this method is canceled
+     * @since 1.8
+     */
+    public static void openAll(Collection<? extends IElement> elements,
+        IContext context, IProgressMonitor monitor) throws CoreException
+    {
+        List<IElement> toOpen = new ArrayList<>(elements.size());
+        for (IElement element : elements)
+        {
+            if (!(element instanceof IElementImplExtension)
+                || ((IElementImplExtension)element).peekAtBody_() == null)
+                toOpen.add(element);
+        }
+        int parallelism = Math.min(context.getOrDefault(OPEN_PARALLELISM),
+            toOpen.size());
+        SubMonitor subMonitor = SubMonitor.convert(monitor, toOpen.size());
+        if (parallelism <= 1)
+        {
+            CoreException exception = null;
+            for (IElement element : toOpen)
+            {
+                try
+                {
+                    getChildren(element, context, subMonitor.split(1));
+                }
+                catch (CoreException e)
+                {
+                    if (exception == null)
+                        exception = e;
+                    else
+                        exception.addSuppressed(e);
+                }
+            }
+            if (exception != null)
+                throw exception;
+            return;
+        }
+        openInParallel(toOpen, parallelism, context, subMonitor);
+    }
+
+    /**
+     * Specifies the maximum number of threads that may be used to open
+     * elements in parallel, including the calling thread. The other threads
+     * are taken from a pool shared by the process, which is bounded by the
+     * number of available processors. Default value: the number of processors
+     * available to the Java virtual machine.
+     *
+     * @see #openAll(Collection, IContext, IProgressMonitor)
+     * @since 1.8
+     */
+    public static final Property<Integer> OPEN_PARALLELISM = Property.get(
+        Elements.class.getName() + ".openParallelism", //$NON-NLS-1$
+        Integer.class).withDefault(Runtime.getRuntime().availableProcessors());
+
+    private static void openInParallel(List<IElement> elements,
+        int parallelism, IContext context, SubMonitor subMonitor)
+        throws CoreException
+    {
+        List<Throwable> failures = ParallelRunner.run(elements, parallelism,
+            (element, monitor) -> getChildren(element, context, monitor), false,
+            subMonitor);
+        CoreException exception = null;
+        for (Throwable failure : failures)
+        {
+            if (failure instanceof CoreException)
+            {
+                if (exception == null)
+                    exception = (CoreException)failure;
+                else
+                    exception.addSuppressed(failure);
+            }
+            else if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            else if (failure instanceof Error)
+                throw (Error)failure;
+            else
+                throw new AssertionError(failure);
+        }
+        if (exception != null)
+            throw exception;
+    }
+
     /**
      * Returns a string representation of the element in a form suitable for
      * debugging purposes. Clients can influence the result with options
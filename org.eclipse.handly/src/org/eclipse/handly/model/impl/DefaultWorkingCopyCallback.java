@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -17,15 +17,19 @@ import static org.eclipse.handly.context.Contexts.with;
 import static org.eclipse.handly.model.Elements.FORCE_RECONCILING;
 import static org.eclipse.handly.model.impl.IReconcileStrategy.RECONCILING_FORCED;
 import static org.eclipse.handly.model.impl.IReconcileStrategy.SOURCE_AST;
+import static org.eclipse.handly.model.impl.IReconcileStrategy.SOURCE_CHAR_SEQUENCE;
 import static org.eclipse.handly.model.impl.IReconcileStrategy.SOURCE_CONTENTS;
 import static org.eclipse.handly.model.impl.IReconcileStrategy.SOURCE_SNAPSHOT;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.handly.context.Context;
 import org.eclipse.handly.context.IContext;
+import org.eclipse.handly.internal.SourceContentsSupplier;
 import org.eclipse.handly.snapshot.ISnapshot;
 import org.eclipse.handly.snapshot.NonExpiringSnapshot;
+import org.eclipse.handly.snapshot.StaleSnapshotException;
 
 /**
  * Default implementation of {@link IWorkingCopyCallback}.
@@ -63,15 +67,83 @@ public class DefaultWorkingCopyCallback
             if (needsReconciling || context.getOrDefault(FORCE_RECONCILING))
             {
                 IWorkingCopyInfo info = getWorkingCopyInfo();
-                NonExpiringSnapshot snapshot = new NonExpiringSnapshot(
-                    info.getBuffer());
-                info.getReconcileStrategy().reconcile(with(of(//
-                    SOURCE_CONTENTS, snapshot.getContents()), of(
-                        SOURCE_SNAPSHOT, snapshot.getWrappedSnapshot()), of(
-                            RECONCILING_FORCED, !needsReconciling), context),
-                    monitor);
-                reconciledSnapshot = snapshot.getWrappedSnapshot();
+                IContext context2 = with(of(RECONCILING_FORCED,
+                    !needsReconciling), context);
+                ISnapshot snapshot = null;
+                if (isReconcilingWithCharSequence())
+                    snapshot = reconcileWithCharSequence(info, context2,
+                        monitor);
+                if (snapshot == null)
+                {
+                    NonExpiringSnapshot nonExpiringSnapshot =
+                        new NonExpiringSnapshot(info.getBuffer());
+                    snapshot = nonExpiringSnapshot.getWrappedSnapshot();
+                    info.getReconcileStrategy().reconcile(with(of(
+                        SOURCE_CONTENTS, nonExpiringSnapshot.getContents()),
+                        of(SOURCE_SNAPSHOT, snapshot), context2), monitor);
+                }
+                reconciledSnapshot = snapshot;
             }
         }
     }
+
+    /**
+     * Returns whether the working copy is to be reconciled with the {@link
+     * ISnapshot#getCharSequence() character sequence} of a buffer snapshot
+     * specified as {@link IReconcileStrategy#SOURCE_CHAR_SEQUENCE
+     * SOURCE_CHAR_SEQUENCE}, rather than with a string copy of the buffer
+     * contents. The character sequence may be a view of the buffer that
+     * avoids copying the contents, but throws a {@link StaleSnapshotException}
+     * if it is accessed after the buffer has been modified. In that case,
+     * the reconcile strategy is run once again with a copy of the contents.
+     * <p>
+     * Therefore, a subclass may return <code>true</code> only if the reconcile
+     * strategy reads the source text, including {@link
+     * IReconcileStrategy#SOURCE_CONTENTS SOURCE_CONTENTS}, before it has any
+     * side effects such as updating the model or reporting problems, and
+     * retains no references to the source text after reconciling.
+     * </p>
+     * <p>
+     * This implementation returns <code>false</code>.
+     * </p>
+     *
+     * @return <code>true</code> if the working copy is to be reconciled
+     *  with a character sequence, and <code>false</code> otherwise
+     * @since 1.8
+     */
+    protected boolean isReconcilingWithCharSequence()
+    {
+        return false;
+    }
+
+    /*
+     * Reconciles the working copy with the character sequence of the current
+     * buffer snapshot. The source string is only created if the reconcile
+     * strategy asks for it. Returns the snapshot, or null if the snapshot
+     * has expired before or while reconciling; in the latter case, the caller
+     * is to reconcile with a non-expiring copy of the contents.
+     */
+    private static ISnapshot reconcileWithCharSequence(IWorkingCopyInfo info,
+        IContext context, IProgressMonitor monitor) throws CoreException
+    {
+        ISnapshot snapshot = info.getBuffer().getSnapshot();
+        CharSequence text = snapshot.getCharSequence();
+        if (text == null)
+            return null; // expired already
+        Context context2 = new Context();
+        context2.bind(SOURCE_CHAR_SEQUENCE).to(text);
+        context2.bind(SOURCE_CONTENTS).toSupplier(new SourceContentsSupplier(
+            text));
+        context2.bind(SOURCE_SNAPSHOT).to(snapshot);
+        try
+        {
+            info.getReconcileStrategy().reconcile(with(context2, context),
+                monitor);
+            return snapshot;
+        }
+        catch (StaleSnapshotException e)
+        {
+            return null; // the buffer has changed while reconciling
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -99,8 +99,10 @@ public interface IElementImpl
             return false;
         IElement parent = getParent_();
         IElement otherParent = Elements.getParent(other);
+        if (parent == otherParent)
+            return true; // the same parent chain
         if (parent == null)
-            return otherParent == null;
+            return false;
         return Elements.equalsAndSameParentChain(parent, otherParent);
     }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 1C-Soft LLC.
+ * Copyright (c) 2017, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -51,6 +51,18 @@ public interface IReconcileStrategy
     Property<String> SOURCE_CONTENTS = Property.get(
         IReconcileStrategy.class.getName() + ".sourceContents", String.class); //$NON-NLS-1$
 
+    /**
+     * Specifies the source text for reconciling as a character sequence.
+     * Unlike {@link #SOURCE_CONTENTS}, the source text need not be
+     * materialized as a string.
+     *
+     * @see #reconcile(IContext, IProgressMonitor)
+     * @since 1.8
+     */
+    Property<CharSequence> SOURCE_CHAR_SEQUENCE = Property.get(
+        IReconcileStrategy.class.getName() + ".sourceCharSequence", //$NON-NLS-1$
+        CharSequence.class);
+
     /**
      * Specifies the source snapshot for reconciling.
      *
@@ -76,10 +88,15 @@ public interface IReconcileStrategy
      * {@link #SOURCE_CONTENTS} - Specifies the source string to use when
      * reconciling.
      * </li>
+     * <li>
+     * {@link #SOURCE_CHAR_SEQUENCE} - Specifies the source text to use when
+     * reconciling as a character sequence.
+     * </li>
      * </ul>
      * <p>
-     * At least one of <code>SOURCE_AST</code> or <code>SOURCE_CONTENTS</code>
-     * must have a non-null value in the given context.
+     * At least one of <code>SOURCE_AST</code>, <code>SOURCE_CONTENTS</code>
+     * or <code>SOURCE_CHAR_SEQUENCE</code> must have a non-null value
+     * in the given context.
      * </p>
      * <p>
      * The given context may provide additional data that this method can use,
@@ -93,8 +110,8 @@ public interface IReconcileStrategy
      * </li>
      * <li>
      * {@link #SOURCE_SNAPSHOT} - Specifies the source snapshot from which
-     * <code>SOURCE_AST</code> was created or <code>SOURCE_CONTENTS</code>
-     * was obtained. The snapshot may expire.
+     * <code>SOURCE_AST</code> was created or the source text was obtained.
+     * The snapshot may expire.
      * </li>
      * </ul>
      * <p>
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -38,6 +38,7 @@ import org.eclipse.handly.util.ArrayUtil;
 public class Body
 {
     private volatile IElement[] children = Elements.EMPTY_ARRAY;
+    private volatile long fingerprint;
 
     /**
      * Returns the child elements for this body.
@@ -69,6 +70,7 @@ public class Body
         if (ArrayUtil.contains(children, null))
             throw new IllegalArgumentException(Arrays.toString(children));
         this.children = children;
+        fingerprint = 0;
     }
 
     /**
@@ -89,6 +91,7 @@ public class Body
                 return; // already exists
         }
         children = growAndAddToArray(oldChildren, child);
+        fingerprint = 0;
     }
 
     /**
@@ -104,11 +107,48 @@ public class Body
             if (oldChildren[i].equals(child))
             {
                 children = removeAndShrinkArray(oldChildren, i);
+                fingerprint = 0;
                 break;
             }
         }
     }
 
+    /**
+     * Returns the structural fingerprint of this body. The fingerprint is
+     * a hash of the structure and properties of the subtree rooted at this
+     * body, including the children of this body and their bodies. Two bodies
+     * of the same element that have equal non-zero fingerprints are expected
+     * to produce no change deltas for the element's descendants, which allows
+     * an {@link ElementChangeRecorder} to skip the entire subtree.
+     * <p>
+     * The fingerprint is optional; zero means that the fingerprint is not
+     * known. It is only valid as long as neither this body nor any body in
+     * its subtree is modified. This implementation resets the fingerprint
+     * to zero when the children of this body are modified.
+     * </p>
+     *
+     * @return the structural fingerprint of this body,
+     *  or zero if it is not known
+     * @since 1.8
+     */
+    public long getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Sets the structural fingerprint of this body.
+     *
+     * @param fingerprint the structural fingerprint of this body,
+     *  or zero if it is not known
+     * @see #getFingerprint()
+     * @since 1.8
+     */
+    public void setFingerprint(long fingerprint)
+    {
+        this.fingerprint = fingerprint;
+    }
+
     /**
      * Finds whether this body has had a content change.
      * <p>
@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import static org.eclipse.handly.context.Contexts.of;
+import static org.eclipse.handly.model.impl.IElementImplExtension.CLOSE_HINT;
+import static org.eclipse.handly.model.impl.IElementImplExtension.CloseHint.CACHE_OVERFLOW;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.model.impl.IElementImplExtension;
+
+/**
+ * A cache of element handle/body relationships that is safe for concurrent
+ * lookups and is bounded by the total {@link Weigher weight} of the cached
+ * bodies rather than by the number of entries.
+ * <p>
+ * The cache distinguishes between <i>evictable</i> elements, which are
+ * generally the openable elements such as source files, and the other
+ * elements, which are typically non-openable children of an evictable
+ * element. If the total weight of the cached bodies exceeds the maximum
+ * weight, the cache evicts evictable elements in approximately least recently
+ * used order by {@link
+ * IElementImplExtension#close_(org.eclipse.handly.context.IContext) closing}
+ * them, which removes the whole subtree of an element from the cache at once.
+ * An access to a non-evictable element counts as an access to its nearest
+ * evictable ancestor in the cache. The cache is not strictly bounded,
+ * but can overflow if the current state of elements in the cache does not
+ * permit closing (e.g., working copies).
+ * </p>
+ * <p>
+ * This implementation is thread-safe. Lookups are performed without locking;
+ * mutators are synchronized on the cache. Since eviction closes elements via
+ * the element manager, mutators are expected to be invoked under the element
+ * manager lock, as is the case when the cache is used with an {@link
+ * ElementManager}.
+ * </p>
+ *
+ * @since 1.8
+ */
+public class ConcurrentBodyCache
+    implements IConcurrentBodyCache
+{
+    /**
+     * A weigher that estimates the number of bytes retained by a body
+     * along with the corresponding cache entry.
+     */
+    public static final Weigher DEFAULT_WEIGHER = ConcurrentBodyCache::weigh;
+
+    private final Map<IElement, Entry> map = new ConcurrentHashMap<>();
+    private final Map<IElement, Entry> evictableEntries =
+        new LinkedHashMap<>(); // in eviction queue order; guarded by this
+    private final Weigher weigher;
+    private volatile long maxWeight;
+    private volatile long weight; // guarded by this
+    private double loadFactor = 1.0 / 3;
+
+    /**
+     * Constructs an empty cache with the given maximum weight and
+     * the {@link #DEFAULT_WEIGHER default weigher}.
+     *
+     * @param maxWeight the maximum weight of the cache (the bound)
+     * @throws IllegalArgumentException if <code>maxWeight &lt; 1</code>
+     */
+    public ConcurrentBodyCache(long maxWeight)
+    {
+        this(maxWeight, DEFAULT_WEIGHER);
+    }
+
+    /**
+     * Constructs an empty cache with the given maximum weight and weigher.
+     *
+     * @param maxWeight the maximum weight of the cache (the bound)
+     * @param weigher the weigher of cached bodies (not <code>null</code>)
+     * @throws IllegalArgumentException if <code>maxWeight &lt; 1</code>
+     */
+    public ConcurrentBodyCache(long maxWeight, Weigher weigher)
+    {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException();
+        if (weigher == null)
+            throw new IllegalArgumentException();
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the number of entries in this cache.
+     *
+     * @return the size of the cache
+     */
+    public final int size()
+    {
+        return map.size();
+    }
+
+    /**
+     * Returns the total weight of the bodies in this cache.
+     *
+     * @return the weight of the cache
+     */
+    public final long weight()
+    {
+        return weight;
+    }
+
+    /**
+     * Returns the maximum weight of this cache.
+     *
+     * @return the maximum weight of the cache
+     */
+    public final long maxWeight()
+    {
+        return maxWeight;
+    }
+
+    /**
+     * Changes the maximum weight of this cache. If the current weight of the
+     * cache is greater than the new value for maximum weight, attempts to trim
+     * the cache.
+     *
+     * @param maxWeight a new value for maximum weight of the cache
+     * @throws IllegalArgumentException if <code>maxWeight &lt; 1</code>
+     */
+    public final synchronized void setMaxWeight(long maxWeight)
+    {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException();
+        this.maxWeight = maxWeight;
+        makeSpace(Collections.emptySet());
+    }
+
+    /**
+     * Returns the load factor of this cache. The load factor determines
+     * how much space is reclaimed when the cache overflows.
+     *
+     * @return the load factor of the cache (a value in the interval (0, 1])
+     */
+    public synchronized double getLoadFactor()
+    {
+        return loadFactor;
+    }
+
+    /**
+     * Changes the load factor for this cache. The load factor determines
+     * how much space is reclaimed when the cache overflows.
+     *
+     * @param loadFactor a new value for load factor
+     * @throws IllegalArgumentException if <code>loadFactor &lt;= 0</code> or
+     *  <code>loadFactor &gt; 1</code>
+     */
+    public synchronized void setLoadFactor(double loadFactor)
+    {
+        if (loadFactor <= 0.0 || loadFactor > 1.0)
+            throw new IllegalArgumentException();
+        this.loadFactor = loadFactor;
+    }
+
+    @Override
+    public Object get(IElement element)
+    {
+        Entry entry = map.get(element);
+        if (entry == null)
+            return null;
+        entry.touch();
+        return entry.body;
+    }
+
+    @Override
+    public Object peek(IElement element)
+    {
+        Entry entry = map.get(element);
+        if (entry == null)
+            return null;
+        return entry.body;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the cache overflows, this implementation attempts to evict stale
+     * entries, except for the entry for the given element.
+     * </p>
+     */
+    @Override
+    public synchronized void put(IElement element, Object body)
+    {
+        Entry entry = doPut(element, body);
+        if (!entry.evictable)
+            entry.owner = findOwner(element, Collections.emptyMap());
+        makeSpace(Collections.singleton(element));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the cache overflows, this implementation attempts to evict stale
+     * entries after all of the given relationships have been stored,
+     * except for the entries for the given elements.
+     * </p>
+     */
+    @Override
+    public synchronized void putAll(
+        Map<? extends IElement, Object> elementBodies)
+    {
+        Map<IElement, Entry> newEntries = new HashMap<>(elementBodies.size());
+        for (Map.Entry<? extends IElement, Object> e : elementBodies.entrySet())
+        {
+            IElement element = e.getKey();
+            newEntries.put(element, doPut(element, e.getValue()));
+        }
+        for (Entry entry : newEntries.values())
+        {
+            if (!entry.evictable)
+                entry.owner = findOwner(entry.element, newEntries);
+        }
+        makeSpace(newEntries.keySet());
+    }
+
+    @Override
+    public synchronized void remove(IElement element)
+    {
+        Entry entry = map.remove(element);
+        if (entry != null)
+        {
+            weight -= entry.weight;
+            if (entry.evictable)
+                evictableEntries.remove(element);
+        }
+    }
+
+    @Override
+    public double fillRatio()
+    {
+        return (double)weight / maxWeight;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentBodyCache [size=" + size() + ", weight=" + weight //$NON-NLS-1$ //$NON-NLS-2$
+            + ", maxWeight=" + maxWeight + ']'; //$NON-NLS-1$
+    }
+
+    /**
+     * Returns whether the given element may be evicted from this cache
+     * by closing it.
+     * <p>
+     * This implementation returns <code>false</code> if the element is
+     * known not to be {@link IElementImplSupport#isOpenable_() openable},
+     * and <code>true</code> otherwise.
+     * </p>
+     *
+     * @param element never <code>null</code>
+     * @return <code>true</code> if the element is evictable,
+     *  and <code>false</code> otherwise
+     */
+    protected boolean isEvictable(IElement element)
+    {
+        return !(element instanceof IElementImplSupport)
+            || ((IElementImplSupport)element).isOpenable_();
+    }
+
+    /**
+     * Attempts to evict the given element from this cache in response to
+     * cache overflow. It <i>is</i> permitted for this method to remove other
+     * cache entries along with the given element or, if the given element
+     * cannot currently be evicted, retain it in the cache.
+     * <p>
+     * This implementation invokes <code>((IElementImplExtension)element).{@link
+     * IElementImplExtension#close_(org.eclipse.handly.context.IContext) close_
+     * }(of(CLOSE_HINT, CACHE_OVERFLOW))</code>.
+     * </p>
+     *
+     * @param element an evictable element in the cache (never <code>null</code>)
+     */
+    protected void evict(IElement element)
+    {
+        ((IElementImplExtension)element).close_(of(CLOSE_HINT,
+            CACHE_OVERFLOW));
+    }
+
+    private Entry doPut(IElement element, Object body)
+    {
+        if (element == null)
+            throw new IllegalArgumentException();
+        if (body == null)
+            throw new IllegalArgumentException();
+        boolean evictable = isEvictable(element);
+        Entry entry = new Entry(element, body, weigher.weigh(element, body),
+            evictable);
+        Entry oldEntry = map.put(element, entry);
+        if (oldEntry != null)
+            weight -= oldEntry.weight;
+        weight += entry.weight;
+        if (oldEntry != null && oldEntry.evictable)
+            evictableEntries.remove(element);
+        if (evictable)
+            evictableEntries.put(element, entry); // at the end of the queue
+        return entry;
+    }
+
+    private Entry findOwner(IElement element, Map<IElement, Entry> newEntries)
+    {
+        IElement parent = Elements.getParent(element);
+        while (parent != null)
+        {
+            Entry entry = newEntries.get(parent);
+            if (entry == null)
+                entry = map.get(parent);
+            if (entry == null)
+                return null;
+            if (entry.evictable)
+                return entry;
+            parent = Elements.getParent(parent);
+        }
+        return null;
+    }
+
+    private void makeSpace(Set<? extends IElement> retained)
+    {
+        if (weight <= maxWeight)
+            return;
+        long targetWeight = (long)((1 - loadFactor) * maxWeight);
+        // Evictable entries are queued in the order they were put into
+        // the cache. An entry that has been accessed since it was queued
+        // is given a second chance and requeued, which approximates LRU order
+        // at an amortized constant cost per eviction. Every entry is visited
+        // at most twice: once to clear its access bit, once to be evicted
+        int steps = 2 * evictableEntries.size();
+        while (weight > targetWeight && steps-- > 0
+            && !evictableEntries.isEmpty())
+        {
+            Entry entry = evictableEntries.values().iterator().next();
+            if (entry.accessed || retained.contains(entry.element))
+            {
+                entry.accessed = false;
+                requeue(entry);
+                continue;
+            }
+            evict(entry.element);
+            if (evictableEntries.get(entry.element) == entry) // retained
+                requeue(entry);
+        }
+    }
+
+    private void requeue(Entry entry)
+    {
+        evictableEntries.remove(entry.element);
+        evictableEntries.put(entry.element, entry);
+    }
+
+    private static long weigh(IElement element, Object body)
+    {
+        long weight = 96; // the body, the element handle, and the map entry
+        if (body instanceof Body)
+            weight += 8L * ((Body)body).getChildren().length;
+        if (body instanceof SourceElementBody)
+            weight += ((SourceElementBody)body).estimatePropertySize();
+        return weight;
+    }
+
+    /**
+     * Estimates the weight of cached bodies.
+     */
+    @FunctionalInterface
+    public interface Weigher
+    {
+        /**
+         * Returns the weight of the given body. The weight is computed once,
+         * when the body is put into the cache, and must not change while
+         * the body remains in the cache.
+         *
+         * @param element the element with which the body is associated
+         *  (never <code>null</code>)
+         * @param body the body to weigh (never <code>null</code>)
+         * @return the weight of the body (&gt;= 0)
+         */
+        long weigh(IElement element, Object body);
+    }
+
+    private static class Entry
+    {
+        final IElement element;
+        final Object body;
+        final long weight;
+        final boolean evictable;
+        volatile Entry owner; // nearest evictable ancestor entry, if any
+        volatile boolean accessed; // since the entry was queued for eviction
+
+        Entry(IElement element, Object body, long weight, boolean evictable)
+        {
+            if (weight < 0)
+                throw new IllegalArgumentException();
+            this.element = element;
+            this.body = body;
+            this.weight = weight;
+            this.evictable = evictable;
+        }
+
+        void touch()
+        {
+            if (!accessed) // avoid needless writes to a shared entry
+                accessed = true;
+            Entry owner = this.owner;
+            if (owner != null && !owner.accessed)
+                owner.accessed = true;
+        }
+    }
+}
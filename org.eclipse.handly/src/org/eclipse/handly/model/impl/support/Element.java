@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -24,6 +24,12 @@ import org.eclipse.handly.model.impl.IElementImplExtension;
  * to minimize the effort required to implement that interface. Clients might
  * as well implement ("mix in") {@link IElementImplSupport} directly if extending
  * this class is not possible/desirable for some reason.
+ * <p>
+ * Subclasses may opt in to caching the hash code of element handles by
+ * overriding {@link #isHashCodeCacheable_()}. Since the default hash code
+ * of an element depends on the whole parent chain, caching can noticeably
+ * speed up hash-based lookups of elements in deep hierarchies.
+ * </p>
  */
 public abstract class Element
     extends PlatformObject
@@ -31,6 +37,7 @@ public abstract class Element
 {
     private final IElement parent;
     private final String name;
+    private int hashCode; // cached hash code, or 0 if not computed yet
 
     /**
      * Constructs a handle for an element with the given parent element
@@ -50,12 +57,23 @@ public abstract class Element
     @Override
     public boolean equals(Object obj)
     {
+        if (this == obj)
+            return true;
+        if (obj instanceof Element && isHashCodeCacheable_())
+        {
+            Element other = (Element)obj;
+            if (other.isHashCodeCacheable_()
+                && cachedHashCode() != other.cachedHashCode())
+                return false;
+        }
         return defaultEquals_(obj);
     }
 
     @Override
     public int hashCode()
     {
+        if (isHashCodeCacheable_())
+            return cachedHashCode();
         return defaultHashCode_();
     }
 
@@ -76,4 +94,51 @@ public abstract class Element
     {
         return parent;
     }
+
+    /**
+     * Returns whether the {@link #defaultHashCode_() default hash code} of
+     * this element may be computed once and then cached in the element handle.
+     * If this method returns <code>true</code>, the cached hash codes are also
+     * compared to quickly determine that elements are not equal.
+     * <p>
+     * Subclasses may override this method to return <code>true</code>
+     * if the default hash code of the element depends only on the state
+     * of the element handle that never changes or is changed only via methods
+     * that invoke {@link #hashCodeChanged_()}, such as {@link
+     * SourceConstruct#setOccurrenceCount_(int)}. In particular, the default
+     * hash code of all ancestor elements must never change.
+     * </p>
+     * <p>
+     * This implementation returns <code>false</code>.
+     * </p>
+     *
+     * @return <code>true</code> if the hash code of the element is cacheable,
+     *  and <code>false</code> otherwise
+     * @since 1.8
+     */
+    protected boolean isHashCodeCacheable_()
+    {
+        return false;
+    }
+
+    /**
+     * Discards the cached hash code of this element, if any. Subclasses
+     * must invoke this method whenever the state of the element handle
+     * that the {@link #defaultHashCode_() default hash code} depends on
+     * is changed.
+     *
+     * @since 1.8
+     */
+    protected final void hashCodeChanged_()
+    {
+        hashCode = 0;
+    }
+
+    private int cachedHashCode()
+    {
+        int h = hashCode;
+        if (h == 0)
+            hashCode = h = defaultHashCode_();
+        return h;
+    }
 }
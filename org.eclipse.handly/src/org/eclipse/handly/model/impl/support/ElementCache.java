@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -55,6 +55,21 @@ public class ElementCache
         super(maxSize);
     }
 
+    /**
+     * Constructs an empty <code>ElementCache</code> with the given maximum size,
+     * eviction policy, and a default {@link #getLoadFactor() load factor}.
+     *
+     * @param maxSize the maximum size of the cache (the bound)
+     * @param evictionPolicy the eviction policy of the cache
+     *  (not <code>null</code>)
+     * @throws IllegalArgumentException if <code>maxSize &lt; 1</code>
+     * @since 1.8
+     */
+    public ElementCache(int maxSize, EvictionPolicy evictionPolicy)
+    {
+        super(maxSize, evictionPolicy);
+    }
+
     /**
      * Returns the size of cache overflow.
      *
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import static org.eclipse.handly.model.IElementDeltaConstants.CHANGED;
+import static org.eclipse.handly.model.IElementDeltaConstants.F_CHILDREN;
+import static org.eclipse.handly.model.IElementDeltaConstants.F_FINE_GRAINED;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.handly.model.ElementDeltas;
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.model.IElementChangeEvent;
+import org.eclipse.handly.model.IElementDelta;
+
+/**
+ * An index of the element change listener list entries that are interested
+ * in specific element subtrees. The index is keyed by the elements of interest
+ * and all of their ancestors, so that the entries affected by an event can be
+ * found by walking only those paths of the delta tree that lead to the
+ * elements of interest.
+ * <p>
+ * An entry is regarded as affected by a delta tree if the tree contains
+ * a delta for an element of interest to the entry, for an ancestor of such
+ * an element that is the root of the delta tree, or for a descendant of such
+ * an element. It is also regarded as affected if the tree contains a coarse
+ * delta for an ancestor of such an element: a delta whose kind is not
+ * <code>CHANGED</code>, or whose changes are not described in terms of
+ * its children.
+ * </p>
+ * <p>
+ * Immutable; built for a given array of entries.
+ * </p>
+ */
+final class ElementChangeListenerIndex
+{
+    private final ElementChangeListenerList.Entry[] entries;
+    private final Map<IElement, Node> nodes = new HashMap<>();
+
+    /**
+     * Builds an index for the given entries.
+     *
+     * @param entries not <code>null</code>
+     */
+    ElementChangeListenerIndex(ElementChangeListenerList.Entry[] entries)
+    {
+        this.entries = entries;
+        for (ElementChangeListenerList.Entry entry : entries)
+        {
+            IElement[] elements = entry.getElements();
+            if (elements == null)
+                continue;
+            for (IElement element : elements)
+            {
+                getNode(element).entries.add(entry);
+                for (IElement e = element; e != null; e = Elements.getParent(
+                    e))
+                {
+                    getNode(e).entriesBelow.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entries this index has been built for.
+     *
+     * @return the entries (never <code>null</code>)
+     */
+    ElementChangeListenerList.Entry[] getEntries()
+    {
+        return entries;
+    }
+
+    /**
+     * Returns the entries interested in specific element subtrees
+     * that are affected by the given event.
+     *
+     * @param event not <code>null</code>
+     * @return the affected entries (never <code>null</code>)
+     */
+    Set<ElementChangeListenerList.Entry> findAffected(
+        IElementChangeEvent event)
+    {
+        Set<ElementChangeListenerList.Entry> result =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+        if (nodes.isEmpty())
+            return result;
+        for (IElementDelta delta : event.getDeltas())
+        {
+            if (ElementDeltas.isEmpty(delta))
+                continue;
+            IElement element = ElementDeltas.getElement(delta);
+            for (IElement e = Elements.getParent(element); e != null;
+                e = Elements.getParent(e))
+            {
+                Node node = nodes.get(e);
+                if (node != null)
+                    result.addAll(node.entries);
+            }
+            Node node = nodes.get(element);
+            if (node != null)
+                collectAffected(delta, node, result);
+        }
+        return result;
+    }
+
+    private void collectAffected(IElementDelta delta, Node node,
+        Set<ElementChangeListenerList.Entry> result)
+    {
+        result.addAll(node.entries);
+        if (isCoarse(delta))
+        {
+            result.addAll(node.entriesBelow);
+            return;
+        }
+        for (IElementDelta child : ElementDeltas.getAffectedChildren(delta))
+        {
+            Node childNode = nodes.get(ElementDeltas.getElement(child));
+            if (childNode != null)
+                collectAffected(child, childNode, result);
+        }
+    }
+
+    private static boolean isCoarse(IElementDelta delta)
+    {
+        if (ElementDeltas.getKind(delta) != CHANGED)
+            return true;
+        long flags = ElementDeltas.getFlags(delta);
+        return (flags & F_FINE_GRAINED) == 0 && (flags & ~F_CHILDREN) != 0;
+    }
+
+    private Node getNode(IElement element)
+    {
+        Node node = nodes.get(element);
+        if (node == null)
+        {
+            node = new Node();
+            nodes.put(element, node);
+        }
+        return node;
+    }
+
+    private static class Node
+    {
+        // entries interested in the element's subtree
+        final List<ElementChangeListenerList.Entry> entries =
+            new ArrayList<>(1);
+        // entries interested in the subtree of the element or a descendant
+        final List<ElementChangeListenerList.Entry> entriesBelow =
+            new ArrayList<>(1);
+    }
+}
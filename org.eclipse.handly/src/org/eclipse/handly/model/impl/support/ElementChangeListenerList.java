@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -15,7 +15,9 @@
  *******************************************************************************/
 package org.eclipse.handly.model.impl.support;
 
+import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.IElementChangeListener;
+import org.eclipse.handly.util.ArrayUtil;
 
 /**
  * A thread safe list of element change listeners.
@@ -50,22 +52,59 @@ public final class ElementChangeListenerList
      * @see #remove(IElementChangeListener)
      */
     public synchronized void add(IElementChangeListener listener, int eventMask)
+    {
+        add(listener, eventMask, null);
+    }
+
+    /**
+     * Adds the given element change listener for the specified event types
+     * and the subtrees rooted at the given elements to this list. If the given
+     * elements are <code>null</code>, the listener is interested in changes to
+     * any elements. Has no effect if an identical listener is already
+     * registered for these event types and elements.
+     * <p>
+     * After successful completion of this method, the given listener will be
+     * registered for exactly the specified event types and elements. If it was
+     * previously registered for other event types or elements, it will be
+     * de-registered for those event types or elements.
+     * </p>
+     *
+     * @param listener the listener to add (not <code>null</code>)
+     * @param eventMask the bit-wise OR of all event types of interest to the
+     *  listener
+     * @param elements the roots of the element subtrees of interest to the
+     *  listener, or <code>null</code> if the listener is interested in all
+     *  elements. Must not be empty and must not contain <code>null</code>s.
+     *  Clients <b>must not</b> modify the given array afterwards.
+     * @see #remove(IElementChangeListener)
+     * @since 1.8
+     */
+    public synchronized void add(IElementChangeListener listener, int eventMask,
+        IElement[] elements)
     {
         if (listener == null)
             throw new IllegalArgumentException();
+        if (elements != null && elements.length == 0)
+            throw new IllegalArgumentException();
+        if (elements != null && ArrayUtil.contains(elements, null))
+            throw new IllegalArgumentException();
         if (eventMask == 0)
         {
             remove(listener);
             return;
         }
-        Entry entry = new Entry(listener, eventMask);
+        Entry entry = new Entry(listener, eventMask, elements);
         final int oldSize = entries.length;
         // check for duplicates using identity
         for (int i = 0; i < oldSize; ++i)
         {
             if (entries[i].listener == listener)
             {
-                entries[i] = entry;
+                // Thread safety: copy on write, so that readers can
+                // rely on the identity of the array to detect changes
+                Entry[] newEntries = entries.clone();
+                newEntries[i] = entry;
+                this.entries = newEntries;
                 return;
             }
         }
@@ -151,11 +190,14 @@ public final class ElementChangeListenerList
     {
         private final IElementChangeListener listener;
         private final int eventMask;
+        private final IElement[] elements;
 
-        private Entry(IElementChangeListener listener, int eventMask)
+        private Entry(IElementChangeListener listener, int eventMask,
+            IElement[] elements)
         {
             this.listener = listener;
             this.eventMask = eventMask;
+            this.elements = elements;
         }
 
         /**
@@ -177,5 +219,19 @@ public final class ElementChangeListenerList
         {
             return eventMask;
         }
+
+        /**
+         * Returns the roots of the element subtrees of interest to the
+         * listener.
+         *
+         * @return the roots of the element subtrees of interest to the
+         *  listener, or <code>null</code> if the listener is interested in
+         *  all elements. Clients <b>must not</b> modify the returned array.
+         * @since 1.8
+         */
+        public IElement[] getElements()
+        {
+            return elements;
+        }
     }
 }
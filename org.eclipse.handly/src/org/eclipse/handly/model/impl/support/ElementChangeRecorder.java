@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -18,10 +18,7 @@ import static org.eclipse.handly.model.IElementDeltaConstants.F_CONTENT;
 import static org.eclipse.handly.model.IElementDeltaConstants.F_FINE_GRAINED;
 import static org.eclipse.handly.model.IElementDeltaConstants.F_REORDER;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.handly.model.Elements;
@@ -37,6 +34,25 @@ import org.eclipse.handly.model.impl.IElementImplExtension;
  * creates a delta tree over the cached state and the new state.
  * </p>
  * <p>
+ * By default, an element is reported as reordered if its previous sibling
+ * has changed. Thus, moving a single element may cause its former and new
+ * neighbors to be reported as reordered as well. In the {@link
+ * #setMinimalReorder(boolean) minimal reorder} mode, the recorder computes
+ * a minimal set of moved elements for each list of children and reports
+ * only those elements as reordered.
+ * </p>
+ * <p>
+ * If the maximum depth is not limited, the recorder does not descend into
+ * a subtree that is known to be {@link #isUnchangedSubtree(Object, Object,
+ * IElement) unchanged}, e.g. by means of the structural {@link
+ * Body#getFingerprint() fingerprints} of the bodies.
+ * </p>
+ * <p>
+ * The recorder keeps its working structures between recordings, so reusing
+ * an instance for repeated recordings avoids most of the allocations
+ * otherwise incurred by each recording.
+ * </p>
+ * <p>
  * Clients can use this class as it stands or subclass it as circumstances
  * warrant.
  * </p>
@@ -47,12 +63,10 @@ public class ElementChangeRecorder
     private IElementDeltaBuilder deltaBuilder;
     private int maxDepth;
 
-    private Map<IElement, Object> oldBodies;
-    private Map<IElement, ListItem> oldPositions;
-    private Map<IElement, ListItem> newPositions;
-    private Set<IElement> added;
-    private Set<IElement> removed;
+    private final ElementTable table = new ElementTable();
+    private int[] scratch = new int[0];
 
+    private boolean minimalReorder;
     private boolean recording;
 
     /**
@@ -66,6 +80,41 @@ public class ElementChangeRecorder
         return recording;
     }
 
+    /**
+     * Returns whether this change recorder reports only a minimal set of
+     * moved elements as reordered.
+     *
+     * @return <code>true</code> if the minimal reorder mode is on,
+     *  and <code>false</code> otherwise
+     * @see #setMinimalReorder(boolean)
+     * @since 1.8
+     */
+    public final boolean isMinimalReorder()
+    {
+        return minimalReorder;
+    }
+
+    /**
+     * Sets whether this change recorder should report only a minimal set of
+     * moved elements as reordered. In this mode, the recorder finds the
+     * longest subsequence of the children of an element that has retained
+     * its relative order, and reports as reordered only the children that
+     * are not part of that subsequence. This is more expensive than the
+     * default mode, but avoids reporting elements that have merely got
+     * a new neighbor. The mode cannot be changed while recording.
+     *
+     * @param minimalReorder <code>true</code> to turn on the minimal reorder
+     *  mode, and <code>false</code> to turn it off
+     * @throws IllegalStateException if this recorder is recording
+     * @since 1.8
+     */
+    public final void setMinimalReorder(boolean minimalReorder)
+    {
+        if (recording)
+            throw new IllegalStateException("Recording is in progress"); //$NON-NLS-1$
+        this.minimalReorder = minimalReorder;
+    }
+
     /**
      * Begins recording changes in the element tree rooted at the given
      * input element, reporting the changes to a new instance of default
@@ -141,10 +190,19 @@ public class ElementChangeRecorder
         if (!recording)
             throw new IllegalStateException("No recording to end"); //$NON-NLS-1$
         recording = false;
-        recordNewPositions(inputElement, 0);
-        findChanges(inputElement, 0);
-        findDeletions();
-        findChangesInPositioning(inputElement, 0);
+        try
+        {
+            findChanges(inputElement, 0);
+            findDeletions();
+            if (minimalReorder)
+                findMoves(0, 0);
+            else
+                findChangesInPositioning(0, 0);
+        }
+        finally
+        {
+            table.clear();
+        }
         return deltaBuilder;
     }
 
@@ -213,7 +271,7 @@ public class ElementChangeRecorder
      */
     protected void recordBody(Object body, IElement element)
     {
-        oldBodies.put(element, body);
+        table.oldBodies[table.add(element)] = body;
     }
 
     /**
@@ -242,15 +300,41 @@ public class ElementChangeRecorder
         ((Body)newBody).findContentChange((Body)oldBody, element, deltaBuilder);
     }
 
+    /**
+     * Returns whether there are no changes in the descendants of the given
+     * element, so that the recorder need not descend into the element's
+     * subtree. Changes in the element itself are found separately by {@link
+     * #findContentChange(Object, Object, IElement)}. Subclasses may override
+     * this method, but are not intended to invoke it.
+     * <p>
+     * This implementation returns <code>true</code> if both bodies are
+     * {@link Body} instances with equal non-zero {@link Body#getFingerprint()
+     * fingerprints}.
+     * </p>
+     *
+     * @param oldBody the old version of the element's body (never <code>null</code>)
+     * @param newBody the new version of the element's body (never <code>null</code>)
+     * @param element the element whose bodies are to be compared (never <code>null</code>)
+     * @return <code>true</code> if the element's subtree is known to be
+     *  unchanged, and <code>false</code> otherwise
+     * @since 1.8
+     */
+    protected boolean isUnchangedSubtree(Object oldBody, Object newBody,
+        IElement element)
+    {
+        if (!(oldBody instanceof Body) || !(newBody instanceof Body))
+            return false;
+        long fingerprint = ((Body)newBody).getFingerprint();
+        return fingerprint != 0
+            && fingerprint == ((Body)oldBody).getFingerprint();
+    }
+
     private void initialize()
     {
-        oldBodies = new HashMap<IElement, Object>(20);
-        oldPositions = new HashMap<IElement, ListItem>(20);
-        newPositions = new HashMap<IElement, ListItem>(20);
-        oldPositions.put(inputElement, new ListItem(null, null));
-        newPositions.put(inputElement, new ListItem(null, null));
-        added = new HashSet<IElement>(5);
-        removed = new HashSet<IElement>(5);
+        table.clear();
+        int index = table.add(inputElement); // 0
+        table.flags[index] = ElementTable.OLD_POSITION
+            | ElementTable.NEW_POSITION;
     }
 
     /*
@@ -276,7 +360,7 @@ public class ElementChangeRecorder
         IElement[] children =
             ((IElementImplExtension)element).getChildrenFromBody_(body);
 
-        insertPositions(children, false);
+        insertPositions(children, table.add(element), false);
 
         for (IElement child : children)
         {
@@ -284,66 +368,58 @@ public class ElementChangeRecorder
         }
     }
 
-    /*
-     * Fills the newPositions map with the new position information.
-     */
-    private void recordNewPositions(IElement newElement, int depth)
-    {
-        if (depth == maxDepth)
-            return;
-
-        IElement[] children;
-        try
-        {
-            children = Elements.getChildren(newElement);
-        }
-        catch (CoreException e)
-        {
-            return;
-        }
-
-        insertPositions(children, true);
-
-        for (IElement child : children)
-        {
-            recordNewPositions(child, depth + 1);
-        }
-    }
-
     /*
      * Inserts position information for the elements
-     * into the new or old positions map.
+     * into the element table.
      */
-    private void insertPositions(IElement[] elements, boolean isNew)
+    private void insertPositions(IElement[] elements, int parent,
+        boolean isNew)
     {
         int length = elements.length;
-        IElement previous = null, current = null, next = (length > 0)
-            ? elements[0] : null;
+        int previous = -1, current = -1, next = (length > 0) ? table.add(
+            elements[0]) : -1;
         for (int i = 0; i < length; i++)
         {
             previous = current;
             current = next;
-            next = (i + 1 < length) ? elements[i + 1] : null;
+            next = (i + 1 < length) ? table.add(elements[i + 1]) : -1;
             if (isNew)
-                newPositions.put(current, new ListItem(previous, next));
+            {
+                table.newPrevious[current] = previous;
+                table.newNext[current] = next;
+                table.flags[current] |= ElementTable.NEW_POSITION;
+            }
             else
-                oldPositions.put(current, new ListItem(previous, next));
+            {
+                table.oldPrevious[current] = previous;
+                table.oldNext[current] = next;
+                table.oldParents[current] = parent;
+                if ((table.flags[current] & ElementTable.OLD_POSITION) == 0)
+                {
+                    table.oldIndices[current] = i;
+                    table.flags[current] |= ElementTable.OLD_POSITION;
+                }
+            }
         }
     }
 
     /*
-     * Finds elements which have been added or changed.
+     * Finds elements which have been added or changed. Also records
+     * the new children and their positions along the way.
      */
     private void findChanges(IElement element, int depth)
     {
-        Object oldBody = removeOldBody(element);
+        int index = table.add(element);
+        Object oldBody = table.oldBodies[index];
         if (oldBody == null)
         {
             deltaBuilder.added(element);
-            added(element);
+            added(index);
         }
         else
         {
+            table.oldBodies[index] = null;
+
             Object newBody;
             try
             {
@@ -352,7 +428,7 @@ public class ElementChangeRecorder
             catch (CoreException e)
             {
                 deltaBuilder.removed(element);
-                removed(element);
+                removed(index);
                 return;
             }
 
@@ -365,8 +441,20 @@ public class ElementChangeRecorder
             if (oldBody != newBody)
                 findContentChange(oldBody, newBody, element);
 
-            for (IElement child : ((IElementImplExtension)element).getChildrenFromBody_(
-                newBody))
+            if (maxDepth == Integer.MAX_VALUE && isUnchangedSubtree(oldBody,
+                newBody, element))
+            {
+                table.flags[index] |= ElementTable.SKIPPED;
+                return;
+            }
+
+            IElement[] children =
+                ((IElementImplExtension)element).getChildrenFromBody_(newBody);
+
+            insertPositions(children, index, true);
+            table.newChildren[index] = children;
+
+            for (IElement child : children)
             {
                 findChanges(child, depth + 1);
             }
@@ -374,137 +462,320 @@ public class ElementChangeRecorder
     }
 
     /*
-     * Adds removed deltas for any elements left in the 'oldBodies' map.
+     * Adds removed deltas for any elements whose old bodies are left
+     * in the element table, except for the descendants of skipped elements.
      */
     private void findDeletions()
     {
-        for (IElement element : oldBodies.keySet())
+        for (int i = 0, n = table.size; i < n; i++)
         {
-            deltaBuilder.removed(element);
-            removed(element);
+            // a parent always precedes its children in the table
+            int parent = table.oldParents[i];
+            if (parent >= 0 && (table.flags[parent]
+                & ElementTable.SKIPPED) != 0)
+                table.flags[i] |= ElementTable.SKIPPED;
+
+            if (table.oldBodies[i] != null)
+            {
+                table.oldBodies[i] = null;
+                if ((table.flags[i] & ElementTable.SKIPPED) == 0)
+                {
+                    deltaBuilder.removed(table.elements[i]);
+                    removed(i);
+                }
+            }
         }
     }
 
     /*
      * Looks for changed positioning of elements.
      */
-    private void findChangesInPositioning(IElement element, int depth)
+    private void findChangesInPositioning(int index, int depth)
     {
-        if (added.contains(element) || removed.contains(element))
+        if ((table.flags[index] & (ElementTable.ADDED
+            | ElementTable.REMOVED)) != 0)
             return;
 
-        if (!isPositionedCorrectly(element))
+        if (!isPositionedCorrectly(index))
         {
             long flags = F_REORDER;
             if (depth < maxDepth)
                 flags |= F_FINE_GRAINED;
-            deltaBuilder.changed(element, flags);
+            deltaBuilder.changed(table.elements[index], flags);
         }
 
         if (depth == maxDepth)
             return;
 
-        IElement[] children;
-        try
+        IElement[] children = table.newChildren[index];
+        if (children == null)
+            return;
+
+        for (IElement child : children)
         {
-            children = Elements.getChildren(element);
+            findChangesInPositioning(table.indexOf(child), depth + 1);
         }
-        catch (CoreException e)
-        {
+    }
+
+    /*
+     * Looks for moved children in the minimal reorder mode.
+     */
+    private void findMoves(int index, int depth)
+    {
+        if ((table.flags[index] & (ElementTable.ADDED
+            | ElementTable.REMOVED)) != 0)
+            return;
+
+        if (depth == maxDepth)
             return;
+
+        IElement[] children = table.newChildren[index];
+        if (children == null)
+            return;
+
+        long flags = F_REORDER;
+        if (depth + 1 < maxDepth)
+            flags |= F_FINE_GRAINED;
+        int[] keys = findMoved(children);
+        for (int i = 0; i < children.length; i++)
+        {
+            if (keys[i] >= 0)
+                deltaBuilder.changed(children[i], flags);
         }
 
         for (IElement child : children)
         {
-            findChangesInPositioning(child, depth + 1);
+            findMoves(table.indexOf(child), depth + 1);
         }
     }
 
+    /*
+     * Finds which of the given new children have been moved. The children
+     * that are not in the longest increasing subsequence of old indices
+     * are considered moved; added or removed children are never considered
+     * moved. Returns an array whose first n elements are non-negative
+     * exactly for the moved children (n = newChildren.length).
+     */
+    private int[] findMoved(IElement[] newChildren)
+    {
+        int n = newChildren.length;
+        if (scratch.length < 3 * n)
+            scratch = new int[Math.max(3 * n, 2 * scratch.length)];
+        int[] keys = scratch; // [0, n): old index, or -1 if not retained
+        int[] tails = scratch; // [n, 2n): positions of the pile tops
+        int[] predecessors = scratch; // [2n, 3n)
+
+        // patience sorting over old indices of the retained children
+        int length = 0;
+        for (int i = 0; i < n; i++)
+        {
+            int index = table.indexOf(newChildren[i]);
+            if ((table.flags[index] & (ElementTable.OLD_POSITION
+                | ElementTable.REMOVED)) != ElementTable.OLD_POSITION)
+            {
+                keys[i] = -1;
+                continue;
+            }
+            int key = keys[i] = table.oldIndices[index];
+            int low = 0, high = length;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (keys[tails[n + mid]] < key)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            predecessors[2 * n + i] = (low > 0) ? tails[n + low - 1] : -1;
+            tails[n + low] = i;
+            if (low == length)
+                length++;
+        }
+
+        for (int i = (length > 0) ? tails[n + length - 1] : -1; i >= 0;
+            i = predecessors[2 * n + i])
+        {
+            keys[i] = -1;
+        }
+        return keys;
+    }
+
     /*
      * Repairs the positioning information after an element has been added.
      */
-    private void added(IElement element)
+    private void added(int index)
     {
-        added.add(element);
-        ListItem current = getNewPosition(element);
-        ListItem previous = null, next = null;
-        if (current.previous != null)
-            previous = getNewPosition(current.previous);
-        if (current.next != null)
-            next = getNewPosition(current.next);
-        if (previous != null)
-            previous.next = current.next;
-        if (next != null)
-            next.previous = current.previous;
+        table.flags[index] |= ElementTable.ADDED;
+        if ((table.flags[index] & ElementTable.NEW_POSITION) == 0)
+            return;
+        int previous = table.newPrevious[index];
+        int next = table.newNext[index];
+        if (previous >= 0)
+            table.newNext[previous] = next;
+        if (next >= 0)
+            table.newPrevious[next] = previous;
     }
 
     /*
      * Repairs the positioning information after an element has been removed.
      */
-    private void removed(IElement element)
+    private void removed(int index)
     {
-        removed.add(element);
-        ListItem current = getOldPosition(element);
-        ListItem previous = null, next = null;
-        if (current.previous != null)
-            previous = getOldPosition(current.previous);
-        if (current.next != null)
-            next = getOldPosition(current.next);
-        if (previous != null)
-            previous.next = current.next;
-        if (next != null)
-            next.previous = current.previous;
-
+        table.flags[index] |= ElementTable.REMOVED;
+        if ((table.flags[index] & ElementTable.OLD_POSITION) == 0)
+            return;
+        int previous = table.oldPrevious[index];
+        int next = table.oldNext[index];
+        if (previous >= 0)
+            table.oldNext[previous] = next;
+        if (next >= 0)
+            table.oldPrevious[next] = previous;
     }
 
     /*
      * Returns whether the element's position has not changed.
      */
-    private boolean isPositionedCorrectly(IElement element)
+    private boolean isPositionedCorrectly(int index)
     {
-        ListItem oldListItem = getOldPosition(element);
-        if (oldListItem == null)
+        int flags = table.flags[index];
+        if ((flags & ElementTable.OLD_POSITION) == 0)
             return false;
 
-        ListItem newListItem = getNewPosition(element);
-        if (newListItem == null)
+        if ((flags & ElementTable.NEW_POSITION) == 0)
             return false;
 
-        IElement oldPrevious = oldListItem.previous;
-        IElement newPrevious = newListItem.previous;
-        if (oldPrevious == null)
-            return (newPrevious == null);
-        else
-            return oldPrevious.equals(newPrevious);
+        return table.oldPrevious[index] == table.newPrevious[index];
     }
 
-    private Object removeOldBody(IElement element)
+    /*
+     * An insertion-ordered table of the elements involved in a recording.
+     * The state of an element is kept in parallel arrays at the element's
+     * index; positions refer to the indices of the neighbor elements (-1
+     * for none). The table is cleared rather than reallocated between
+     * recordings.
+     */
+    private static final class ElementTable
     {
-        return oldBodies.remove(element);
-    }
+        static final byte OLD_POSITION = 1;
+        static final byte NEW_POSITION = 2;
+        static final byte ADDED = 4;
+        static final byte REMOVED = 8;
+        static final byte SKIPPED = 16;
+
+        private static final int INITIAL_CAPACITY = 32;
+        private static final int MAX_RETAINED_CAPACITY = 1 << 14;
+
+        int size;
+        IElement[] elements;
+        Object[] oldBodies;
+        IElement[][] newChildren;
+        int[] oldPrevious, oldNext, newPrevious, newNext, oldIndices;
+        int[] oldParents;
+        byte[] flags;
+        private int[] buckets; // index + 1, or 0 if the bucket is free
+
+        ElementTable()
+        {
+            allocate(INITIAL_CAPACITY);
+        }
 
-    private ListItem getOldPosition(IElement element)
-    {
-        return oldPositions.get(element);
-    }
+        int indexOf(IElement element)
+        {
+            int mask = buckets.length - 1;
+            for (int b = hash(element) & mask;; b = (b + 1) & mask)
+            {
+                int index = buckets[b] - 1;
+                if (index < 0 || elements[index].equals(element))
+                    return index;
+            }
+        }
 
-    private ListItem getNewPosition(IElement element)
-    {
-        return newPositions.get(element);
-    }
+        int add(IElement element)
+        {
+            int mask = buckets.length - 1;
+            int b = hash(element) & mask;
+            for (;; b = (b + 1) & mask)
+            {
+                int index = buckets[b] - 1;
+                if (index < 0)
+                    break;
+                if (elements[index].equals(element))
+                    return index;
+            }
+            if (size == elements.length)
+            {
+                grow();
+                return add(element);
+            }
+            int index = size++;
+            buckets[b] = index + 1;
+            elements[index] = element;
+            oldPrevious[index] = oldNext[index] = -1;
+            newPrevious[index] = newNext[index] = -1;
+            oldIndices[index] = -1;
+            oldParents[index] = -1;
+            flags[index] = 0;
+            return index;
+        }
 
-    /*
-     * Doubly linked list item
-     */
-    private static class ListItem
-    {
-        public IElement previous;
-        public IElement next;
+        void clear()
+        {
+            if (elements.length > MAX_RETAINED_CAPACITY)
+            {
+                allocate(INITIAL_CAPACITY);
+                return;
+            }
+            Arrays.fill(elements, 0, size, null);
+            Arrays.fill(oldBodies, 0, size, null);
+            Arrays.fill(newChildren, 0, size, null);
+            Arrays.fill(buckets, 0);
+            size = 0;
+        }
+
+        private void allocate(int capacity)
+        {
+            size = 0;
+            elements = new IElement[capacity];
+            oldBodies = new Object[capacity];
+            newChildren = new IElement[capacity][];
+            oldPrevious = new int[capacity];
+            oldNext = new int[capacity];
+            newPrevious = new int[capacity];
+            newNext = new int[capacity];
+            oldIndices = new int[capacity];
+            oldParents = new int[capacity];
+            flags = new byte[capacity];
+            buckets = new int[2 * capacity]; // load factor <= 0.5
+        }
+
+        private void grow()
+        {
+            int capacity = 2 * elements.length;
+            elements = Arrays.copyOf(elements, capacity);
+            oldBodies = Arrays.copyOf(oldBodies, capacity);
+            newChildren = Arrays.copyOf(newChildren, capacity);
+            oldPrevious = Arrays.copyOf(oldPrevious, capacity);
+            oldNext = Arrays.copyOf(oldNext, capacity);
+            newPrevious = Arrays.copyOf(newPrevious, capacity);
+            newNext = Arrays.copyOf(newNext, capacity);
+            oldIndices = Arrays.copyOf(oldIndices, capacity);
+            oldParents = Arrays.copyOf(oldParents, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            buckets = new int[2 * capacity];
+            int mask = buckets.length - 1;
+            for (int index = 0; index < size; index++)
+            {
+                int b = hash(elements[index]) & mask;
+                while (buckets[b] != 0)
+                    b = (b + 1) & mask;
+                buckets[b] = index + 1;
+            }
+        }
 
-        public ListItem(IElement previous, IElement next)
+        private static int hash(IElement element)
         {
-            this.previous = previous;
-            this.next = next;
+            int h = element.hashCode();
+            return h ^ (h >>> 16);
         }
     }
 }
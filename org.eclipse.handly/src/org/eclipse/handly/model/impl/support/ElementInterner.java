@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+import org.eclipse.handly.model.IElement;
+
+/**
+ * A table of canonical element handles. Interning equal handles to a single
+ * canonical instance reduces the memory footprint of large collections of
+ * element handles and lets <code>equals</code> succeed on the identity check.
+ * <p>
+ * The table references its elements weakly, so that a canonical handle can
+ * be garbage collected once it is no longer used outside the table.
+ * </p>
+ * <p>
+ * A model may provide an interner for its elements by binding it in the
+ * model context: <code>context.get(ElementInterner.class)</code>. The
+ * interner can then be used by the model's handle factory methods and
+ * {@link org.eclipse.handly.model.IElementHandleFactory IElementHandleFactory}.
+ * Note that only fully initialized handles whose equality will never change
+ * may be interned. For example, a source construct must not be interned
+ * before its {@link SourceConstruct#setOccurrenceCount_(int) occurrence count}
+ * is set, and must not be changed after it has been interned.
+ * </p>
+ * <p>
+ * This implementation is thread-safe.
+ * </p>
+ *
+ * @since 1.8
+ */
+public class ElementInterner
+{
+    private static final int SEGMENT_COUNT = 16; // must be a power of 2
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * Constructs an empty interner.
+     */
+    public ElementInterner()
+    {
+        for (int i = 0; i < SEGMENT_COUNT; i++)
+            segments[i] = new Segment();
+    }
+
+    /**
+     * Returns the canonical handle equal to the given element. If this
+     * interner contains no element equal to the given element, the given
+     * element is added to the interner and becomes the canonical handle.
+     * An element equal to the given element but of a different class is
+     * never returned.
+     *
+     * @param element the element to intern (not <code>null</code>)
+     * @return the canonical handle (never <code>null</code>)
+     */
+    public <T extends IElement> T intern(T element)
+    {
+        if (element == null)
+            throw new IllegalArgumentException();
+        return segmentFor(element).intern(element);
+    }
+
+    /**
+     * Returns the number of canonical handles in this interner. The result
+     * is an estimate, since the handles may be garbage collected at any time.
+     *
+     * @return the size of the interner
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /**
+     * Removes all of the canonical handles from this interner.
+     */
+    public void clear()
+    {
+        for (Segment segment : segments)
+            segment.clear();
+    }
+
+    private Segment segmentFor(Object element)
+    {
+        int h = element.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    private static class Segment
+    {
+        private final WeakHashMap<IElement, WeakReference<IElement>> map =
+            new WeakHashMap<>();
+
+        synchronized <T extends IElement> T intern(T element)
+        {
+            WeakReference<IElement> ref = map.get(element);
+            if (ref != null)
+            {
+                IElement canonical = ref.get();
+                if (canonical != null)
+                {
+                    if (canonical.getClass() != element.getClass())
+                        return element;
+                    @SuppressWarnings("unchecked")
+                    T result = (T)canonical;
+                    return result;
+                }
+            }
+            map.put(element, new WeakReference<>(element));
+            return element;
+        }
+
+        synchronized int size()
+        {
+            return map.size();
+        }
+
+        synchronized void clear()
+        {
+            map.clear();
+        }
+    }
+}
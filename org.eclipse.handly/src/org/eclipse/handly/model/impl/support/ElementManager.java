@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -19,7 +19,13 @@ import static org.eclipse.handly.model.impl.IElementImplExtension.CloseHint.PARE
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.handly.buffer.IBuffer;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.model.IElement;
@@ -32,6 +38,16 @@ import org.eclipse.handly.model.impl.IElementImplExtension;
  * <p>
  * An instance of this class is safe for use by multiple threads.
  * </p>
+ * <p>
+ * By default, all accesses to the body cache are serialized on the element
+ * manager lock. If the body cache is an {@link IConcurrentBodyCache}, element
+ * body lookups are performed optimistically without acquiring the lock and
+ * fall back to a locked lookup only when they overlap with an update of the
+ * body cache, so that threads concurrently looking up element bodies do not
+ * contend with each other. Either way, each lookup is atomic with respect to
+ * each update of the body cache, such as putting the new structure of an
+ * element or removing an element along with its children.
+ * </p>
  *
  * @see IElementImplSupport#getElementManager_()
  */
@@ -41,6 +57,23 @@ public class ElementManager
 
     protected final IBodyCache cache;
 
+    private final boolean concurrentLookups;
+
+    // Incremented on entering and on leaving the outermost update of the cache,
+    // so that it is odd while an update is in progress
+    private volatile long updateStamp;
+
+    private int updateDepth; // guarded by this
+
+    // Elements that are currently being opened, along with their openers
+    private final Map<IElement, OpenTicket> openTickets =
+        new ConcurrentHashMap<>();
+
+    // Open tickets that threads are currently waiting for
+    private final Map<Thread, OpenTicket> awaitedTickets = new HashMap<>(); // guarded by itself
+
+    private final AtomicLong deduplicatedOpenCount = new AtomicLong();
+
     // Temporary cache of newly opened elements
     private ThreadLocal<TemporaryCache> temporaryCache = new ThreadLocal<>();
 
@@ -50,6 +83,10 @@ public class ElementManager
     /**
      * Constructs an element manager with the given body cache.
      *
+     * If the given cache is an {@link IConcurrentBodyCache}, the element
+     * manager will look up element bodies without acquiring the element
+     * manager lock.
+     *
      * @param cache the body cache to be used by the element manager
      *  (not <code>null</code>)
      */
@@ -59,6 +96,7 @@ public class ElementManager
             throw new IllegalArgumentException();
 
         this.cache = cache;
+        this.concurrentLookups = cache instanceof IConcurrentBodyCache;
     }
 
     /**
@@ -77,6 +115,59 @@ public class ElementManager
         return workingCopyInfos.keySet().toArray(NO_WORKING_COPIES);
     }
 
+    /**
+     * Returns the number of times an element was not built by a thread that
+     * requested opening the element because another thread was concurrently
+     * opening the same element and its result could be shared.
+     *
+     * @return the number of deduplicated element openings
+     * @since 1.8
+     */
+    public final long getDeduplicatedOpenCount()
+    {
+        return deduplicatedOpenCount.get();
+    }
+
+    /**
+     * Returns an estimate of how full the body cache of this manager is.
+     *
+     * @return the fill ratio of the body cache (&gt;= 0)
+     * @see IBodyCache#fillRatio()
+     * @since 1.8
+     */
+    public final double getCacheFillRatio()
+    {
+        if (concurrentLookups)
+            return cache.fillRatio();
+        synchronized (this)
+        {
+            return cache.fillRatio();
+        }
+    }
+
+    /**
+     * Returns whether a thread other than the current thread is currently
+     * opening an element. Background activities may use this method to yield
+     * to the foreground requests for opening elements.
+     * <p>
+     * Note that the result may immediately become stale.
+     * </p>
+     *
+     * @return <code>true</code> if another thread is opening an element,
+     *  and <code>false</code> otherwise
+     * @since 1.8
+     */
+    public final boolean isOpeningInOtherThread()
+    {
+        Thread current = Thread.currentThread();
+        for (OpenTicket ticket : openTickets.values())
+        {
+            if (ticket.opener != current)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Attempts to close the given element according to options specified in the
      * given context. If the current state of an open element does not permit
@@ -112,16 +203,9 @@ public class ElementManager
      * @return the corresponding body for the given element, or
      *  <code>null</code> if no body is registered for the element
      */
-    synchronized Object get(IElementImplSupport element)
+    Object get(IElementImplSupport element)
     {
-        TemporaryCache tempCache = temporaryCache.get();
-        if (tempCache != null)
-        {
-            Object body = tempCache.get(element);
-            if (body != null)
-                return body;
-        }
-        return cache.get(element);
+        return lookup(element, false);
     }
 
     /**
@@ -138,7 +222,12 @@ public class ElementManager
      * @return the corresponding body for the given element, or
      *  <code>null</code> if no body is registered for the element
      */
-    synchronized Object peek(IElementImplSupport element)
+    Object peek(IElementImplSupport element)
+    {
+        return lookup(element, true);
+    }
+
+    private Object lookup(IElementImplSupport element, boolean peek)
     {
         TemporaryCache tempCache = temporaryCache.get();
         if (tempCache != null)
@@ -147,7 +236,21 @@ public class ElementManager
             if (body != null)
                 return body;
         }
-        return cache.peek(element);
+        if (concurrentLookups)
+        {
+            long stamp = updateStamp;
+            if ((stamp & 1) == 0) // no update in progress
+            {
+                Object body = peek ? cache.peek(element) : cache.get(element);
+                if (stamp == updateStamp)
+                    return body;
+            }
+            // the lookup overlapped with an update: retry under the lock
+        }
+        synchronized (this)
+        {
+            return peek ? cache.peek(element) : cache.get(element);
+        }
     }
 
     /**
@@ -162,17 +265,25 @@ public class ElementManager
     synchronized void put(IElementImplSupport element,
         Map<IElement, Object> newElements)
     {
-        // remove existing children as they are replaced with the new children contained in newElements
-        Object body = cache.peek(element);
-        if (body != null)
+        beginUpdate();
+        try
         {
-            for (IElement child : element.getChildrenFromBody_(body))
+            // remove existing children as they are replaced with the new children contained in newElements
+            Object body = cache.peek(element);
+            if (body != null)
             {
-                close(child, of(CLOSE_HINT, PARENT_CLOSING));
+                for (IElement child : element.getChildrenFromBody_(body))
+                {
+                    close(child, of(CLOSE_HINT, PARENT_CLOSING));
+                }
             }
-        }
 
-        cache.putAll(newElements);
+            cache.putAll(newElements);
+        }
+        finally
+        {
+            endUpdate();
+        }
 
         if (element instanceof ISourceFileImplSupport)
         {
@@ -201,7 +312,15 @@ public class ElementManager
         if (existingBody != null)
             return existingBody;
 
-        cache.putAll(newElements);
+        beginUpdate();
+        try
+        {
+            cache.putAll(newElements);
+        }
+        finally
+        {
+            endUpdate();
+        }
         return null;
     }
 
@@ -218,12 +337,138 @@ public class ElementManager
         Object body = cache.peek(element);
         if (body != null)
         {
-            element.removing_(body);
-            for (IElement child : element.getChildrenFromBody_(body))
+            beginUpdate();
+            try
             {
-                close(child, of(CLOSE_HINT, PARENT_CLOSING));
+                element.removing_(body);
+                for (IElement child : element.getChildrenFromBody_(body))
+                {
+                    close(child, of(CLOSE_HINT, PARENT_CLOSING));
+                }
+                cache.remove(element);
+            }
+            finally
+            {
+                endUpdate();
             }
-            cache.remove(element);
+        }
+    }
+
+    // must be called under the lock
+    private void beginUpdate()
+    {
+        if (updateDepth++ == 0)
+            updateStamp++;
+    }
+
+    // must be called under the lock
+    private void endUpdate()
+    {
+        if (--updateDepth == 0)
+            updateStamp++;
+    }
+
+    /**
+     * Registers the current thread as the opener of the given element, unless
+     * another thread is already opening the element. In the latter case, waits
+     * for the other thread to finish opening the element and returns a ticket
+     * with the resulting body; if the other thread fails to open the element,
+     * retries the registration. If the current thread is registered as
+     * the opener, the returned ticket has no body and must ultimately be
+     * passed to {@link #endOpen(OpenTicket, Object)}.
+     * <p>
+     * Does not wait if that could cause a deadlock, e.g., if the other thread
+     * is (directly or indirectly) waiting for the current thread; in this case,
+     * the returned ticket has no body and the element is to be opened by
+     * the current thread independently.
+     * </p>
+     *
+     * @param element the element being opened (not <code>null</code>)
+     * @param monitor a progress monitor (not <code>null</code>),
+     *  which is checked for cancellation while waiting
+     * @return an open ticket (never <code>null</code>)
+     * @throws OperationCanceledException if waiting is canceled
+     */
+    OpenTicket beginOpen(IElementImplSupport element, IProgressMonitor monitor)
+    {
+        for (;;)
+        {
+            OpenTicket ticket = new OpenTicket(element);
+            OpenTicket inFlight = openTickets.putIfAbsent(element, ticket);
+            if (inFlight == null)
+            {
+                // another thread may have just finished opening the element
+                Object body;
+                synchronized (this)
+                {
+                    body = cache.peek(element);
+                }
+                if (body == null)
+                    return ticket;
+                endOpen(ticket, body);
+                deduplicatedOpenCount.incrementAndGet();
+                return new OpenTicket(body);
+            }
+            if (!startWaiting(inFlight))
+                return new OpenTicket(null);
+            Object body;
+            try
+            {
+                body = inFlight.await(monitor);
+            }
+            finally
+            {
+                stopWaiting();
+            }
+            if (body != null)
+            {
+                deduplicatedOpenCount.incrementAndGet();
+                return new OpenTicket(body);
+            }
+        }
+    }
+
+    /**
+     * Unregisters the current thread as the opener of an element and shares
+     * the resulting body with threads waiting for the element to open.
+     * Does nothing if the given ticket has not been registered.
+     *
+     * @param ticket an open ticket returned by {@link #beginOpen(
+     *  IElementImplSupport, IProgressMonitor) beginOpen} (not <code>null</code>)
+     * @param body the body of the opened element, or <code>null</code>
+     *  if the element could not be opened
+     */
+    void endOpen(OpenTicket ticket, Object body)
+    {
+        if (ticket.element == null)
+            return;
+        openTickets.remove(ticket.element, ticket);
+        ticket.done(body);
+    }
+
+    private boolean startWaiting(OpenTicket inFlight)
+    {
+        Thread current = Thread.currentThread();
+        if (Thread.holdsLock(this)) // the opener may need the lock
+            return false;
+        synchronized (awaitedTickets)
+        {
+            for (OpenTicket t = inFlight; t != null; t = awaitedTickets.get(
+                t.opener))
+            {
+                if (t.opener == current)
+                    return false;
+            }
+            awaitedTickets.put(current, inFlight);
+            return true;
+        }
+    }
+
+    private void stopWaiting()
+    {
+        synchronized (awaitedTickets)
+        {
+            awaitedTickets.remove(Thread.currentThread());
         }
     }
 
@@ -380,6 +625,68 @@ public class ElementManager
         }
     }
 
+    /**
+     * Represents an attempt to open an element.
+     */
+    static final class OpenTicket
+    {
+        final IElement element; // null if not registered
+        final Thread opener;
+        private final CountDownLatch latch;
+        private volatile Object body;
+
+        OpenTicket(IElement element)
+        {
+            this.element = element;
+            this.opener = Thread.currentThread();
+            this.latch = new CountDownLatch(1);
+        }
+
+        OpenTicket(Object sharedBody)
+        {
+            this.element = null;
+            this.opener = null;
+            this.latch = null;
+            this.body = sharedBody;
+        }
+
+        /**
+         * Returns the body of the element opened by another thread,
+         * or <code>null</code> if the element is to be opened by
+         * the current thread.
+         *
+         * @return the shared body, or <code>null</code> if none
+         */
+        Object getSharedBody()
+        {
+            return element == null ? body : null;
+        }
+
+        void done(Object body)
+        {
+            this.body = body;
+            latch.countDown();
+        }
+
+        Object await(IProgressMonitor monitor)
+        {
+            try
+            {
+                while (!latch.await(10, TimeUnit.MILLISECONDS))
+                {
+                    if (monitor.isCanceled())
+                        throw new OperationCanceledException();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            }
+            return body;
+        }
+    }
+
     private static class TemporaryCache
     {
         final TemporaryCache parent;
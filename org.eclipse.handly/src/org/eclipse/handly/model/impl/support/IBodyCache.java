@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -80,4 +80,21 @@ public interface IBodyCache
      * @param element the element whose body is to be removed from the cache
      */
     void remove(IElement element);
+
+    /**
+     * Returns an estimate of how full this cache is, i.e., the ratio
+     * of the current size of the cache to its bound. The returned value
+     * may be greater than 1 if the cache has overflowed.
+     * <p>
+     * This implementation returns <code>0</code>, which is appropriate
+     * for caches that are not bounded.
+     * </p>
+     *
+     * @return the fill ratio of this cache (&gt;= 0)
+     * @since 1.8
+     */
+    default double fillRatio()
+    {
+        return 0;
+    }
 }
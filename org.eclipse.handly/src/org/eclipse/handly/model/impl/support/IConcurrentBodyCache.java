@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import org.eclipse.handly.model.IElement;
+
+/**
+ * Represents a cache of element handle/body relationships that supports
+ * concurrent lookups.
+ * <p>
+ * The {@link #get(IElement) get} and {@link #peek(IElement) peek} methods
+ * of a concurrent body cache may be invoked by multiple threads concurrently
+ * with each other and with any of the mutating methods, i.e., <code>put</code>,
+ * <code>putAll</code> and <code>remove</code>. Implementations must guarantee
+ * that such lookups never fail or corrupt the cache and never return a body
+ * that has not been stored in the cache by a mutating method; they may return
+ * either the old or the new body for an element that is concurrently updated.
+ * In particular, <code>get</code> is allowed to update cache ordering only
+ * in a thread-safe manner, or not at all.
+ * </p>
+ * <p>
+ * The mutating methods need not be thread-safe. When used with an {@link
+ * ElementManager}, they are always invoked under the element manager lock.
+ * </p>
+ * <p>
+ * An element manager constructed with a concurrent body cache serves element
+ * body lookups without acquiring the element manager lock (see {@link
+ * ElementManager#ElementManager(IBodyCache)}).
+ * </p>
+ *
+ * @since 1.8
+ */
+public interface IConcurrentBodyCache
+    extends IBodyCache
+{
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -258,6 +258,13 @@ public interface IElementImplSupport
      * and the openable parent did not create a body for this element,
      * this implementation throws a {@link #newDoesNotExistException_()}.
      * </p>
+     * <p>
+     * Unless <code>FORCE_OPEN</code> is <code>true</code>, this implementation
+     * does not build the structure of this element if another thread is already
+     * opening an equal element; instead, it waits for the other thread to finish
+     * and returns the resulting body. If the other thread fails to open the
+     * element, this implementation attempts to open it as usual.
+     * </p>
      */
     @Override
     default Object open_(IContext context, IProgressMonitor monitor)
@@ -281,35 +288,57 @@ public interface IElementImplSupport
 
             ElementManager elementManager = getElementManager_();
 
-            Map<IElement, Object> newElements = new HashMap<IElement, Object>();
+            boolean forceOpen = context.getOrDefault(FORCE_OPEN);
 
-            elementManager.pushTemporaryCache(newElements);
-            try
-            {
-                buildStructure_(with(of(NEW_ELEMENTS, newElements), context),
-                    subMonitor.split(1));
-            }
-            finally
+            ElementManager.OpenTicket ticket = null;
+            if (!forceOpen)
             {
-                elementManager.popTemporaryCache();
+                ticket = elementManager.beginOpen(this, subMonitor);
+                body = ticket.getSharedBody();
+                if (body != null)
+                    return body;
             }
 
-            body = newElements.get(this);
-            if (body == null)
+            body = null;
+            try
             {
-                throw new AssertionError(MessageFormat.format(
-                    "No body for {0}. Incorrect {1}#buildStructure_ implementation?", //$NON-NLS-1$
-                    toString(), getClass().getSimpleName()));
+                Map<IElement, Object> newElements =
+                    new HashMap<IElement, Object>();
+
+                elementManager.pushTemporaryCache(newElements);
+                try
+                {
+                    buildStructure_(with(of(NEW_ELEMENTS, newElements),
+                        context), subMonitor.split(1));
+                }
+                finally
+                {
+                    elementManager.popTemporaryCache();
+                }
+
+                Object newBody = newElements.get(this);
+                if (newBody == null)
+                {
+                    throw new AssertionError(MessageFormat.format(
+                        "No body for {0}. Incorrect {1}#buildStructure_ implementation?", //$NON-NLS-1$
+                        toString(), getClass().getSimpleName()));
+                }
+
+                if (forceOpen)
+                    elementManager.put(this, newElements);
+                else
+                {
+                    Object existingBody = elementManager.putIfAbsent(this,
+                        newElements);
+                    if (existingBody != null)
+                        newBody = existingBody;
+                }
+                body = newBody;
             }
-
-            if (context.getOrDefault(FORCE_OPEN))
-                elementManager.put(this, newElements);
-            else
+            finally
             {
-                Object existingBody = elementManager.putIfAbsent(this,
-                    newElements);
-                if (existingBody != null)
-                    body = existingBody;
+                if (ticket != null)
+                    elementManager.endOpen(ticket, body);
             }
         }
         return body;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -38,10 +38,12 @@ import org.eclipse.handly.buffer.TextFileBuffer;
 import org.eclipse.handly.context.Context;
 import org.eclipse.handly.context.IContext;
 import org.eclipse.handly.internal.Activator;
+import org.eclipse.handly.internal.SourceContentsSupplier;
 import org.eclipse.handly.model.ElementDeltas;
 import org.eclipse.handly.model.Elements;
 import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.IElementDelta;
+import org.eclipse.handly.model.Models;
 import org.eclipse.handly.model.impl.DefaultWorkingCopyCallback;
 import org.eclipse.handly.model.impl.IElementImplExtension;
 import org.eclipse.handly.model.impl.IReconcileStrategy;
@@ -604,13 +606,25 @@ public interface ISourceFileImplSupport
     /**
      * This implementation delegates to {@link #buildSourceStructure_(IContext,
      * IProgressMonitor)} with an appropriately augmented context. In particular,
-     * if the given context contains neither {@link #SOURCE_CONTENTS} nor {@link
-     * #SOURCE_AST}, it is augmented with {@link #SOURCE_CONTENTS} and the
-     * corresponding {@link #SOURCE_SNAPSHOT} obtained from the underlying
-     * file's {@link #getFileSnapshotProvider_() stored contents}. Also,
-     * performs some post-processing of created {@link SourceElementBody}s
-     * to complete their initialization, such as setting the source snapshot
-     * on which they are based.
+     * if the given context contains none of {@link #SOURCE_CONTENTS}, {@link
+     * #SOURCE_CHAR_SEQUENCE} and {@link #SOURCE_AST}, it is augmented with
+     * {@link #SOURCE_CONTENTS} and the corresponding {@link #SOURCE_SNAPSHOT}
+     * obtained from the underlying file's {@link #getFileSnapshotProvider_()
+     * stored contents}. In the latter case, if the model context provides
+     * a {@link StructureStore}, the structure is loaded from the store when
+     * it is up to date with the contents of the underlying file, and is saved
+     * to the store after it has been built otherwise (the store file is then
+     * written in the background). If the context specifies only one of
+     * <code>SOURCE_CONTENTS</code> and <code>SOURCE_CHAR_SEQUENCE</code>,
+     * it is augmented with the other one, so that <code>
+     * buildSourceStructure_</code> may use either of them; in the latter case,
+     * the source string is created lazily, only when it is requested.
+     * Also, performs some post-processing
+     * of created {@link SourceElementBody}s to complete their initialization,
+     * such as setting the source snapshot on which they are based and, since
+     * 1.8, computing their structural {@link Body#getFingerprint()
+     * fingerprints} where {@link SourceElementBody#isFingerprintSupported()
+     * supported}.
      *
      * @throws CoreException {@inheritDoc}
      * @throws OperationCanceledException {@inheritDoc}
@@ -619,8 +633,9 @@ public interface ISourceFileImplSupport
     default void buildStructure_(IContext context, IProgressMonitor monitor)
         throws CoreException
     {
+        StructureStore store = null;
         if (!context.containsKey(SOURCE_CONTENTS) && !context.containsKey(
-            SOURCE_AST))
+            SOURCE_CHAR_SEQUENCE) && !context.containsKey(SOURCE_AST))
         {
             if (isWorkingCopy_())
                 throw new AssertionError();
@@ -644,23 +659,45 @@ public interface ISourceFileImplSupport
             }
             context = with(of(SOURCE_CONTENTS, snapshot.getContents()), of(
                 SOURCE_SNAPSHOT, snapshot.getWrappedSnapshot()), context);
+            store = Models.getModelContext(getModel_()).get(
+                StructureStore.class);
         }
 
-        buildSourceStructure_(context, monitor);
+        CharSequence text = context.get(SOURCE_CHAR_SEQUENCE);
+        if (text == null)
+        {
+            text = context.get(SOURCE_CONTENTS);
+            if (text != null)
+                context = with(of(SOURCE_CHAR_SEQUENCE, text), context);
+        }
+        else if (!context.containsKey(SOURCE_CONTENTS))
+        {
+            context = with(new Context().bind(SOURCE_CONTENTS).toSupplier(
+                new SourceContentsSupplier(text)), context);
+        }
 
         Map<IElement, Object> newElements = context.get(NEW_ELEMENTS);
+        if (store == null || !store.load(this, context.get(SOURCE_CONTENTS),
+            newElements))
+        {
+            buildSourceStructure_(context, monitor);
+            if (store != null)
+                store.save(this, context.get(SOURCE_CONTENTS), newElements);
+        }
+
         Object body = newElements.get(this);
         if (body instanceof SourceElementBody)
         {
             SourceElementBody thisBody = (SourceElementBody)body;
 
-            String source = context.get(SOURCE_CONTENTS);
-            if (source != null)
-                thisBody.setFullRange(new TextRange(0, source.length()));
+            if (text != null)
+                thisBody.setFullRange(new TextRange(0, text.length()));
 
             ISnapshot snapshot = context.get(SOURCE_SNAPSHOT);
             if (snapshot != null)
                 thisBody.setSnapshot(snapshot, newElements);
+
+            thisBody.computeFingerprint(newElements);
         }
     }
 
@@ -681,6 +718,18 @@ public interface ISourceFileImplSupport
         ISourceFileImplSupport.class.getName() + ".sourceContents", //$NON-NLS-1$
         String.class);
 
+    /**
+     * Specifies the source text as a character sequence. Unlike {@link
+     * #SOURCE_CONTENTS}, the source text need not be materialized as a string,
+     * so it can be streamed to a parser that accepts a character sequence.
+     *
+     * @see #buildSourceStructure_(IContext, IProgressMonitor)
+     * @since 1.8
+     */
+    Property<CharSequence> SOURCE_CHAR_SEQUENCE = Property.get(
+        ISourceFileImplSupport.class.getName() + ".sourceCharSequence", //$NON-NLS-1$
+        CharSequence.class);
+
     /**
      * Specifies the source snapshot.
      *
@@ -709,10 +758,15 @@ public interface ISourceFileImplSupport
      * {@link #SOURCE_CONTENTS} - Specifies the source string to use when
      * building the structure.
      * </li>
+     * <li>
+     * {@link #SOURCE_CHAR_SEQUENCE} - Specifies the source text to use when
+     * building the structure as a character sequence.
+     * </li>
      * </ul>
      * <p>
-     * At least one of <code>SOURCE_AST</code> or <code>SOURCE_CONTENTS</code>
-     * must have a non-null value in the given context.
+     * At least one of <code>SOURCE_AST</code>, <code>SOURCE_CONTENTS</code>
+     * or <code>SOURCE_CHAR_SEQUENCE</code> must have a non-null value
+     * in the given context.
      * </p>
      * <p>
      * The given context may provide additional data that this method can use,
@@ -721,8 +775,8 @@ public interface ISourceFileImplSupport
      * <ul>
      * <li>
      * {@link #SOURCE_SNAPSHOT} - Specifies the source snapshot from which
-     * <code>SOURCE_AST</code> was created or <code>SOURCE_CONTENTS</code>
-     * was obtained. The snapshot may expire.
+     * <code>SOURCE_AST</code> was created or the source text was obtained.
+     * The snapshot may expire.
      * </li>
      * </ul>
      *
@@ -820,10 +874,15 @@ public interface ISourceFileImplSupport
          * {@link #SOURCE_CONTENTS} - Specifies the source string to use when
          * reconciling.
          * </li>
+         * <li>
+         * {@link #SOURCE_CHAR_SEQUENCE} - Specifies the source text to use when
+         * reconciling as a character sequence.
+         * </li>
          * </ul>
          * <p>
-         * At least one of <code>SOURCE_AST</code> or <code>SOURCE_CONTENTS</code>
-         * must have a non-null value in the given context.
+         * At least one of <code>SOURCE_AST</code>, <code>SOURCE_CONTENTS</code>
+         * or <code>SOURCE_CHAR_SEQUENCE</code> must have a non-null value
+         * in the given context.
          * </p>
          * <p>
          * The given context may provide additional data that this method can use,
@@ -832,8 +891,8 @@ public interface ISourceFileImplSupport
          * <ul>
          * <li>
          * {@link #SOURCE_SNAPSHOT} - Specifies the source snapshot from which
-         * <code>SOURCE_AST</code> was created or <code>SOURCE_CONTENTS</code>
-         * was obtained. The snapshot may expire.
+         * <code>SOURCE_AST</code> was created or the source text was
+         * obtained. The snapshot may expire.
          * </li>
          * </ul>
          * <p>
@@ -932,10 +991,15 @@ public interface ISourceFileImplSupport
          * {@link #SOURCE_CONTENTS} - Specifies the source string to use when
          * reconciling.
          * </li>
+         * <li>
+         * {@link #SOURCE_CHAR_SEQUENCE} - Specifies the source text to use when
+         * reconciling as a character sequence.
+         * </li>
          * </ul>
          * <p>
-         * At least one of <code>SOURCE_AST</code> or <code>SOURCE_CONTENTS</code>
-         * must have a non-null value in the given context.
+         * At least one of <code>SOURCE_AST</code>, <code>SOURCE_CONTENTS</code>
+         * or <code>SOURCE_CHAR_SEQUENCE</code> must have a non-null value
+         * in the given context.
          * </p>
          * <p>
          * The given context may provide additional data that this method can use,
@@ -944,8 +1008,8 @@ public interface ISourceFileImplSupport
          * <ul>
          * <li>
          * {@link #SOURCE_SNAPSHOT} - Specifies the source snapshot from which
-         * <code>SOURCE_AST</code> was created or <code>SOURCE_CONTENTS</code>
-         * was obtained. The snapshot may expire.
+         * <code>SOURCE_AST</code> was created or the source text was
+         * obtained. The snapshot may expire.
          * </li>
          * </ul>
          * <p>
@@ -965,8 +1029,10 @@ public interface ISourceFileImplSupport
         protected void reconcileStructure(IContext context,
             IProgressMonitor monitor) throws CoreException
         {
+            // the source string may be supplied lazily; don't request it
             if (context.get(SOURCE_AST) == null && context.get(
-                SOURCE_CONTENTS) == null)
+                SOURCE_CHAR_SEQUENCE) == null && context.get(
+                    SOURCE_CONTENTS) == null)
             {
                 throw new IllegalArgumentException();
             }
@@ -1270,8 +1336,10 @@ class ReconcileStrategy
     public void reconcile(IContext context, IProgressMonitor monitor)
         throws CoreException
     {
+        // the source string may be supplied lazily; don't request it
         if (context.get(SOURCE_AST) == null && context.get(
-            SOURCE_CONTENTS) == null)
+            SOURCE_CHAR_SEQUENCE) == null && context.get(
+                SOURCE_CONTENTS) == null)
         {
             throw new IllegalArgumentException();
         }
@@ -1293,8 +1361,12 @@ class ReconcileStrategy
                 SOURCE_AST));
 
         if (context.containsKey(SOURCE_CONTENTS))
-            context2.bind(ISourceFileImplSupport.SOURCE_CONTENTS).to(
-                context.get(SOURCE_CONTENTS));
+            context2.bind(ISourceFileImplSupport.SOURCE_CONTENTS).toSupplier(
+                () -> context.get(SOURCE_CONTENTS));
+
+        if (context.containsKey(SOURCE_CHAR_SEQUENCE))
+            context2.bind(ISourceFileImplSupport.SOURCE_CHAR_SEQUENCE).to(
+                context.get(SOURCE_CHAR_SEQUENCE));
 
         if (context.containsKey(SOURCE_SNAPSHOT))
             context2.bind(ISourceFileImplSupport.SOURCE_SNAPSHOT).to(
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import static org.eclipse.handly.context.Contexts.EMPTY_CONTEXT;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
+
+/**
+ * A low-priority system job that opens the elements of a model in the
+ * background, so that subsequent requests for the elements can be served
+ * from the body cache.
+ * <p>
+ * Starting from a given root element, the job opens {@link
+ * IElementImplSupport#isOpenable_() openable} elements in the breadth-first
+ * order, i.e., level by level (e.g., projects, then source folders, then
+ * packages, then source files). The job stops when all the elements have
+ * been opened or the {@link ElementManager#getCacheFillRatio() fill ratio}
+ * of the body cache has reached the {@link #getMaxFillRatio() maximum fill
+ * ratio}, so that prewarming does not cause elements to be evicted from the
+ * cache. Before opening each element, the job waits while other threads are
+ * {@link ElementManager#isOpeningInOtherThread() opening} elements of the
+ * model.
+ * </p>
+ * <p>
+ * Since prewarming competes with the rest of the workbench startup for I/O
+ * and CPU, models are expected to schedule the job only if prewarming is
+ * {@link #isEnabled() enabled}.
+ * </p>
+ *
+ * @since 1.8
+ */
+public class ModelPrewarmingJob
+    extends Job
+{
+    /**
+     * The name of the system property that enables model prewarming:
+     * <code>"org.eclipse.handly.model.prewarming"</code>.
+     * Prewarming is disabled by default.
+     *
+     * @see #isEnabled()
+     */
+    public static final String ENABLED_PROPERTY =
+        "org.eclipse.handly.model.prewarming"; //$NON-NLS-1$
+
+    private static final long YIELD_INTERVAL = 50; // ms
+
+    private final IElementImplSupport root;
+    private volatile double maxFillRatio = 0.5;
+
+    /**
+     * Constructs a prewarming job for the given root element.
+     *
+     * @param root the element to start prewarming from
+     *  (not <code>null</code>)
+     */
+    public ModelPrewarmingJob(IElementImplSupport root)
+    {
+        super("ModelPrewarming"); //$NON-NLS-1$
+        if (root == null)
+            throw new IllegalArgumentException();
+        this.root = root;
+        setSystem(true);
+        setPriority(DECORATE); // the lowest priority
+    }
+
+    /**
+     * Returns whether model prewarming has been enabled by setting the system
+     * property {@link #ENABLED_PROPERTY} to <code>true</code>.
+     *
+     * @return <code>true</code> if prewarming is enabled,
+     *  and <code>false</code> otherwise
+     */
+    public static boolean isEnabled()
+    {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the maximum fill ratio of the body cache. The job stops opening
+     * elements when the fill ratio of the body cache reaches this value.
+     *
+     * @return the maximum fill ratio (a value in the interval (0, 1])
+     */
+    public final double getMaxFillRatio()
+    {
+        return maxFillRatio;
+    }
+
+    /**
+     * Changes the maximum fill ratio of the body cache. The job stops opening
+     * elements when the fill ratio of the body cache reaches this value.
+     * Default value: <code>0.5</code>.
+     *
+     * @param maxFillRatio a new value for the maximum fill ratio
+     * @throws IllegalArgumentException if <code>maxFillRatio &lt;= 0</code>
+     *  or <code>maxFillRatio &gt; 1</code>
+     */
+    public final void setMaxFillRatio(double maxFillRatio)
+    {
+        if (maxFillRatio <= 0.0 || maxFillRatio > 1.0)
+            throw new IllegalArgumentException();
+        this.maxFillRatio = maxFillRatio;
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor)
+    {
+        ElementManager elementManager = root.getElementManager_();
+        SubMonitor subMonitor = SubMonitor.convert(monitor);
+        Deque<IElement> queue = new ArrayDeque<>();
+        queue.add(root);
+        try
+        {
+            while (!queue.isEmpty())
+            {
+                if (elementManager.getCacheFillRatio() >= maxFillRatio)
+                    break;
+                while (elementManager.isOpeningInOtherThread())
+                {
+                    subMonitor.checkCanceled();
+                    Thread.sleep(YIELD_INTERVAL);
+                }
+                subMonitor.setWorkRemaining(queue.size());
+                IElement element = queue.remove();
+                IElement[] children;
+                try
+                {
+                    children = Elements.getChildren(element, EMPTY_CONTEXT,
+                        subMonitor.split(1));
+                }
+                catch (CoreException e)
+                {
+                    continue; // e.g., the element no longer exists
+                }
+                for (IElement child : children)
+                {
+                    if (child instanceof IElementImplSupport
+                        && ((IElementImplSupport)child).isOpenable_()
+                        && shouldPrewarm(child))
+                        queue.add(child);
+                }
+            }
+        }
+        catch (OperationCanceledException | InterruptedException e)
+        {
+            return Status.CANCEL_STATUS;
+        }
+        return Status.OK_STATUS;
+    }
+
+    /**
+     * Returns whether the given element is to be opened by this job.
+     * The descendants of an element that is not to be opened are not
+     * opened either.
+     * <p>
+     * This implementation returns <code>true</code>.
+     * Subclasses may override.
+     * </p>
+     *
+     * @param element an openable element (never <code>null</code>)
+     * @return <code>true</code> if the element is to be opened,
+     *  and <code>false</code> otherwise
+     */
+    protected boolean shouldPrewarm(IElement element)
+    {
+        return true;
+    }
+}
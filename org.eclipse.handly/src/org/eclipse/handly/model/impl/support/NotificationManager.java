@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2021 1C-Soft LLC.
+ * Copyright (c) 2016, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,13 +12,37 @@
  *******************************************************************************/
 package org.eclipse.handly.model.impl.support;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.IElementChangeEvent;
 import org.eclipse.handly.model.IElementChangeListener;
+import org.eclipse.handly.model.IElementDelta;
 
 /**
  * Default implementation of {@link INotificationManager}. Thread-safe.
  * <p>
+ * By default, listeners are notified synchronously, in the thread that fires
+ * an event. A notification manager {@link #NotificationManager(Executor)
+ * created with an executor} notifies listeners asynchronously instead, so that
+ * a slow listener does not delay the thread that fires an event. Each listener
+ * has its own queue of events, which is drained by a task submitted to the
+ * executor; events are delivered to a listener one at a time, in the order
+ * they were fired. While a listener is busy, consecutive events of the same
+ * type that are pending for the listener are merged into a single event,
+ * provided that their deltas are {@link ElementDelta}s.
+ * </p>
+ * <p>
  * Clients can use this class as it stands or subclass it
  * as circumstances warrant.
  * </p>
@@ -28,6 +52,37 @@ public class NotificationManager
 {
     private final ElementChangeListenerList listenerList =
         new ElementChangeListenerList();
+    private final Executor executor;
+    private final Map<IElementChangeListener, ListenerQueue> queues =
+        new IdentityHashMap<>();
+    private final AtomicLong pendingEventCount = new AtomicLong();
+    private final AtomicLong coalescedEventCount = new AtomicLong();
+    private volatile ElementChangeListenerIndex index;
+
+    /**
+     * Constructs a notification manager that notifies listeners synchronously.
+     */
+    public NotificationManager()
+    {
+        this.executor = null;
+    }
+
+    /**
+     * Constructs a notification manager that notifies listeners asynchronously
+     * using the given executor. The executor should use a bounded number of
+     * threads; no more than one task per listener is submitted at a time.
+     * If the executor rejects a task, the listener is notified in the thread
+     * that fires the event.
+     *
+     * @param executor not <code>null</code>
+     * @since 1.8
+     */
+    public NotificationManager(Executor executor)
+    {
+        if (executor == null)
+            throw new IllegalArgumentException();
+        this.executor = executor;
+    }
 
     /**
      * Adds the given element change listener.
@@ -61,6 +116,55 @@ public class NotificationManager
         int eventMask)
     {
         listenerList.add(listener, eventMask);
+        if (eventMask == 0)
+            discardQueue(listener);
+    }
+
+    /**
+     * Adds the given element change listener for the specified event types
+     * and the subtrees rooted at the given elements. The listener will only
+     * be notified about events that affect the given elements or their
+     * descendants. Has no effect if an identical listener is already
+     * registered for these event types and elements.
+     * <p>
+     * After completion of this method, the given listener will be registered
+     * for exactly the specified event types and elements. If it was previously
+     * registered for other event types or elements, it will be de-registered
+     * for those event types or elements.
+     * </p>
+     * <p>
+     * An event is regarded as affecting an element if one of its delta trees
+     * contains a delta for the element, its descendant, or its ancestor that
+     * is the root of the delta tree. It is also regarded as affecting the
+     * element if a delta tree contains a delta for an ancestor of the element
+     * that either is not a <code>CHANGED</code> delta or does not describe
+     * its changes in terms of child deltas. Listeners can therefore be
+     * notified about some events that do not actually affect the elements,
+     * but are never left out of events that do.
+     * </p>
+     * <p>
+     * Dispatching such events uses an index over the paths to the elements
+     * of interest, so that only those paths of a delta tree are walked,
+     * regardless of the number of listeners.
+     * </p>
+     *
+     * @param listener the listener to add (not <code>null</code>)
+     * @param eventMask the bit-wise OR of all event types of interest to the
+     *  listener
+     * @param elements the roots of the element subtrees of interest to the
+     *  listener (not <code>null</code>, not empty, must not contain
+     *  <code>null</code> elements)
+     * @see #removeElementChangeListener(IElementChangeListener)
+     * @since 1.8
+     */
+    public void addElementChangeListener(IElementChangeListener listener,
+        int eventMask, IElement... elements)
+    {
+        if (elements == null)
+            throw new IllegalArgumentException();
+        listenerList.add(listener, eventMask, elements.clone());
+        if (eventMask == 0)
+            discardQueue(listener);
     }
 
     /**
@@ -72,6 +176,34 @@ public class NotificationManager
     public void removeElementChangeListener(IElementChangeListener listener)
     {
         listenerList.remove(listener);
+        discardQueue(listener);
+    }
+
+    /**
+     * Returns the number of events that are waiting to be delivered to
+     * listeners, not counting the events that are being delivered. Always
+     * returns zero if listeners are notified synchronously. This can be used
+     * as a measure of back-pressure from slow listeners.
+     *
+     * @return the number of pending events
+     * @since 1.8
+     */
+    public final long getPendingEventCount()
+    {
+        return pendingEventCount.get();
+    }
+
+    /**
+     * Returns the number of events that have been merged into a pending event
+     * because a listener was busy. Always returns zero if listeners are
+     * notified synchronously.
+     *
+     * @return the number of coalesced events
+     * @since 1.8
+     */
+    public final long getCoalescedEventCount()
+    {
+        return coalescedEventCount.get();
     }
 
     @Override
@@ -79,11 +211,306 @@ public class NotificationManager
     {
         int eventType = event.getType();
         ElementChangeListenerList.Entry[] entries = listenerList.getEntries();
+        Set<ElementChangeListenerList.Entry> affected = null;
+        Boolean mergeable = null;
         for (ElementChangeListenerList.Entry entry : entries)
         {
-            if ((eventType & entry.getEventMask()) != 0)
+            if ((eventType & entry.getEventMask()) == 0)
+                continue;
+            if (entry.getElements() != null)
+            {
+                if (affected == null)
+                    affected = getIndex(entries).findAffected(event);
+                if (!affected.contains(entry))
+                    continue;
+            }
+            if (executor == null)
+            {
+                SafeRunner.run(() -> entry.getListener().elementChanged(
+                    event));
+            }
+            else
+            {
+                if (mergeable == null)
+                    mergeable = isMergeable(event);
+                ListenerQueue queue = getQueue(entry.getListener());
+                if (queue != null)
+                    queue.enqueue(event, mergeable);
+            }
+        }
+    }
+
+    private ElementChangeListenerIndex getIndex(
+        ElementChangeListenerList.Entry[] entries)
+    {
+        ElementChangeListenerIndex index = this.index;
+        if (index == null || index.getEntries() != entries)
+            this.index = index = new ElementChangeListenerIndex(entries);
+        return index;
+    }
+
+    /*
+     * Returns the queue of the given listener, or null if the listener
+     * is no longer registered (e.g., it was removed after the entries were
+     * obtained for firing an event). A discarded queue whose drain task is
+     * still running is reused when the listener is registered again, so that
+     * the listener is never notified concurrently.
+     */
+    private ListenerQueue getQueue(IElementChangeListener listener)
+    {
+        synchronized (queues)
+        {
+            ListenerQueue queue = queues.get(listener);
+            if (queue != null && !queue.isDiscarded())
+                return queue;
+            if (!isRegistered(listener))
+                return null;
+            if (queue != null)
+            {
+                queue.revive();
+                return queue;
+            }
+            queue = new ListenerQueue(listener);
+            queues.put(listener, queue);
+            return queue;
+        }
+    }
+
+    private void discardQueue(IElementChangeListener listener)
+    {
+        synchronized (queues)
+        {
+            ListenerQueue queue = queues.get(listener);
+            if (queue != null && queue.discard())
+                queues.remove(listener);
+        }
+    }
+
+    /*
+     * Removes the given discarded queue once its drain task has finished,
+     * unless the queue has been revived in the meantime.
+     */
+    private void release(ListenerQueue queue)
+    {
+        synchronized (queues)
+        {
+            if (queue.isReleasable() && queues.get(queue.listener) == queue)
+                queues.remove(queue.listener);
+        }
+    }
+
+    private boolean isRegistered(IElementChangeListener listener)
+    {
+        for (ElementChangeListenerList.Entry entry : listenerList.getEntries())
+        {
+            if (entry.getListener() == listener)
+                return true;
+        }
+        return false;
+    }
+
+    private void schedule(ListenerQueue queue)
+    {
+        try
+        {
+            executor.execute(queue);
+        }
+        catch (RejectedExecutionException e)
+        {
+            queue.run();
+        }
+    }
+
+    /*
+     * Returns whether the deltas of the given event can be merged, i.e.,
+     * they are element deltas without marker deltas, which cannot be merged.
+     */
+    private static boolean isMergeable(IElementChangeEvent event)
+    {
+        for (IElementDelta delta : event.getDeltas())
+        {
+            if (!(delta instanceof ElementDelta) || hasMarkerDeltas(
+                (ElementDelta)delta))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean hasMarkerDeltas(ElementDelta delta)
+    {
+        if (delta.getMarkerDeltas_() != null)
+            return true;
+        for (ElementDelta child : delta.getAffectedChildren_())
+        {
+            if (hasMarkerDeltas(child))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+     * Returns a deep copy of the given delta, so that it can be merged
+     * without affecting the given delta.
+     */
+    private static ElementDelta copyOf(ElementDelta delta)
+    {
+        ElementDelta copy = delta.newDelta_(delta.getElement_());
+        copy.copyFrom_(delta, true);
+        ElementDelta[] children = delta.getAffectedChildren_();
+        if (children.length > 0)
+        {
+            ElementDelta[] childCopies = children.clone(); // same runtime type
+            for (int i = 0; i < children.length; i++)
+                childCopies[i] = copyOf(children[i]);
+            copy.setAffectedChildren_(childCopies);
+        }
+        return copy;
+    }
+
+    /*
+     * An event pending delivery to a listener.
+     */
+    private static class PendingEvent
+    {
+        final IElementChangeEvent event;
+        final boolean mergeable;
+        private List<ElementDelta> mergedDeltas; // owned copies
+
+        PendingEvent(IElementChangeEvent event, boolean mergeable)
+        {
+            this.event = event;
+            this.mergeable = mergeable;
+        }
+
+        void merge(IElementChangeEvent laterEvent)
+        {
+            if (mergedDeltas == null)
+            {
+                IElementDelta[] deltas = event.getDeltas();
+                mergedDeltas = new ArrayList<>(deltas.length);
+                for (IElementDelta delta : deltas)
+                    mergedDeltas.add(copyOf((ElementDelta)delta));
+            }
+            for (IElementDelta delta : laterEvent.getDeltas())
+            {
+                ElementDelta copy = copyOf((ElementDelta)delta);
+                ElementDelta existing = null;
+                for (ElementDelta mergedDelta : mergedDeltas)
+                {
+                    if (Elements.equalsAndSameParentChain(
+                        mergedDelta.getElement_(), copy.getElement_()))
+                    {
+                        existing = mergedDelta;
+                        break;
+                    }
+                }
+                if (existing != null)
+                    existing.mergeWith_(copy);
+                else
+                    mergedDeltas.add(copy);
+            }
+        }
+
+        IElementChangeEvent toEvent()
+        {
+            if (mergedDeltas == null)
+                return event;
+            return new ElementChangeEvent(event.getType(),
+                mergedDeltas.toArray(new IElementDelta[mergedDeltas.size()]));
+        }
+    }
+
+    /*
+     * The queue of events pending delivery to a listener. At most one task
+     * drains the queue at a time, which preserves the order of events.
+     * The queue remains associated with the listener while the task
+     * is running, even if the queue has been discarded.
+     */
+    private class ListenerQueue
+        implements Runnable
+    {
+        final IElementChangeListener listener;
+        private final ArrayDeque<PendingEvent> events = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean discarded;
+
+        ListenerQueue(IElementChangeListener listener)
+        {
+            this.listener = listener;
+        }
+
+        void enqueue(IElementChangeEvent event, boolean mergeable)
+        {
+            synchronized (this)
+            {
+                if (discarded)
+                    return;
+                PendingEvent last = events.peekLast();
+                if (mergeable && last != null && last.mergeable
+                    && last.event.getType() == event.getType())
+                {
+                    last.merge(event);
+                    coalescedEventCount.incrementAndGet();
+                }
+                else
+                {
+                    events.addLast(new PendingEvent(event, mergeable));
+                    pendingEventCount.incrementAndGet();
+                }
+                if (scheduled)
+                    return;
+                scheduled = true;
+            }
+            schedule(this);
+        }
+
+        /*
+         * Discards the pending events and returns whether the queue
+         * can be removed right away, i.e., no task is draining it.
+         */
+        synchronized boolean discard()
+        {
+            discarded = true;
+            pendingEventCount.addAndGet(-events.size());
+            events.clear();
+            return !scheduled;
+        }
+
+        synchronized void revive()
+        {
+            discarded = false;
+        }
+
+        synchronized boolean isDiscarded()
+        {
+            return discarded;
+        }
+
+        synchronized boolean isReleasable()
+        {
+            return discarded && !scheduled;
+        }
+
+        @Override
+        public void run()
+        {
+            for (;;)
             {
-                SafeRunner.run(() -> entry.getListener().elementChanged(event));
+                PendingEvent pending;
+                synchronized (this)
+                {
+                    pending = events.pollFirst();
+                    if (pending == null)
+                        scheduled = false;
+                }
+                if (pending == null)
+                {
+                    release(this);
+                    return;
+                }
+                pendingEventCount.decrementAndGet();
+                IElementChangeEvent event = pending.toEvent();
+                SafeRunner.run(() -> listener.elementChanged(event));
             }
         }
     }
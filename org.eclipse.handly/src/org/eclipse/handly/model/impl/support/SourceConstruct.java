@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -54,5 +54,6 @@ public abstract class SourceConstruct
         if (occurrenceCount < 1)
             throw new IllegalArgumentException();
         this.occurrenceCount = occurrenceCount;
+        hashCodeChanged_();
     }
 }
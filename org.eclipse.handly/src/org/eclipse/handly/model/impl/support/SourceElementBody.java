@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -17,10 +17,12 @@ import static org.eclipse.handly.model.IElementDeltaConstants.F_FINE_GRAINED;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import org.eclipse.handly.model.Elements;
 import org.eclipse.handly.model.IElement;
 import org.eclipse.handly.model.ISourceConstruct;
 import org.eclipse.handly.model.ISourceElementInfo;
@@ -50,6 +52,19 @@ public class SourceElementBody
     private static final InternalProperty[] NO_PROPERTIES =
         new InternalProperty[0];
 
+    private static final ClassValue<Boolean> COMPARES_BASE_STATE_ONLY =
+        new ClassValue<Boolean>()
+        {
+            @Override
+            protected Boolean computeValue(Class<?> type)
+            {
+                return !overrides(type, "findContentChange", Body.class, //$NON-NLS-1$
+                    IElement.class, IElementDeltaBuilder.class)
+                    && !overrides(type, "isPropertyChanged", String.class, //$NON-NLS-1$
+                        Object.class, Object.class);
+            }
+        };
+
     private ISnapshot snapshot;
     private InternalProperty[] properties = NO_PROPERTIES;
     private TextRange fullRange;
@@ -124,6 +139,7 @@ public class SourceElementBody
                 if (properties[i].name.equals(name))
                 {
                     properties[i].value = value;
+                    setFingerprint(0);
                     return;
                 }
             }
@@ -132,6 +148,7 @@ public class SourceElementBody
             newProperties[length] = new InternalProperty(name, value);
             properties = newProperties;
         }
+        setFingerprint(0);
     }
 
     /**
@@ -154,6 +171,7 @@ public class SourceElementBody
     public void setFullRange(TextRange fullRange)
     {
         this.fullRange = fullRange;
+        setFingerprint(0);
     }
 
     /**
@@ -165,6 +183,7 @@ public class SourceElementBody
     public void setIdentifyingRange(TextRange identifyingRange)
     {
         this.identifyingRange = identifyingRange;
+        setFingerprint(0);
     }
 
     /**
@@ -293,6 +312,34 @@ public class SourceElementBody
         return names;
     }
 
+    /*
+     * Returns a rough estimate of the number of bytes retained
+     * by the properties and text ranges of this body.
+     */
+    long estimatePropertySize()
+    {
+        long size = 0;
+        if (fullRange != null)
+            size += 24;
+        if (identifyingRange != null)
+            size += 24;
+        InternalProperty[] properties = this.properties;
+        for (InternalProperty property : properties)
+        {
+            size += 32;
+            Object value = property.value;
+            if (value instanceof String)
+                size += 40 + ((String)value).length();
+            else if (value instanceof char[])
+                size += 16 + 2L * ((char[])value).length;
+            else if (value instanceof Object[])
+                size += 16 + 8L * ((Object[])value).length;
+            else if (value != null)
+                size += 16;
+        }
+        return size;
+    }
+
     void setSnapshot(ISnapshot snapshot, Map<IElement, Object> newElements)
     {
         setSnapshot(snapshot);
@@ -307,6 +354,262 @@ public class SourceElementBody
         }
     }
 
+    /**
+     * Returns whether a structural {@link #getFingerprint() fingerprint}
+     * may be computed for this body. The fingerprint covers the properties,
+     * the ranges and the children of the body, i.e., the state compared by
+     * the implementation of {@link #findContentChange(Body, IElement,
+     * IElementDeltaBuilder) findContentChange} in this class. It cannot be
+     * used to skip the comparison of bodies that differ in some other state.
+     * <p>
+     * This implementation returns <code>true</code> if the class of this body
+     * overrides neither <code>findContentChange</code> nor {@link
+     * #isPropertyChanged(String, Object, Object) isPropertyChanged}, and
+     * <code>false</code> otherwise. Subclasses that override those methods
+     * without comparing any state not covered by the fingerprint may override
+     * this method to return <code>true</code>.
+     * </p>
+     *
+     * @return <code>true</code> if a fingerprint may be computed for this
+     *  body, and <code>false</code> otherwise
+     * @since 1.8
+     */
+    protected boolean isFingerprintSupported()
+    {
+        return COMPARES_BASE_STATE_ONLY.get(getClass());
+    }
+
+    /*
+     * Computes and sets the structural fingerprints of this body and the
+     * bodies in its subtree. The fingerprint covers the values of the
+     * properties, the identifying range relative to the full range, and
+     * for each child, its name, class, body fingerprint, and full range
+     * relative to the full range of this body. The snapshot is not covered.
+     * Returns the computed fingerprint, or zero if some body in the subtree
+     * is not a source element body, does not support fingerprints, or has
+     * a property value of a type whose contents cannot be hashed (the
+     * fingerprint is then unknown).
+     */
+    long computeFingerprint(Map<IElement, Object> newElements)
+    {
+        boolean complete = isFingerprintSupported();
+        long h = 0; // the order of properties is not significant
+        for (InternalProperty property : properties)
+        {
+            long vh = hash(property.value);
+            if (vh == 0)
+                complete = false;
+            h += mix(31 * hash(property.name) + vh);
+        }
+        int base = (fullRange != null) ? fullRange.getOffset() : 0;
+        h = mix(h + hash(identifyingRange, base));
+        for (IElement child : getChildren())
+        {
+            Object childBody = newElements.get(child);
+            if (!(childBody instanceof SourceElementBody))
+            {
+                complete = false;
+                continue;
+            }
+            SourceElementBody body = (SourceElementBody)childBody;
+            long fingerprint = body.computeFingerprint(newElements);
+            if (fingerprint == 0)
+                complete = false;
+            h = mix(h + hash(Elements.getName(child)));
+            h = mix(h + hash(child.getClass().getName()));
+            h = mix(h + 31 * child.hashCode());
+            h = mix(h + fingerprint);
+            h = mix(h + hash(body.fullRange, base));
+        }
+        h = complete ? known(h) : 0;
+        setFingerprint(h);
+        return h;
+    }
+
+    private static boolean overrides(Class<?> type, String methodName,
+        Class<?>... parameterTypes)
+    {
+        for (Class<?> c = type; c != SourceElementBody.class; c =
+            c.getSuperclass())
+        {
+            try
+            {
+                c.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            }
+            catch (NoSuchMethodException e)
+            {
+                // continue with the superclass
+            }
+        }
+        return false;
+    }
+
+    private static long hash(TextRange range, int base)
+    {
+        if (range == null)
+            return 0;
+        return mix((long)(range.getOffset() - base) << 32
+            | range.getLength());
+    }
+
+    /*
+     * Returns a 64-bit hash of the given property value consistent with
+     * isPropertyChanged (arrays are hashed element-wise), or zero if the value
+     * is of a type whose contents are not known to be hashable with 64 bits,
+     * in which case the fingerprint is to remain unknown. Strings, boxed
+     * primitives, enum constants, arrays, lists, sets and maps of them are
+     * supported.
+     */
+    private static long hash(Object value)
+    {
+        if (value == null)
+            return 1;
+        if (value instanceof String)
+            return known(hash((String)value, 0xcbf29ce484222325L));
+        if (value instanceof Long || value instanceof Integer
+            || value instanceof Short || value instanceof Byte)
+            return known(mix(tag(value) + ((Number)value).longValue()));
+        if (value instanceof Double)
+            return known(mix(tag(value) + Double.doubleToLongBits(
+                (Double)value)));
+        if (value instanceof Float)
+            return known(mix(tag(value) + Float.floatToIntBits(
+                (Float)value)));
+        if (value instanceof Character)
+            return known(mix(tag(value) + (Character)value));
+        if (value instanceof Boolean)
+            return known(mix(tag(value) + ((Boolean)value ? 1 : 0)));
+        if (value instanceof Enum)
+            return known(hash(((Enum<?>)value).name(), tag(value)));
+        if (value instanceof Object[])
+        {
+            long h = tag(value);
+            for (Object element : (Object[])value)
+            {
+                long eh = hashElement(element);
+                if (eh == 0)
+                    return 0;
+                h = mix(h * 31 + eh);
+            }
+            return known(h);
+        }
+        if (value instanceof List)
+        {
+            long h = 0x4c697374L; // any list can be equal to any other list
+            for (Object element : (List<?>)value)
+            {
+                long eh = hashElement(element);
+                if (eh == 0)
+                    return 0;
+                h = mix(h * 31 + eh);
+            }
+            return known(h);
+        }
+        if (value instanceof Set)
+        {
+            long h = 0x536574L; // the order of elements is not significant
+            for (Object element : (Set<?>)value)
+            {
+                long eh = hashElement(element);
+                if (eh == 0)
+                    return 0;
+                h += mix(eh);
+            }
+            return known(mix(h));
+        }
+        if (value instanceof Map)
+        {
+            long h = 0x4d6170L; // the order of entries is not significant
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet())
+            {
+                long kh = hashElement(entry.getKey());
+                long vh = hashElement(entry.getValue());
+                if (kh == 0 || vh == 0)
+                    return 0;
+                h += mix(kh * 31 + vh);
+            }
+            return known(mix(h));
+        }
+        if (value instanceof char[])
+            return known(hash(new String((char[])value), tag(value)));
+        long h = tag(value);
+        if (value instanceof long[])
+        {
+            for (long element : (long[])value)
+                h = mix(h * 31 + element);
+        }
+        else if (value instanceof double[])
+        {
+            for (double element : (double[])value)
+                h = mix(h * 31 + Double.doubleToLongBits(element));
+        }
+        else if (value instanceof int[])
+        {
+            for (int element : (int[])value)
+                h = mix(h * 31 + element);
+        }
+        else if (value instanceof byte[])
+        {
+            for (byte element : (byte[])value)
+                h = mix(h * 31 + element);
+        }
+        else if (value instanceof short[])
+        {
+            for (short element : (short[])value)
+                h = mix(h * 31 + element);
+        }
+        else if (value instanceof float[])
+        {
+            for (float element : (float[])value)
+                h = mix(h * 31 + Float.floatToIntBits(element));
+        }
+        else if (value instanceof boolean[])
+        {
+            for (boolean element : (boolean[])value)
+                h = mix(h * 31 + (element ? 1 : 2));
+        }
+        else
+            return 0;
+        return known(h);
+    }
+
+    /*
+     * Elements of arrays and collections are compared with equals,
+     * so nested arrays are compared by identity and cannot be hashed.
+     */
+    private static long hashElement(Object element)
+    {
+        if (element != null && element.getClass().isArray())
+            return 0;
+        return hash(element);
+    }
+
+    private static long hash(String string, long h)
+    {
+        for (int i = 0, n = string.length(); i < n; i++)
+            h = (h ^ string.charAt(i)) * 0x100000001b3L; // FNV-1a
+        return mix(h + string.length());
+    }
+
+    private static long tag(Object value)
+    {
+        return hash(value.getClass().getName(), 0xcbf29ce484222325L);
+    }
+
+    private static long known(long h)
+    {
+        return (h != 0) ? h : 1;
+    }
+
+    private static long mix(long h)
+    {
+        // the finalizer of SplitMix64
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
     private static class InternalProperty
     {
         public final String name;
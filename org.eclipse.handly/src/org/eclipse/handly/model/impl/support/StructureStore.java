@@ -0,0 +1,718 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.model.impl.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.runtime.ICoreRunnable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.handly.internal.Activator;
+import org.eclipse.handly.model.Elements;
+import org.eclipse.handly.model.IElement;
+import org.eclipse.handly.model.IElementHandleFactory;
+import org.eclipse.handly.model.ISourceConstruct;
+import org.eclipse.handly.util.Property;
+import org.eclipse.handly.util.TextRange;
+
+/**
+ * A persistent store for the structure of source files. For each source
+ * file, the store keeps on disk the tree of {@link SourceElementBody}s
+ * built for the file, including the bodies' children, text ranges and
+ * properties, together with a digest of the source contents the structure
+ * was built from. The stored structure can then be used to open the source
+ * file without re-parsing it, provided that the source contents have not
+ * changed in the meantime.
+ * <p>
+ * A model may provide a structure store by binding it in the model context:
+ * <code>context.get(StructureStore.class)</code>. {@link
+ * ISourceFileImplSupport#buildStructure_(org.eclipse.handly.context.IContext,
+ * org.eclipse.core.runtime.IProgressMonitor) ISourceFileImplSupport}
+ * then uses the store when building the structure of a source file from
+ * the contents of the underlying file.
+ * </p>
+ * <p>
+ * Element handles are stored as {@link Elements#getHandleMemento(IElement)
+ * handle mementos} and recreated via the model's {@link IElementHandleFactory}.
+ * Only structures that consist entirely of plain <code>SourceElementBody</code>
+ * instances whose elements can provide a handle memento and whose property
+ * values are of one of the following types are stored: <code>String</code>,
+ * <code>Integer</code>, <code>Long</code>, <code>Boolean</code>,
+ * <code>String[]</code>, <code>int[]</code>. Other structures are
+ * silently ignored by the store. The source snapshot of the bodies
+ * is not stored; it is to be set by the caller.
+ * </p>
+ * <p>
+ * The store files are written in the background by a low-priority system
+ * job, so that saving a structure does not delay opening the source file.
+ * Until it has been written, the structure is kept in memory and can be
+ * loaded from there. The number of pending writes is bounded; structures
+ * saved while the limit is reached are not stored. Pending writes can be
+ * completed on demand by {@link #flush() flushing} the store.
+ * </p>
+ * <p>
+ * The store is a cache: failing to read or write it is never an error,
+ * and the store may be cleared at any time. When the structure builder of
+ * the model changes in an incompatible way, the model should use a new
+ * {@link #StructureStore(Path, IElementHandleFactory, int) version}
+ * of the store.
+ * </p>
+ * <p>
+ * The model is responsible for {@link #remove(ISourceFileImplSupport)
+ * removing} the stored structure of a source file when the file is deleted
+ * or renamed. The structures of the files that were deleted or renamed while
+ * the model was not active can be removed by {@link #prune(IProgressMonitor)
+ * pruning} the store, e.g. on startup.
+ * </p>
+ * <p>
+ * This implementation is thread-safe.
+ * </p>
+ *
+ * @since 1.8
+ */
+public class StructureStore
+{
+    private static final int MAGIC = 0x48535332; // "HSS2"
+    private static final String FILE_EXTENSION = ".structure"; //$NON-NLS-1$
+    private static final String TEMP_FILE_EXTENSION = ".tmp"; //$NON-NLS-1$
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte STRING_ARRAY = 5;
+    private static final byte INT_ARRAY = 6;
+
+    private static final int HAS_FULL_RANGE = 1;
+    private static final int HAS_IDENTIFYING_RANGE = 2;
+
+    private static final long TEMP_FILE_MAX_AGE = 24 * 60 * 60 * 1000; // 1 day
+    private static final int MAX_PENDING_WRITES = 100;
+
+    private final Path location;
+    private final IElementHandleFactory handleFactory;
+    private final int version;
+    // the contents of the store files to be written, in the order of saving;
+    // guarded by itself
+    private final Map<Path, byte[]> pendingWrites = new LinkedHashMap<>();
+    // held while writing or deleting store files
+    private final Object fileLock = new Object();
+    private final Job writer;
+
+    /**
+     * Constructs a structure store with the given parameters.
+     *
+     * @param location the directory for the store files (not <code>null</code>).
+     *  The directory is created on demand
+     * @param handleFactory the factory to recreate element handles from
+     *  their mementos (not <code>null</code>)
+     * @param version the version of the stored structures. Structures
+     *  stored with a different version are ignored
+     */
+    public StructureStore(Path location, IElementHandleFactory handleFactory,
+        int version)
+    {
+        if (location == null)
+            throw new IllegalArgumentException();
+        if (handleFactory == null)
+            throw new IllegalArgumentException();
+        this.location = location;
+        this.handleFactory = handleFactory;
+        this.version = version;
+        ICoreRunnable writing = monitor -> writePendingFiles();
+        writer = Job.createSystem("StructureStoreWriter", writing); //$NON-NLS-1$
+        writer.setPriority(Job.DECORATE);
+    }
+
+    /**
+     * Loads the stored structure of the given source file, provided that it
+     * was built from the given source contents. If the structure is loaded,
+     * the created bodies are associated with their respective elements in
+     * the given map; otherwise, the map is not modified.
+     *
+     * @param sourceFile not <code>null</code>
+     * @param source the current source contents of the file
+     *  (not <code>null</code>)
+     * @param newElements the map to populate with the loaded bodies
+     *  (not <code>null</code>)
+     * @return <code>true</code> if the structure was loaded,
+     *  and <code>false</code> if there is no up-to-date stored structure
+     *  for the source file
+     */
+    public boolean load(ISourceFileImplSupport sourceFile, String source,
+        Map<IElement, Object> newElements)
+    {
+        String memento = Elements.getHandleMemento(sourceFile);
+        if (memento == null)
+            return false;
+        Path file = getStoreFile(memento);
+        byte[] pending;
+        synchronized (pendingWrites)
+        {
+            pending = pendingWrites.get(file);
+        }
+        Map<IElement, Object> loaded = new HashMap<>();
+        try (DataInputStream in = pending != null ? new DataInputStream(
+            new ByteArrayInputStream(pending)) : openStoreFile(file))
+        {
+            if (!memento.equals(readHeader(in))
+                || in.readInt() != source.length())
+                return false;
+            byte[] digest = new byte[in.readUnsignedByte()];
+            in.readFully(digest);
+            if (!Arrays.equals(digest, digest(source)))
+                return false;
+            readBody(in, sourceFile, loaded);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return false; // e.g., a missing or corrupt store file
+        }
+        newElements.putAll(loaded);
+        return true;
+    }
+
+    /**
+     * Stores the structure of the given source file built from the given
+     * source contents. Does nothing if the structure cannot be stored.
+     * <p>
+     * The structure is serialized by the calling thread, while the store
+     * file is written in the background. Until then, the structure can be
+     * {@link #load(ISourceFileImplSupport, String, Map) loaded} from memory.
+     * If the number of pending writes has reached its limit, the structure
+     * is not stored.
+     * </p>
+     *
+     * @param sourceFile not <code>null</code>
+     * @param source the source contents the structure was built from
+     *  (not <code>null</code>)
+     * @param newElements the map that associates the built bodies
+     *  with their respective elements (not <code>null</code>)
+     */
+    public void save(ISourceFileImplSupport sourceFile, String source,
+        Map<IElement, Object> newElements)
+    {
+        String memento = Elements.getHandleMemento(sourceFile);
+        if (memento == null || !isStorable(sourceFile, newElements))
+            return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            writeString(out, memento);
+            out.writeInt(source.length());
+            byte[] digest = digest(source);
+            out.writeByte(digest.length);
+            out.write(digest);
+            writeBody(out, sourceFile, newElements);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e); // cannot happen in memory
+        }
+        Path file = getStoreFile(memento);
+        synchronized (pendingWrites)
+        {
+            if (pendingWrites.size() >= MAX_PENDING_WRITES
+                && !pendingWrites.containsKey(file))
+                return; // the store is a cache
+            pendingWrites.put(file, bytes.toByteArray());
+        }
+        writer.schedule();
+    }
+
+    /**
+     * Writes the store files for all of the structures that have been saved
+     * but not yet written. Structures saved concurrently with this method
+     * may or may not be written by it.
+     */
+    public void flush()
+    {
+        writePendingFiles();
+    }
+
+    /**
+     * Removes the stored structure of the given source file, if any.
+     *
+     * @param sourceFile not <code>null</code>
+     */
+    public void remove(ISourceFileImplSupport sourceFile)
+    {
+        String memento = Elements.getHandleMemento(sourceFile);
+        if (memento == null)
+            return;
+        Path file = getStoreFile(memento);
+        synchronized (fileLock)
+        {
+            synchronized (pendingWrites)
+            {
+                pendingWrites.remove(file);
+            }
+            try
+            {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e)
+            {
+                Activator.logError(e);
+            }
+        }
+    }
+
+    /**
+     * Removes all of the stored structures from this store.
+     */
+    public void clear()
+    {
+        synchronized (fileLock)
+        {
+            synchronized (pendingWrites)
+            {
+                pendingWrites.clear();
+            }
+            if (!Files.isDirectory(location))
+                return;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                location, "*{" + FILE_EXTENSION + ',' + TEMP_FILE_EXTENSION //$NON-NLS-1$
+                    + '}'))
+            {
+                for (Path file : stream)
+                    Files.deleteIfExists(file);
+            }
+            catch (IOException e)
+            {
+                Activator.logError(e);
+            }
+        }
+    }
+
+    /**
+     * Removes the stored structures of source files that no longer exist,
+     * as well as the store files that cannot be read or have been written
+     * with a different version of the store. This method is intended to be
+     * called from time to time, e.g. on startup, to reclaim the space taken
+     * by the structures of the source files that were deleted or renamed
+     * while the model was not active.
+     *
+     * @param monitor a progress monitor, or <code>null</code>
+     *  if progress reporting is not desired. The caller must not rely on
+     *  {@link IProgressMonitor#done()} having been called by the receiver
+     * @throws OperationCanceledException if this method is canceled
+     */
+    public void prune(IProgressMonitor monitor)
+    {
+        if (!Files.isDirectory(location))
+            return;
+        SubMonitor subMonitor = SubMonitor.convert(monitor);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(location,
+            "*{" + FILE_EXTENSION + ',' + TEMP_FILE_EXTENSION + '}')) //$NON-NLS-1$
+        {
+            for (Path file : stream)
+            {
+                subMonitor.setWorkRemaining(100).split(1);
+                if (file.toString().endsWith(TEMP_FILE_EXTENSION))
+                {
+                    // a temporary file may be in use by a concurrent write
+                    if (System.currentTimeMillis() - Files.getLastModifiedTime(
+                        file).toMillis() > TEMP_FILE_MAX_AGE)
+                        Files.deleteIfExists(file);
+                }
+                else if (!isLive(file))
+                    Files.deleteIfExists(file);
+            }
+        }
+        catch (IOException e)
+        {
+            // the store is a cache: leave the rest for the next time
+        }
+    }
+
+    /*
+     * Writes the pending store files one at a time. A pending write is
+     * discarded only after the file has been written, so that the structure
+     * can be loaded all the while.
+     */
+    private void writePendingFiles()
+    {
+        for (;;)
+        {
+            synchronized (fileLock)
+            {
+                Path file;
+                byte[] bytes;
+                synchronized (pendingWrites)
+                {
+                    Iterator<Map.Entry<Path, byte[]>> it =
+                        pendingWrites.entrySet().iterator();
+                    if (!it.hasNext())
+                        return;
+                    Map.Entry<Path, byte[]> entry = it.next();
+                    file = entry.getKey();
+                    bytes = entry.getValue();
+                }
+                writeStoreFile(file, bytes);
+                synchronized (pendingWrites)
+                {
+                    // unless it has been saved again in the meantime
+                    pendingWrites.remove(file, bytes);
+                }
+            }
+        }
+    }
+
+    private void writeStoreFile(Path file, byte[] bytes)
+    {
+        Path tempFile = null;
+        try
+        {
+            Files.createDirectories(location);
+            tempFile = Files.createTempFile(location, null,
+                TEMP_FILE_EXTENSION);
+            Files.write(tempFile, bytes);
+            try
+            {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        }
+        catch (IOException e)
+        {
+            Activator.logError(e);
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(tempFile);
+                }
+                catch (IOException e)
+                {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private boolean isLive(Path file)
+    {
+        String memento;
+        try (DataInputStream in = openStoreFile(file))
+        {
+            memento = readHeader(in);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return false;
+        }
+        if (memento == null)
+            return false;
+        IElement element = handleFactory.createFromHandleMemento(memento);
+        return element != null && Elements.exists(element);
+    }
+
+    /*
+     * Reads the given store file into memory, so that the lengths
+     * read from the file can be checked against the file size.
+     */
+    private static DataInputStream openStoreFile(Path file) throws IOException
+    {
+        return new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(
+            file)));
+    }
+
+    /*
+     * Returns the memento of the source file, or null if the store file
+     * has been written with a different format or version of the store.
+     */
+    private String readHeader(DataInputStream in) throws IOException
+    {
+        if (in.readInt() != MAGIC || in.readInt() != version)
+            return null;
+        return readString(in);
+    }
+
+    private Path getStoreFile(String memento)
+    {
+        byte[] digest = digest(memento);
+        StringBuilder sb = new StringBuilder(digest.length * 2
+            + FILE_EXTENSION.length());
+        for (byte b : digest)
+        {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        sb.append(FILE_EXTENSION);
+        return location.resolve(sb.toString());
+    }
+
+    private static byte[] digest(String s)
+    {
+        MessageDigest md;
+        try
+        {
+            md = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new AssertionError(e); // SHA-256 is always supported
+        }
+        return md.digest(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isStorable(IElement element,
+        Map<IElement, Object> newElements)
+    {
+        Object body = newElements.get(element);
+        if (body == null || body.getClass() != SourceElementBody.class)
+            return false;
+        SourceElementBody sourceBody = (SourceElementBody)body;
+        for (String name : sourceBody.getPropertyNames())
+        {
+            if (valueTag(sourceBody.getPropertyValue(name)) < 0)
+                return false;
+        }
+        for (IElement child : sourceBody.getChildren())
+        {
+            if (Elements.getHandleMemento(child) == null || !isStorable(child,
+                newElements))
+                return false;
+        }
+        return true;
+    }
+
+    private static void writeBody(DataOutputStream out, IElement element,
+        Map<IElement, Object> newElements) throws IOException
+    {
+        SourceElementBody body = (SourceElementBody)newElements.get(element);
+        TextRange fullRange = body.getFullRange();
+        TextRange identifyingRange = body.getIdentifyingRange();
+        int flags = 0;
+        if (fullRange != null)
+            flags |= HAS_FULL_RANGE;
+        if (identifyingRange != null)
+            flags |= HAS_IDENTIFYING_RANGE;
+        out.writeByte(flags);
+        if (fullRange != null)
+            writeRange(out, fullRange);
+        if (identifyingRange != null)
+            writeRange(out, identifyingRange);
+        String[] names = body.getPropertyNames().toArray(new String[0]);
+        out.writeInt(names.length);
+        for (String name : names)
+        {
+            writeString(out, name);
+            writeValue(out, body.getPropertyValue(name));
+        }
+        ISourceConstruct[] children = body.getChildren();
+        out.writeInt(children.length);
+        for (IElement child : children)
+        {
+            writeString(out, Elements.getHandleMemento(child));
+            writeBody(out, child, newElements);
+        }
+    }
+
+    private void readBody(DataInputStream in, IElement element,
+        Map<IElement, Object> newElements) throws IOException
+    {
+        SourceElementBody body = new SourceElementBody();
+        int flags = in.readUnsignedByte();
+        if ((flags & HAS_FULL_RANGE) != 0)
+            body.setFullRange(readRange(in));
+        if ((flags & HAS_IDENTIFYING_RANGE) != 0)
+            body.setIdentifyingRange(readRange(in));
+        int propertyCount = readLength(in);
+        for (int i = 0; i < propertyCount; i++)
+        {
+            String name = readString(in);
+            body.set(Property.get(name, Object.class), readValue(in));
+        }
+        int childCount = readLength(in);
+        IElement[] children = new IElement[childCount];
+        for (int i = 0; i < childCount; i++)
+        {
+            IElement child = handleFactory.createFromHandleMemento(readString(
+                in));
+            if (!(child instanceof ISourceConstruct) || !Objects.equals(
+                Elements.getParent(child), element))
+                throw new IOException("Invalid child handle"); //$NON-NLS-1$
+            children[i] = child;
+            readBody(in, child, newElements);
+        }
+        body.setChildren(children);
+        newElements.put(element, body);
+    }
+
+    private static void writeRange(DataOutputStream out, TextRange range)
+        throws IOException
+    {
+        out.writeInt(range.getOffset());
+        out.writeInt(range.getLength());
+    }
+
+    private static TextRange readRange(DataInputStream in) throws IOException
+    {
+        int offset = in.readInt();
+        return new TextRange(offset, in.readInt());
+    }
+
+    /*
+     * Unlike DataOutput.writeUTF, not limited to 65535 encoded bytes.
+     */
+    private static void writeString(DataOutputStream out, String s)
+        throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = readLength(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Reads the length of a string, an array or a list, each item of which
+     * takes at least one byte of the store file.
+     */
+    private static int readLength(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0 || length > in.available())
+            throw new IOException("Invalid length: " + length); //$NON-NLS-1$
+        return length;
+    }
+
+    private static byte valueTag(Object value)
+    {
+        if (value == null)
+            return NULL;
+        if (value instanceof String)
+            return STRING;
+        if (value instanceof Integer)
+            return INTEGER;
+        if (value instanceof Long)
+            return LONG;
+        if (value instanceof Boolean)
+            return BOOLEAN;
+        if (value instanceof String[])
+            return STRING_ARRAY;
+        if (value instanceof int[])
+            return INT_ARRAY;
+        return -1;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value)
+        throws IOException
+    {
+        byte tag = valueTag(value);
+        out.writeByte(tag);
+        switch (tag)
+        {
+        case STRING:
+            writeString(out, (String)value);
+            break;
+        case INTEGER:
+            out.writeInt((Integer)value);
+            break;
+        case LONG:
+            out.writeLong((Long)value);
+            break;
+        case BOOLEAN:
+            out.writeBoolean((Boolean)value);
+            break;
+        case STRING_ARRAY:
+            String[] strings = (String[])value;
+            out.writeInt(strings.length);
+            for (String s : strings)
+            {
+                out.writeBoolean(s != null);
+                if (s != null)
+                    writeString(out, s);
+            }
+            break;
+        case INT_ARRAY:
+            int[] ints = (int[])value;
+            out.writeInt(ints.length);
+            for (int i : ints)
+                out.writeInt(i);
+            break;
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException
+    {
+        byte tag = in.readByte();
+        switch (tag)
+        {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case BOOLEAN:
+            return in.readBoolean();
+        case STRING_ARRAY:
+            String[] strings = new String[readLength(in)];
+            for (int i = 0; i < strings.length; i++)
+            {
+                if (in.readBoolean())
+                    strings[i] = readString(in);
+            }
+            return strings;
+        case INT_ARRAY:
+            int[] ints = new int[readLength(in)];
+            for (int i = 0; i < ints.length; i++)
+                ints[i] = in.readInt();
+            return ints;
+        default:
+            throw new IOException("Unknown value tag: " + tag); //$NON-NLS-1$
+        }
+    }
+}
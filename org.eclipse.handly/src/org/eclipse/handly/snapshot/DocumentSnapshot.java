@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,16 +12,32 @@
  *******************************************************************************/
 package org.eclipse.handly.snapshot;
 
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.ISynchronizable;
 
 /**
  * A snapshot of an {@link IDocument}. Thread-safe.
+ * <p>
+ * The snapshot does not copy the document contents up front. The string
+ * returned by {@link #getContents()} is created lazily, at most once per
+ * document version, and is shared by all snapshots of that version.
+ * {@link #getCharSequence()} returns a view of the document that does
+ * not copy the contents at all.
+ * </p>
  */
 public final class DocumentSnapshot
     extends Snapshot
 {
+    private static final Map<IDocument, CachedContents> cache =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
     private final IDocument document;
     private final long modificationStamp;
 
@@ -42,20 +58,40 @@ public final class DocumentSnapshot
     @Override
     public String getContents()
     {
-        if (document instanceof ISynchronizable)
+        String contents = getCachedContents();
+        if (contents != null)
+            return contents;
+        Object lock = getLockObject();
+        if (lock != null)
         {
-            Object lock = ((ISynchronizable)document).getLockObject();
-            if (lock != null)
+            synchronized (lock)
             {
-                synchronized (lock)
-                {
-                    return internalGetContents();
-                }
+                return internalGetContents();
             }
         }
         return internalGetContents();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation returns a view of the document that reads
+     * the document contents on demand, a window at a time. The view
+     * throws a {@link StaleSnapshotException} on an attempt to read
+     * the document after it has changed.
+     * </p>
+     */
+    @Override
+    public CharSequence getCharSequence()
+    {
+        String contents = getCachedContents();
+        if (contents != null)
+            return contents;
+        if (isStale())
+            return null;
+        return new View(0, document.getLength());
+    }
+
     @Override
     protected Boolean predictEquality(Snapshot other)
     {
@@ -79,11 +115,63 @@ public final class DocumentSnapshot
         {
             String contents = document.get();
             if (!isStale()) // still current
+            {
                 result = contents;
+                cache.put(document, new CachedContents(modificationStamp,
+                    contents));
+            }
         }
         return result;
     }
 
+    private String getCachedContents()
+    {
+        CachedContents cached = cache.get(document);
+        if (cached == null || cached.modificationStamp != modificationStamp)
+            return null;
+        String contents = cached.contents.get();
+        if (contents == null || isStale())
+            return null;
+        return contents;
+    }
+
+    private String get(int offset, int length)
+    {
+        Object lock = getLockObject();
+        if (lock != null)
+        {
+            synchronized (lock)
+            {
+                return internalGet(offset, length);
+            }
+        }
+        return internalGet(offset, length);
+    }
+
+    private String internalGet(int offset, int length)
+    {
+        if (isStale())
+            throw new StaleSnapshotException();
+        try
+        {
+            String result = document.get(offset, length);
+            if (isStale())
+                throw new StaleSnapshotException();
+            return result;
+        }
+        catch (BadLocationException e)
+        {
+            throw new StaleSnapshotException(); // the document has changed
+        }
+    }
+
+    private Object getLockObject()
+    {
+        if (document instanceof ISynchronizable)
+            return ((ISynchronizable)document).getLockObject();
+        return null;
+    }
+
     private boolean isStale()
     {
         return modificationStamp != getModificationStamp(document);
@@ -93,4 +181,92 @@ public final class DocumentSnapshot
     {
         return ((IDocumentExtension4)document).getModificationStamp();
     }
+
+    private static class CachedContents
+    {
+        final long modificationStamp;
+        final SoftReference<String> contents;
+
+        CachedContents(long modificationStamp, String contents)
+        {
+            this.modificationStamp = modificationStamp;
+            this.contents = new SoftReference<>(contents);
+        }
+    }
+
+    /*
+     * A view of a range of the document. Reads the document a window
+     * at a time and keeps the most recently read window.
+     */
+    private class View
+        implements CharSequence
+    {
+        private static final int WINDOW_SIZE = 4096;
+
+        private final int start, length;
+        private volatile Window window;
+
+        View(int start, int length)
+        {
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length()
+        {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= length)
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            int offset = start + index;
+            Window w = window;
+            if (w == null || offset < w.offset || offset >= w.offset
+                + w.text.length())
+            {
+                int windowOffset = offset - offset % WINDOW_SIZE;
+                int end = start + length;
+                window = w = new Window(windowOffset, get(windowOffset,
+                    Math.min(WINDOW_SIZE, end - windowOffset)));
+            }
+            return w.text.charAt(offset - w.offset);
+        }
+
+        @Override
+        public CharSequence subSequence(int beginIndex, int endIndex)
+        {
+            if (beginIndex < 0 || endIndex > length || beginIndex > endIndex)
+                throw new IndexOutOfBoundsException();
+            return new View(start + beginIndex, endIndex - beginIndex);
+        }
+
+        @Override
+        public String toString()
+        {
+            if (start == 0 && length == document.getLength())
+            {
+                String contents = getContents();
+                if (contents == null)
+                    throw new StaleSnapshotException();
+                return contents;
+            }
+            return get(start, length);
+        }
+    }
+
+    private static class Window
+    {
+        final int offset;
+        final String text;
+
+        Window(int offset, String text)
+        {
+            this.offset = offset;
+            this.text = text;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.snapshot;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A process-wide cache of decoded file contents shared by file snapshots,
+ * so that the same version of a file is read and decoded once no matter
+ * how many snapshots of the file are taken.
+ * <p>
+ * For each file, the cache holds the contents of at most one version of
+ * the file, identified by a modification stamp and the charset used for
+ * decoding. The modification stamp must uniquely identify a version of
+ * the file, as the modification stamp of an <code>IFile</code> does; this
+ * rules out timestamps such as the last modification time of a file store,
+ * which may remain the same after the file is modified. The cache is bounded
+ * by the total length of the cached contents and evicts the least recently
+ * used files first. The contents are softly referenced, so they may also be
+ * reclaimed under memory pressure.
+ * </p>
+ * <p>
+ * Thread-safe.
+ * </p>
+ */
+final class FileContentsCache
+{
+    static final FileContentsCache INSTANCE = new FileContentsCache(
+        8 * 1024 * 1024);
+
+    private final LinkedHashMap<Object, Entry> map = new LinkedHashMap<>(16,
+        0.75f, true);
+    private final long maxTotalLength;
+    private long totalLength;
+
+    /**
+     * Constructs a cache bounded by the given total length of the contents.
+     *
+     * @param maxTotalLength the maximum total length (&gt; 0)
+     */
+    FileContentsCache(long maxTotalLength)
+    {
+        if (maxTotalLength <= 0)
+            throw new IllegalArgumentException();
+        this.maxTotalLength = maxTotalLength;
+    }
+
+    /**
+     * Returns the cached contents of the given version of the given file.
+     *
+     * @param file a file handle, such as <code>IFile</code>
+     *  (not <code>null</code>)
+     * @param stamp the modification stamp of the file version
+     * @param charset the charset used for decoding the contents,
+     *  or <code>null</code> if the charset was detected
+     * @return the cached contents, or <code>null</code> if none
+     */
+    synchronized String get(Object file, long stamp, String charset)
+    {
+        Entry entry = map.get(file);
+        if (entry == null)
+            return null;
+        if (entry.stamp != stamp || !Objects.equals(entry.charset, charset))
+            return null;
+        String contents = entry.contents.get();
+        if (contents == null)
+            remove(file);
+        return contents;
+    }
+
+    /**
+     * Caches the contents of the given version of the given file,
+     * replacing any contents cached for other versions of the file.
+     * Contents that are too long to be cached are ignored.
+     *
+     * @param file a file handle, such as <code>IFile</code>
+     *  (not <code>null</code>)
+     * @param stamp the modification stamp of the file version
+     * @param charset the charset used for decoding the contents,
+     *  or <code>null</code> if the charset was detected
+     * @param contents the decoded contents (not <code>null</code>)
+     */
+    synchronized void put(Object file, long stamp, String charset,
+        String contents)
+    {
+        remove(file);
+        int length = contents.length();
+        if (length > maxTotalLength / 8)
+            return; // don't let a single large file flush the cache
+        map.put(file, new Entry(stamp, charset, contents));
+        totalLength += length;
+        Iterator<Entry> it = map.values().iterator();
+        while (totalLength > maxTotalLength && it.hasNext())
+        {
+            totalLength -= it.next().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes the cached contents of the given file, if any.
+     *
+     * @param file a file handle (not <code>null</code>)
+     */
+    synchronized void remove(Object file)
+    {
+        Entry entry = map.remove(file);
+        if (entry != null)
+            totalLength -= entry.length;
+    }
+
+    /**
+     * Removes all of the cached contents.
+     */
+    synchronized void clear()
+    {
+        map.clear();
+        totalLength = 0;
+    }
+
+    /**
+     * Returns the total length of the cached contents.
+     *
+     * @return the total length
+     */
+    synchronized long totalLength()
+    {
+        return totalLength;
+    }
+
+    private static class Entry
+    {
+        final long stamp;
+        final String charset;
+        final int length;
+        final SoftReference<String> contents;
+
+        Entry(long stamp, String charset, String contents)
+        {
+            this.stamp = stamp;
+            this.charset = charset;
+            this.length = contents.length();
+            this.contents = new SoftReference<>(contents);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -50,6 +50,27 @@ public interface ISnapshot
      */
     String getContents();
 
+    /**
+     * Returns the contents of the snapshot as a character sequence. Unlike
+     * {@link #getContents()}, this method may return a view of the underlying
+     * resource or buffer rather than a copy of its contents, which can save
+     * a lot of space and time for clients that only need to scan through
+     * (part of) the contents. The returned sequence must not be used after
+     * the snapshot has expired; the sequence may throw a {@link
+     * StaleSnapshotException} on an attempt to access it after that.
+     * <p>
+     * This implementation returns <code>getContents()</code>.
+     * </p>
+     *
+     * @return the contents of the snapshot as a character sequence, or
+     *  <code>null</code> if the snapshot has expired
+     * @since 1.8
+     */
+    default CharSequence getCharSequence()
+    {
+        return getContents();
+    }
+
     /**
      * Indicates whether some other snapshot is "equal to" this one.
      * <p>
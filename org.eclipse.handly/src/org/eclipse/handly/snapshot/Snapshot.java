@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2020 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -15,10 +15,20 @@ package org.eclipse.handly.snapshot;
 /**
  * Abstract superclass of all snapshots.
  * Implements an equivalence relation on snapshots.
+ * <p>
+ * When equality of two snapshots cannot be {@link #predictEquality(Snapshot)
+ * predicted}, their contents are compared. To make the comparison cheap,
+ * each snapshot computes a 128-bit digest of its contents the first time
+ * it needs to be compared and caches the digest. Snapshots with different
+ * digests are unequal; only the contents of snapshots with equal digests
+ * need to be compared character by character.
+ * </p>
  */
 public abstract class Snapshot
     implements ISnapshot
 {
+    private volatile ContentDigest digest; // computed lazily
+
     @Override
     public final boolean isEqualTo(ISnapshot other)
     {
@@ -32,8 +42,32 @@ public abstract class Snapshot
             prediction = otherSnapshot.predictEquality(this);
         if (prediction != null)
             return prediction.booleanValue();
-        String otherContents = other.getContents();
-        return otherContents != null && otherContents.equals(getContents());
+
+        String contents = null, otherContents = null;
+        ContentDigest digest = this.digest;
+        if (digest == null)
+        {
+            if ((contents = getContents()) == null)
+                return false;
+            this.digest = digest = new ContentDigest(contents);
+        }
+        ContentDigest otherDigest = otherSnapshot.digest;
+        if (otherDigest == null)
+        {
+            if ((otherContents = other.getContents()) == null)
+                return false;
+            otherSnapshot.digest = otherDigest = new ContentDigest(
+                otherContents);
+        }
+        if (!digest.equals(otherDigest))
+            return false;
+        // confirm equality; the snapshots may have expired in the meantime
+        if (contents == null && (contents = getContents()) == null)
+            return false;
+        if (otherContents == null && (otherContents =
+            other.getContents()) == null)
+            return false;
+        return contents.equals(otherContents);
     }
 
     /**
@@ -52,4 +86,67 @@ public abstract class Snapshot
     {
         return null;
     }
+
+    /*
+     * A 128-bit digest of a character sequence. Two independent 64-bit
+     * hashes are computed over the characters packed four at a time
+     * into a long, and are finalized together with the length of the
+     * sequence. The digest is not cryptographically strong; it is only
+     * used to quickly tell snapshots with different contents apart.
+     */
+    private static final class ContentDigest
+    {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final int length;
+        private final long h1, h2;
+
+        ContentDigest(String s)
+        {
+            int length = s.length();
+            long h1 = 0x9e3779b97f4a7c15L, h2 = 0xc2b2ae3d27d4eb4fL;
+            int i = 0;
+            for (int end = length - 3; i < end; i += 4)
+            {
+                long k = s.charAt(i) | (long)s.charAt(i + 1) << 16
+                    | (long)s.charAt(i + 2) << 32 | (long)s.charAt(i + 3) << 48;
+                h1 = Long.rotateLeft(h1 ^ k * C1, 31) * C2;
+                h2 = Long.rotateLeft(h2 + k * C2, 29) * C1 ^ h1;
+            }
+            long k = 0;
+            for (int shift = 0; i < length; i++, shift += 16)
+                k |= (long)s.charAt(i) << shift;
+            h1 = mix(h1 ^ k * C1 ^ length);
+            h2 = mix(h2 + k * C2 + length);
+            this.length = length;
+            this.h1 = h1;
+            this.h2 = h2;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ContentDigest))
+                return false;
+            ContentDigest other = (ContentDigest)obj;
+            return length == other.length && h1 == other.h1 && h2 == other.h2;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (int)h1;
+        }
+
+        private static long mix(long h)
+        {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
 }
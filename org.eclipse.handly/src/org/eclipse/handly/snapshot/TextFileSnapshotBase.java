@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 1C-Soft LLC and others.
+ * Copyright (c) 2014, 2026 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -15,6 +15,9 @@ package org.eclipse.handly.snapshot;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
@@ -79,6 +82,27 @@ abstract class TextFileSnapshotBase
         return null;
     }
 
+    static String getBytesAsString(byte[] bytes, String charset)
+        throws UnsupportedEncodingException
+    {
+        Charset cs;
+        try
+        {
+            cs = Charset.forName(charset);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new UnsupportedEncodingException(charset);
+        }
+        // Do not keep UTF-8 BOM
+        int start = 0;
+        if (StandardCharsets.UTF_8.equals(cs) && bytes.length >= 3
+            && bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB
+            && bytes[2] == (byte)0xBF)
+            start = 3;
+        return new String(bytes, start, bytes.length - start, cs);
+    }
+
     static char[] getInputStreamAsCharArray(InputStream stream,
         InputStreamReader reader) throws IOException
     {
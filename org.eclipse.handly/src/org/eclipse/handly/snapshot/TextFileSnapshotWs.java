@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2020 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -71,7 +71,15 @@ final class TextFileSnapshotWs
             try
             {
                 cacheCharset();
-                String currentContents = readContents();
+                String currentContents = FileContentsCache.INSTANCE.get(file,
+                    modificationStamp, charset);
+                if (currentContents == null)
+                {
+                    currentContents = readContents();
+                    if (isCurrent()) // still current
+                        FileContentsCache.INSTANCE.put(file, modificationStamp,
+                            charset, currentContents);
+                }
                 if (isCurrent()) // still current
                     contents = new SoftReference<String>(result =
                         currentContents);
@@ -166,5 +174,6 @@ final class TextFileSnapshotWs
     void clearContents()
     {
         contents.clear();
+        FileContentsCache.INSTANCE.remove(file);
     }
 }
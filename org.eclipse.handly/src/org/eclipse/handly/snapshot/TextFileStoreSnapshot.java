@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 1C-Soft LLC.
+ * Copyright (c) 2016, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,10 +12,13 @@
  *******************************************************************************/
 package org.eclipse.handly.snapshot;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.filesystem.EFS;
@@ -24,14 +27,22 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.handly.internal.Activator;
+import org.eclipse.handly.internal.FileExpiryRegistry;
 
 /**
  * A snapshot of a text {@link IFileStore}. Thread-safe.
+ * <p>
+ * For a file store that is a local file, changes to the file are tracked
+ * with a watch service where supported, so that checking whether the snapshot
+ * has expired does not require querying the file system while no change
+ * to the file has been reported.
+ * </p>
  */
 public final class TextFileStoreSnapshot
     extends TextFileSnapshotBase
 {
     private final IFileStore fileStore;
+    private final FileExpiryRegistry.Token expiryToken;
     private final long lastModified;
     private final IStatus status;
     private String contents;
@@ -65,6 +76,8 @@ public final class TextFileStoreSnapshot
         if (fileStore == null)
             throw new IllegalArgumentException();
         this.fileStore = fileStore;
+        // start tracking changes before the modification stamp is obtained
+        this.expiryToken = watch(fileStore);
         this.lastModified = getLastModified(fileStore);
         if (this.lastModified == EFS.NONE)
         {
@@ -77,6 +90,9 @@ public final class TextFileStoreSnapshot
             String contents = null;
             try
             {
+                // the contents are not shared via FileContentsCache:
+                // the last modification time of a file store is too coarse
+                // to tell apart the versions written within the same tick
                 contents = readContents(fileStore, charset);
             }
             catch (CoreException e)
@@ -92,7 +108,7 @@ public final class TextFileStoreSnapshot
     @Override
     public synchronized String getContents()
     {
-        if (contents != null && lastModified != getLastModified(fileStore))
+        if (contents != null && !isCurrent())
             contents = null;
 
         return contents;
@@ -113,15 +129,44 @@ public final class TextFileStoreSnapshot
     @Override
     protected Boolean predictEquality(Snapshot other)
     {
-        if (lastModified != getLastModified(fileStore) || !status.isOK())
+        if (!isCurrent() || !status.isOK())
             return false; // expired
 
         return null;
     }
 
+    private boolean isCurrent()
+    {
+        if (expiryToken != null && !expiryToken.isExpired())
+            return true; // no change has been reported
+        return lastModified == getLastModified(fileStore);
+    }
+
+    private static FileExpiryRegistry.Token watch(IFileStore fileStore)
+    {
+        FileExpiryRegistry registry = FileExpiryRegistry.getDefault();
+        if (registry == null)
+            return null;
+        File file;
+        try
+        {
+            file = fileStore.toLocalFile(EFS.NONE, null);
+        }
+        catch (CoreException e)
+        {
+            return null;
+        }
+        if (file == null)
+            return null;
+        return registry.register(file.toPath().toAbsolutePath());
+    }
+
     private static String readContents(IFileStore fileStore, String charset)
         throws CoreException
     {
+        File file = fileStore.toLocalFile(EFS.NONE, null);
+        if (file != null)
+            return readLocalContents(file, charset);
         if (charset == null)
             charset = detectCharset(fileStore);
         try (
@@ -137,19 +182,48 @@ public final class TextFileStoreSnapshot
         }
     }
 
+    /*
+     * Fast path for a local file: reads the file with a single open
+     * into an exactly sized byte array, detects the charset from the
+     * bytes already read, and decodes the bytes directly into the
+     * resulting string.
+     */
+    private static String readLocalContents(File file, String charset)
+        throws CoreException
+    {
+        try
+        {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            if (charset == null)
+                charset = detectCharset(new ByteArrayInputStream(bytes),
+                    file.getName());
+            return getBytesAsString(bytes, charset);
+        }
+        catch (IOException e)
+        {
+            throw new CoreException(Activator.createErrorStatus(e.getMessage(),
+                e));
+        }
+    }
+
     private static String detectCharset(IFileStore fileStore)
         throws CoreException
     {
-        String charset = null;
         try (InputStream contents = fileStore.openInputStream(EFS.NONE, null))
         {
-            charset = getCharset(contents, fileStore.getName());
+            return detectCharset(contents, fileStore.getName());
         }
         catch (IOException e)
         {
             throw new CoreException(Activator.createErrorStatus(e.getMessage(),
                 e));
         }
+    }
+
+    private static String detectCharset(InputStream contents, String fileName)
+        throws IOException
+    {
+        String charset = getCharset(contents, fileName);
         if (charset == null)
             charset = ITextFileBufferManager.DEFAULT.getDefaultEncoding();
         return charset;
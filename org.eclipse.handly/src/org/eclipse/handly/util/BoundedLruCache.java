@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -12,6 +12,10 @@
  *******************************************************************************/
 package org.eclipse.handly.util;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * An LRU cache with a fixed maximum size (the bound).
  * <p>
@@ -25,11 +29,47 @@ package org.eclipse.handly.util;
  * new entries are added to the cache; e.g., permit cache overflow by retaining
  * cache entries that cannot currently be evicted.
  * </p>
+ * <p>
+ * By default, stale entries are selected for eviction strictly in the least
+ * recently used order. The cache can also be constructed with a {@link
+ * EvictionPolicy#SCAN_RESISTANT scan-resistant} eviction policy, which takes
+ * the access frequency of entries into account, so that a one-time access to
+ * a large number of entries does not flush the frequently used entries from
+ * the cache. The eviction policy does not affect the ordering of entries in
+ * the cache.
+ * </p>
+ * <p>
+ * Entries that refuse eviction are remembered as <i>pinned</i> and are not
+ * attempted again until they are accessed or the cache has run out of other
+ * candidates for eviction. Even then, pinned entries are reconsidered only
+ * after the cache size has doubled since they were last reconsidered, so that
+ * the amortized cost of making space remains constant even if most of the
+ * entries in the cache cannot currently be evicted.
+ * </p>
  */
 public class BoundedLruCache<K, V>
     extends LruCache<K, V>
 {
+    private static final double PROTECTED_RATIO = 0.8;
+    private static final int ADMISSION_FREQUENCY = 2;
+
     private int maxSize;
+    private final EvictionPolicy evictionPolicy;
+
+    // Used by the scan-resistant eviction policy; each entry of the cache is
+    // either in the probation or in the protected segment, which are ordered
+    // from least recently used to most recently used
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Entry<K, V>> probation, protectedSegment;
+
+    // Entries that have refused eviction. With the LRU eviction policy, the
+    // pinned entries are the entries from pinnedHead to the LRU entry; with
+    // the scan-resistant eviction policy, they are moved from their segment
+    // to the pinned segment
+    private Entry<K, V> pinnedHead;
+    private final LinkedHashMap<K, Entry<K, V>> pinnedSegment;
+    private int pinnedCount;
+    private int rescanSize; // the cache size for reconsidering pinned entries
 
     /**
      * Constructs a bounded LRU cache that is initially empty.
@@ -38,10 +78,51 @@ public class BoundedLruCache<K, V>
      * @throws IllegalArgumentException if <code>maxSize &lt; 1</code>
      */
     public BoundedLruCache(int maxSize)
+    {
+        this(maxSize, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Constructs a bounded LRU cache with the given eviction policy
+     * that is initially empty.
+     *
+     * @param maxSize the maximum size of the cache (the bound)
+     * @param evictionPolicy the eviction policy of the cache
+     *  (not <code>null</code>)
+     * @throws IllegalArgumentException if <code>maxSize &lt; 1</code>
+     * @since 1.8
+     */
+    public BoundedLruCache(int maxSize, EvictionPolicy evictionPolicy)
     {
         if (maxSize < 1)
             throw new IllegalArgumentException();
+        if (evictionPolicy == null)
+            throw new IllegalArgumentException();
         this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+        if (evictionPolicy == EvictionPolicy.SCAN_RESISTANT)
+        {
+            sketch = new FrequencySketch(maxSize);
+            probation = new LinkedHashMap<>(16, 0.75f, true);
+            protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+            pinnedSegment = new LinkedHashMap<>();
+        }
+        else
+        {
+            sketch = null;
+            probation = protectedSegment = pinnedSegment = null;
+        }
+    }
+
+    /**
+     * Returns the eviction policy of this cache.
+     *
+     * @return the eviction policy of the cache (never <code>null</code>)
+     * @since 1.8
+     */
+    public final EvictionPolicy getEvictionPolicy()
+    {
+        return evictionPolicy;
     }
 
     /**
@@ -67,6 +148,7 @@ public class BoundedLruCache<K, V>
         if (maxSize < 1)
             throw new IllegalArgumentException();
         this.maxSize = maxSize;
+        rescanSize = 0;
 
         if (size() > maxSize)
             makeSpace(0);
@@ -91,19 +173,193 @@ public class BoundedLruCache<K, V>
         super.add(entry);
     }
 
+    @Override
+    public void clear()
+    {
+        super.clear();
+        pinnedHead = null;
+        pinnedCount = 0;
+        if (probation != null)
+        {
+            probation.clear();
+            protectedSegment.clear();
+            pinnedSegment.clear();
+        }
+    }
+
     /**
      * Attempts to {@link #evict(org.eclipse.handly.util.LruCache.Entry) evict}
-     * stale entries to make space as requested. Follows the access order,
-     * starting from the least recently used entry.
+     * stale entries to make space as requested. With the {@link
+     * EvictionPolicy#LRU LRU} eviction policy, follows the access order,
+     * starting from the least recently used entry. With the {@link
+     * EvictionPolicy#SCAN_RESISTANT scan-resistant} eviction policy, first
+     * tries to evict entries in the probation segment, then in the protected
+     * segment, in the least recently used order within each segment.
+     * In either case, entries that have previously refused eviction are
+     * skipped, unless there is not enough space otherwise and the cache
+     * size has doubled since such entries were last attempted.
      *
      * @param sizeNeeded the requested space (&gt;= 0)
      */
     protected void makeSpace(int sizeNeeded)
     {
-        for (Entry<K, V> entry = getLruEntry(); entry != null
-            && sizeNeeded > maxSize - size(); entry = existingPrev(entry))
+        evictUnpinned(sizeNeeded);
+        if (sizeNeeded > maxSize - size() && pinnedCount > 0
+            && size() >= rescanSize)
+        {
+            // some of the pinned entries may have become evictable
+            unpinAll();
+            evictUnpinned(sizeNeeded);
+            rescanSize = 2 * size();
+        }
+    }
+
+    private void evictUnpinned(int sizeNeeded)
+    {
+        if (evictionPolicy == EvictionPolicy.SCAN_RESISTANT)
+        {
+            makeSpace(probation, sizeNeeded);
+            makeSpace(protectedSegment, sizeNeeded);
+            return;
+        }
+        Entry<K, V> entry = pinnedHead == null ? getLruEntry()
+            : pinnedHead.prev();
+        while (entry != null && sizeNeeded > maxSize - size())
+        {
+            evict(entry);
+            Entry<K, V> prev = existingPrev(entry);
+            // keep the pinned entries contiguous at the LRU end
+            if (entryByKey(entry.key) == entry && !entry.pinned
+                && entry.next() == pinnedHead)
+            {
+                entry.pinned = true;
+                pinnedCount++;
+                pinnedHead = entry;
+            }
+            entry = prev;
+        }
+    }
+
+    private void makeSpace(LinkedHashMap<K, Entry<K, V>> segment,
+        int sizeNeeded)
+    {
+        // each iteration removes an entry from the segment: the entry is
+        // either evicted, or moved to another segment, or pinned
+        while (!segment.isEmpty() && sizeNeeded > maxSize - size())
         {
+            Entry<K, V> entry = segment.values().iterator().next();
             evict(entry);
+            if (entryByKey(entry.key) == entry && segment.remove(
+                entry.key) != null)
+            {
+                entry.pinned = true;
+                pinnedCount++;
+                pinnedSegment.put(entry.key, entry);
+            }
+        }
+    }
+
+    private void unpin(Entry<K, V> entry)
+    {
+        entry.pinned = false;
+        pinnedCount--;
+        if (pinnedSegment != null)
+            pinnedSegment.remove(entry.key);
+        else if (entry == pinnedHead)
+            pinnedHead = entry.next();
+    }
+
+    private void unpinAll()
+    {
+        if (pinnedSegment != null)
+        {
+            for (Entry<K, V> entry : pinnedSegment.values())
+            {
+                entry.pinned = false;
+                probation.put(entry.key, entry);
+            }
+            pinnedSegment.clear();
+        }
+        else
+        {
+            for (Entry<K, V> entry = pinnedHead; entry != null; entry =
+                entry.next())
+            {
+                entry.pinned = false;
+            }
+            pinnedHead = null;
+        }
+        pinnedCount = 0;
+    }
+
+    @Override
+    protected void doAdd(Entry<K, V> entry)
+    {
+        super.doAdd(entry);
+        if (probation != null)
+        {
+            sketch.increment(entry.key);
+            if (isFrequent(entry.key))
+                addProtected(entry); // was frequently used in the past
+            else
+                probation.put(entry.key, entry);
+        }
+    }
+
+    @Override
+    protected void doRemove(Entry<K, V> entry)
+    {
+        super.doRemove(entry);
+        if (entry.pinned)
+            unpin(entry);
+        else if (probation != null)
+        {
+            if (probation.remove(entry.key) == null)
+                protectedSegment.remove(entry.key);
+        }
+    }
+
+    @Override
+    protected void moveToMru(Entry<K, V> entry)
+    {
+        boolean wasPinned = entry.pinned;
+        if (wasPinned)
+            unpin(entry); // give it another chance
+        super.moveToMru(entry);
+        if (probation != null)
+        {
+            sketch.increment(entry.key);
+            if (wasPinned || probation.remove(entry.key) != null)
+                addProtected(entry); // promote on a repeated access
+            else
+                protectedSegment.get(entry.key);
+        }
+    }
+
+    private boolean isFrequent(K key)
+    {
+        int frequency = sketch.frequency(key);
+        if (frequency < ADMISSION_FREQUENCY)
+            return false;
+        if (protectedSegment.size() < (int)(PROTECTED_RATIO * maxSize))
+            return true;
+        // must be more frequent than the protected entry it would demote
+        K eldest = protectedSegment.keySet().iterator().next();
+        return frequency > sketch.frequency(eldest);
+    }
+
+    private void addProtected(Entry<K, V> entry)
+    {
+        protectedSegment.put(entry.key, entry);
+        int maxProtectedSize = (int)(PROTECTED_RATIO * maxSize);
+        if (protectedSegment.size() > maxProtectedSize)
+        {
+            // demote the LRU protected entry
+            Iterator<Map.Entry<K, Entry<K, V>>> it =
+                protectedSegment.entrySet().iterator();
+            Map.Entry<K, Entry<K, V>> eldest = it.next();
+            it.remove();
+            probation.put(eldest.getKey(), eldest.getValue());
         }
     }
 
@@ -131,4 +387,32 @@ public class BoundedLruCache<K, V>
     {
         doRemove(entry);
     }
+
+    /**
+     * Enumeration of the policies for selecting stale entries to evict.
+     *
+     * @since 1.8
+     */
+    public enum EvictionPolicy
+    {
+        /**
+         * Evicts entries strictly in the least recently used order.
+         */
+        LRU,
+        /**
+         * Evicts entries that have been accessed only once recently
+         * before entries that have been accessed repeatedly. Entries are
+         * divided into a probation segment and a protected segment; new
+         * entries are added to the probation segment and are promoted to the
+         * protected segment when accessed again or when a frequency sketch
+         * indicates that they were used in the past more frequently than the
+         * least recently used protected entry. The protected
+         * segment can take up to 80% of the cache; if it exceeds this limit,
+         * its least recently used entry is demoted to the probation segment.
+         * Within each segment, entries are evicted in the least recently used
+         * order. This policy resembles the segmented LRU (SLRU) policy with
+         * TinyLFU-like admission to the protected segment.
+         */
+        SCAN_RESISTANT
+    }
 }
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2026 1C-Soft LLC.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Vladimir Piskarev (1C) - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.handly.util;
+
+/**
+ * A probabilistic estimate of the recent access frequency of keys
+ * (a count-min sketch with small saturating counters). In order to
+ * keep the history fresh, all counters are halved once the number
+ * of recorded accesses reaches a sample size that is proportional
+ * to the expected number of distinct keys.
+ * <p>
+ * This implementation is not thread-safe.
+ * </p>
+ */
+final class FrequencySketch
+{
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x97cb3127, 0xb0c5e32d, 0x8c4ba7cd,
+        0xc1c8ac9f };
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Constructs a sketch for the given expected number of distinct keys.
+     *
+     * @param expectedSize the expected number of distinct keys (&gt; 0)
+     */
+    FrequencySketch(int expectedSize)
+    {
+        int width = Integer.highestOneBit(Math.max(64, (int)Math.min(4L
+            * expectedSize, 1 << 24)) - 1) << 1;
+        table = new byte[DEPTH][width];
+        mask = width - 1;
+        sampleSize = 10 * Math.max(16, expectedSize);
+    }
+
+    /**
+     * Returns the estimated number of recent accesses to the given key.
+     *
+     * @param key not <code>null</code>
+     * @return the estimated frequency of the key
+     */
+    int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++)
+            frequency = Math.min(frequency, table[i][index(hash, i)]);
+        return frequency;
+    }
+
+    /**
+     * Records an access to the given key.
+     *
+     * @param key not <code>null</code>
+     */
+    void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++)
+        {
+            int index = index(hash, i);
+            if (table[i][index] < MAX_COUNT)
+            {
+                table[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize)
+            reset();
+    }
+
+    private void reset()
+    {
+        for (byte[] row : table)
+        {
+            for (int i = 0; i < row.length; i++)
+                row[i] >>>= 1;
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int i)
+    {
+        int h = (hash ^ SEEDS[i]) * SEEDS[i];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int h)
+    {
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        return h;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 1C-Soft LLC.
+ * Copyright (c) 2018, 2026 1C-Soft LLC.
  *
  * This program and the accompanying materials are made available under
  * the terms of the Eclipse Public License 2.0 which is available at
@@ -345,6 +345,8 @@ public class LruCache<K, V>
 
         Entry<K, V> prev, next;
 
+        boolean pinned; // used by BoundedLruCache
+
         /**
          * Constructs a cache entry with the given key and value.
          *